@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core;
+
+import com.digitalascent.cfn.core.domain.CfnObject;
+import com.digitalascent.cfn.core.domain.CfnResource;
+import com.google.common.collect.ImmutableList;
+import groovy.lang.Closure;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Synthetic templates for benchmarks; resources are built through the same setProperty / closure paths as the DSL.
+ */
+public final class BenchmarkTemplates {
+    private BenchmarkTemplates() {
+        // EMPTY
+    }
+
+    public static Map<String, Object> template(int resourceCount) {
+        Map<String, Object> resources = new LinkedHashMap<>();
+        for (int i = 0; i < resourceCount; i++) {
+            String name = "instance" + i;
+            resources.put(name, instance(name));
+        }
+
+        Map<String, Object> template = new LinkedHashMap<>();
+        template.put("AWSTemplateFormatVersion", "2010-09-09");
+        template.put("Resources", resources);
+        return template;
+    }
+
+    public static CfnResource instance(String name) {
+        CfnResource resource = CfnResource.create(name, "AWS::EC2::Instance");
+        resource.setProperty("dependsOn", "vpc");
+        resource.setProperty("properties", closure(properties -> {
+            properties.setProperty("instanceType", "m4.xlarge");
+            properties.setProperty("imageId", "ami-12345678");
+            properties.setProperty("subnetId", properties.Ref("subnet"));
+            properties.setProperty("securityGroupIds", ImmutableList.of(properties.Ref("securityGroup")));
+            properties.setProperty("blockDeviceMappings", ImmutableList.of(
+                    closure(mapping -> {
+                        mapping.setProperty("deviceName", "/dev/sdh");
+                        mapping.setProperty("virtualName", "ephemeral0");
+                    })));
+            Map<String, String> tags = new LinkedHashMap<>();
+            tags.put("Name", name);
+            tags.put("Environment", "benchmark");
+            properties.setProperty("tags", tags);
+        }));
+        return resource;
+    }
+
+    /**
+     * Equivalent of a Groovy DSL closure; the body is applied to the closure's delegate.
+     */
+    public static Closure<Object> closure(Consumer<CfnObject> body) {
+        return new Closure<Object>(null) {
+            private static final long serialVersionUID = 1L;
+
+            @SuppressWarnings("unused")
+            public Object doCall() {
+                body.accept((CfnObject) getDelegate());
+                return null;
+            }
+        };
+    }
+}
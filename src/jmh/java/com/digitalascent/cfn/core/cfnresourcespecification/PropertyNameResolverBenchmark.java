@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PropertyNameResolverBenchmark {
+    private PropertyNameResolver resolver;
+
+    @Setup
+    public void setup() {
+        resolver = new PropertyNameResolver(new CompiledResourceSpecification(new ResourceSpecificationLoader().loadResourceSpecification()));
+    }
+
+    @Benchmark
+    public String resolvePropertyName() {
+        return resolver.resolvePropertyName("AWS::EC2::Instance", "properties.instanceType");
+    }
+
+    @Benchmark
+    public String resolveNestedPropertyName() {
+        return resolver.resolvePropertyName("AWS::AutoScaling::LaunchConfiguration", "properties.blockDeviceMappings[0].deviceName");
+    }
+
+    @Benchmark
+    public String resolveUnknownPropertyName() {
+        try {
+            return resolver.resolvePropertyName("AWS::EC2::Instance", "properties.unknownProperty");
+        } catch (ResourceSpecException e) {
+            return e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.diff;
+
+import com.digitalascent.cfn.core.BenchmarkTemplates;
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationServiceImpl;
+import com.digitalascent.cfn.core.domain.CfnObject;
+import com.digitalascent.cfn.core.generator.JsonCloudFormationGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Diffs two synthetic templates that differ in a single resource property, as models and as generated JSON.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TemplateDiffBenchmark {
+    @Param({"10", "500", "5000"})
+    public int resourceCount;
+
+    private Map<String, Object> oldTemplate;
+    private Map<String, Object> newTemplate;
+    private JsonNode oldJson;
+    private JsonNode newJson;
+
+    @Setup
+    public void setup() throws IOException {
+        oldTemplate = BenchmarkTemplates.template(resourceCount);
+        newTemplate = BenchmarkTemplates.template(resourceCount);
+        Map<?, ?> resources = (Map<?, ?>) newTemplate.get("Resources");
+        CfnObject properties = (CfnObject) ((CfnObject) resources.get("instance0")).getProperty("properties");
+        properties.setProperty("instanceType", "c5.large");
+
+        JsonCloudFormationGenerator generator = new JsonCloudFormationGenerator(new ResourceSpecificationServiceImpl());
+        oldJson = toJson(generator, oldTemplate);
+        newJson = toJson(generator, newTemplate);
+    }
+
+    @Benchmark
+    public TemplateDiff diffModel() {
+        return TemplateDiff.of(oldTemplate, newTemplate);
+    }
+
+    @Benchmark
+    public TemplateDiff diffJson() {
+        return TemplateDiff.ofJson(oldJson, newJson);
+    }
+
+    private static JsonNode toJson(JsonCloudFormationGenerator generator, Map<String, Object> template) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        generator.generate(template, os, false);
+        return new ObjectMapper().readTree(os.toByteArray());
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.domain;
+
+import com.digitalascent.cfn.core.BenchmarkTemplates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CfnObjectBenchmark {
+
+    @Benchmark
+    public CfnObject setProperty() {
+        CfnObject obj = new CfnObject("AWS::EC2::Instance", "properties");
+        obj.setProperty("instanceType", "m4.xlarge");
+        obj.setProperty("imageId", "ami-12345678");
+        obj.setProperty("keyName", "key");
+        obj.setProperty("instanceType", "m4.large");
+        return obj;
+    }
+
+    @Benchmark
+    public CfnObject handleClosure() {
+        CfnObject obj = new CfnObject("AWS::EC2::Instance", "properties");
+        obj.setProperty("networkInterfaces", BenchmarkTemplates.closure(networkInterface -> {
+            networkInterface.setProperty("deviceIndex", "0");
+            networkInterface.setProperty("subnetId", "subnet-12345678");
+        }));
+        return obj;
+    }
+
+    @Benchmark
+    public CfnResource buildResource() {
+        return BenchmarkTemplates.instance("instance1");
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.domain;
+
+import com.digitalascent.cfn.core.BenchmarkTemplates;
+import com.digitalascent.cfn.core.strategy.DefaultImmutabilityStrategy;
+import com.digitalascent.cfn.core.strategy.ImmutabilityStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Freezes whole templates; small, medium and synthetic large. A fresh template is built before each invocation;
+ * {@link #refreeze} freezes a template that was already frozen once.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MakeImmutableBenchmark {
+    @Param({"10", "500", "5000"})
+    public int resourceCount;
+
+    private final ImmutabilityStrategy immutabilityStrategy = new DefaultImmutabilityStrategy();
+
+    private Map<String, Object> resources;
+    private Map<String, Object> frozenResources;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void buildFrozenTemplate() {
+        frozenResources = (Map<String, Object>) BenchmarkTemplates.template(resourceCount).get("Resources");
+        for (Object resource : frozenResources.values()) {
+            ((CfnObject) resource).makeImmutable(immutabilityStrategy);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    @SuppressWarnings("unchecked")
+    public void buildTemplate() {
+        resources = (Map<String, Object>) BenchmarkTemplates.template(resourceCount).get("Resources");
+    }
+
+    @Benchmark
+    public void makeImmutable(Blackhole blackhole) {
+        for (Object resource : resources.values()) {
+            ((CfnObject) resource).makeImmutable(immutabilityStrategy);
+            blackhole.consume(resource);
+        }
+    }
+
+    @Benchmark
+    public void refreeze(Blackhole blackhole) {
+        for (Object resource : frozenResources.values()) {
+            ((CfnObject) resource).makeImmutable(immutabilityStrategy);
+            blackhole.consume(resource);
+        }
+    }
+}
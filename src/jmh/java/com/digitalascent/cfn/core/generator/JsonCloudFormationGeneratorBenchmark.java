@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator;
+
+import com.digitalascent.cfn.core.BenchmarkTemplates;
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationService;
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates small, medium and synthetic large templates, sequentially, with per-resource parallelism, from a warm
+ * fragment cache and while measuring sizes against template limits.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonCloudFormationGeneratorBenchmark {
+    // never exceeded, so only the accounting itself is measured
+    private static final TemplateLimits LIMITS = new TemplateLimits(Long.MAX_VALUE, Integer.MAX_VALUE, 60, 60, 100, LimitAction.WARN);
+
+    @Param({"10", "500", "5000"})
+    public int resourceCount;
+
+    private final ByteArrayOutputStream os = new ByteArrayOutputStream(1 << 20);
+
+    private JsonCloudFormationGenerator generator;
+    private CloudFormationGenerator parallelGenerator;
+    private CloudFormationGenerator cachedGenerator;
+    private Map<String, Object> template;
+
+    @Setup
+    public void setup() throws IOException {
+        ResourceSpecificationService resourceSpecificationService = new ResourceSpecificationServiceImpl();
+        generator = new JsonCloudFormationGenerator(resourceSpecificationService);
+        parallelGenerator = new ParallelJsonCloudFormationGenerator(resourceSpecificationService);
+        cachedGenerator = new JsonCloudFormationGenerator(resourceSpecificationService,
+                new DiskFragmentCache(Files.createTempDirectory("cfn-fragments")));
+        template = BenchmarkTemplates.template(resourceCount);
+
+        // warm the cache so the benchmark measures hits only
+        generate(cachedGenerator, false);
+    }
+
+    @Benchmark
+    public int generate() {
+        return generate(generator, false);
+    }
+
+    @Benchmark
+    public int generatePretty() {
+        return generate(generator, true);
+    }
+
+    @Benchmark
+    public int generateParallel() {
+        return generate(parallelGenerator, false);
+    }
+
+    @Benchmark
+    public int generateCached() {
+        return generate(cachedGenerator, false);
+    }
+
+    @Benchmark
+    public long generateMeasured() {
+        os.reset();
+        return generator.generate(template, os, false, LIMITS).getTotalBytes();
+    }
+
+    private int generate(CloudFormationGenerator cloudFormationGenerator, boolean prettyPrint) {
+        os.reset();
+        cloudFormationGenerator.generate(template, os, prettyPrint);
+        return os.size();
+    }
+}
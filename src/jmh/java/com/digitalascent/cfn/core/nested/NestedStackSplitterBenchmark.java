@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.nested;
+
+import com.digitalascent.cfn.core.BenchmarkTemplates;
+import com.digitalascent.cfn.core.graph.StackPartitioner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits synthetic templates into nested stacks of at most 200 resources.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NestedStackSplitterBenchmark {
+    @Param({"500", "5000", "20000"})
+    public int resourceCount;
+
+    private NestedStackSplitter splitter;
+    private Map<String, Object> template;
+
+    @Setup
+    public void setup() {
+        splitter = new NestedStackSplitter(new StackPartitioner(200), name -> "https://example.com/" + name + ".json");
+        template = BenchmarkTemplates.template(resourceCount);
+    }
+
+    @Benchmark
+    public NestedStacks split() {
+        return splitter.split(template);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification;
+
+import com.google.common.base.Throwables;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Resource specification service whose specification loads in the background.
+ * <p>
+ * Construction returns immediately, so the specification loads while the template model is being built; the first
+ * lookup waits for whatever loading remains, later ones go straight to the loaded service. A failed load is rethrown
+ * from every lookup. Thread-safe.
+ */
+public final class AsyncResourceSpecificationService implements ResourceSpecificationService {
+    private final CompletableFuture<ResourceSpecificationService> loaded;
+
+    AsyncResourceSpecificationService(CompletableFuture<ResourceSpecificationService> loaded) {
+        this.loaded = checkNotNull(loaded, "loaded is required");
+    }
+
+    /**
+     * Completes with the loaded service, e.g. to chain work after loading instead of waiting for it.
+     */
+    public CompletableFuture<ResourceSpecificationService> whenLoaded() {
+        // a dependent future, so callers cannot complete this one
+        return loaded.thenApply(service -> service);
+    }
+
+    public boolean isLoaded() {
+        return loaded.isDone();
+    }
+
+    @Override
+    public String findPropertyNameFor(String resourceType, String propertyPath) throws ResourceSpecException {
+        return service().findPropertyNameFor(resourceType, propertyPath);
+    }
+
+    @Override
+    public Optional<String> lookupPropertyName(String resourceType, String propertyPath) {
+        return service().lookupPropertyName(resourceType, propertyPath);
+    }
+
+    @Override
+    public UpdateType findUpdateType(String resourceType, String propertyName) throws ResourceSpecException {
+        return service().findUpdateType(resourceType, propertyName);
+    }
+
+    @Override
+    public CfnTypeSpecification findResourceTypeSpecification(String resourceType) throws ResourceSpecException {
+        return service().findResourceTypeSpecification(resourceType);
+    }
+
+    @Override
+    public CfnTypeSpecification findPropertyTypeSpecification(String propertyType) throws ResourceSpecException {
+        return service().findPropertyTypeSpecification(propertyType);
+    }
+
+    @Override
+    public List<String> listResourceTypes() {
+        return service().listResourceTypes();
+    }
+
+    @Override
+    public String getResourceSpecificationVersion() throws ResourceSpecException {
+        return service().getResourceSpecificationVersion();
+    }
+
+    private ResourceSpecificationService service() {
+        try {
+            return loaded.join();
+        } catch (CompletionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
+        }
+    }
+}
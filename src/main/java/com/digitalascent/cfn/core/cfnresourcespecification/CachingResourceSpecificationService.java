@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheBuilderSpec;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Memoizing decorator for {@link ResourceSpecificationService#findPropertyNameFor(String, String)}.
+ * <p>
+ * Lookups are cached in a bounded, thread-safe cache configured via a
+ * <a href="https://google.github.io/guava/releases/23.0/api/docs/com/google/common/cache/CacheBuilderSpec.html">CacheBuilderSpec</a>
+ * string, e.g. {@code maximumSize=10000,expireAfterAccess=10m}. Lookups are resolved via
+ * {@link ResourceSpecificationService#lookupPropertyName(String, String)}, so misses are cached as empty results and
+ * the {@link ResourceSpecException} is only created when {@link #findPropertyNameFor(String, String)} is called.
+ */
+public final class CachingResourceSpecificationService implements ResourceSpecificationService {
+    public static final String DEFAULT_CACHE_SPEC = "maximumSize=10000";
+
+    private final ResourceSpecificationService delegate;
+    private final LoadingCache<PropertyPathKey, CachedPropertyName> cache;
+
+    public CachingResourceSpecificationService(ResourceSpecificationService delegate) {
+        this(delegate, DEFAULT_CACHE_SPEC);
+    }
+
+    public CachingResourceSpecificationService(ResourceSpecificationService delegate, String cacheSpec) {
+        this.delegate = checkNotNull(delegate, "delegate is required");
+        checkNotNull(cacheSpec, "cacheSpec is required");
+        this.cache = CacheBuilder.from(CacheBuilderSpec.parse(cacheSpec))
+                .recordStats()
+                .build(new CacheLoader<PropertyPathKey, CachedPropertyName>() {
+                    @Override
+                    public CachedPropertyName load(PropertyPathKey key) {
+                        return resolve(key);
+                    }
+                });
+    }
+
+    @Override
+    public String findPropertyNameFor(String resourceType, String propertyPath) throws ResourceSpecException {
+        PropertyPathKey key = new PropertyPathKey(resourceType, propertyPath);
+        return cache.getUnchecked(key).get(key);
+    }
+
+    /**
+     * Shares the cache with {@link #findPropertyNameFor(String, String)}.
+     */
+    @Override
+    public Optional<String> lookupPropertyName(String resourceType, String propertyPath) {
+        return cache.getUnchecked(new PropertyPathKey(resourceType, propertyPath)).find();
+    }
+
+    /**
+     * Not cached; the delegate's lookup is already a precomputed index.
+     */
+    @Override
+    public UpdateType findUpdateType(String resourceType, String propertyName) throws ResourceSpecException {
+        return delegate.findUpdateType(resourceType, propertyName);
+    }
+
+    @Override
+    public CfnTypeSpecification findResourceTypeSpecification(String resourceType) throws ResourceSpecException {
+        return delegate.findResourceTypeSpecification(resourceType);
+    }
+
+    @Override
+    public CfnTypeSpecification findPropertyTypeSpecification(String propertyType) throws ResourceSpecException {
+        return delegate.findPropertyTypeSpecification(propertyType);
+    }
+
+    @Override
+    public List<String> listResourceTypes() {
+        return delegate.listResourceTypes();
+    }
+
+    @Override
+    public String getResourceSpecificationVersion() throws ResourceSpecException {
+        return delegate.getResourceSpecificationVersion();
+    }
+
+    public ResourceSpecificationCacheStats stats() {
+        CacheStats stats = cache.stats();
+        return new ResourceSpecificationCacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount(), cache.size());
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private CachedPropertyName resolve(PropertyPathKey key) {
+        return delegate.lookupPropertyName(key.resourceType, key.propertyPath)
+                .map(CachedPropertyName::new)
+                .orElse(CachedPropertyName.MISSING);
+    }
+
+    private static final class CachedPropertyName {
+        static final CachedPropertyName MISSING = new CachedPropertyName(null);
+
+        @Nullable
+        private final String propertyName;
+
+        CachedPropertyName(@Nullable String propertyName) {
+            this.propertyName = propertyName;
+        }
+
+        String get(PropertyPathKey key) {
+            if (propertyName == null) {
+                throw new ResourceSpecException("Unable to locate resource spec data for '" + key.resourceType + "' property path = " + key.propertyPath);
+            }
+            return propertyName;
+        }
+
+        Optional<String> find() {
+            return Optional.ofNullable(propertyName);
+        }
+    }
+
+    private static final class PropertyPathKey {
+        private final String resourceType;
+        private final String propertyPath;
+        private final int hashCode;
+
+        PropertyPathKey(String resourceType, String propertyPath) {
+            this.resourceType = checkNotNull(resourceType, "resourceType is required");
+            this.propertyPath = checkNotNull(propertyPath, "propertyPath is required");
+            this.hashCode = 31 * resourceType.hashCode() + propertyPath.hashCode();
+        }
+
+        @Override
+        public boolean equals(@Nullable Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PropertyPathKey)) {
+                return false;
+            }
+            PropertyPathKey that = (PropertyPathKey) o;
+            return hashCode == that.hashCode && Objects.equals(resourceType, that.resourceType) && Objects.equals(propertyPath, that.propertyPath);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -18,21 +18,50 @@ package com.digitalascent.cfn.core.cfnresourcespecification;
 
 import com.google.common.base.MoreObjects;
 
+import javax.annotation.Nullable;
+import java.util.Objects;
+
 @SuppressWarnings("unused")
 public final class CfnPropertySpecification {
     private String primitiveType;
     private boolean required;
     private String updateType;
     private String itemType;
+    private String type;
+    private String primitiveItemType;
 
     CfnPropertySpecification() {
         // EMPTY
     }
 
+    CfnPropertySpecification(@Nullable String primitiveType, boolean required, @Nullable String updateType, @Nullable String itemType,
+                             @Nullable String type, @Nullable String primitiveItemType) {
+        this.primitiveType = primitiveType;
+        this.required = required;
+        this.updateType = updateType;
+        this.itemType = itemType;
+        this.type = type;
+        this.primitiveItemType = primitiveItemType;
+    }
+
     public String getItemType() {
         return itemType;
     }
 
+    /**
+     * List, Map or the name of a property type; null for primitive properties.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Primitive type of List or Map items; null if the items are property types.
+     */
+    public String getPrimitiveItemType() {
+        return primitiveItemType;
+    }
+
     public String getPrimitiveType() {
         return primitiveType;
     }
@@ -45,6 +74,28 @@ public final class CfnPropertySpecification {
         return updateType;
     }
 
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CfnPropertySpecification)) {
+            return false;
+        }
+        CfnPropertySpecification that = (CfnPropertySpecification) o;
+        return required == that.required
+                && Objects.equals(primitiveType, that.primitiveType)
+                && Objects.equals(updateType, that.updateType)
+                && Objects.equals(itemType, that.itemType)
+                && Objects.equals(type, that.type)
+                && Objects.equals(primitiveItemType, that.primitiveItemType);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(primitiveType, required, updateType, itemType, type, primitiveItemType);
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
@@ -52,6 +103,8 @@ public final class CfnPropertySpecification {
                 .add("required", required)
                 .add("updateType", updateType)
                 .add("itemType", itemType)
+                .add("type", type)
+                .add("primitiveItemType", primitiveItemType)
                 .toString();
     }
 }
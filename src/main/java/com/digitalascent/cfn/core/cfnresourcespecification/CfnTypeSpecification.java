@@ -17,23 +17,49 @@
 package com.digitalascent.cfn.core.cfnresourcespecification;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
 
-import java.util.HashMap;
+import javax.annotation.Nullable;
 import java.util.Map;
 
 @SuppressWarnings("unused")
 public final class CfnTypeSpecification {
 
-    private final Map<String, CfnPropertySpecification> properties = new HashMap<>();
+    private Map<String, CfnPropertySpecification> properties = ImmutableMap.of();
 
     CfnTypeSpecification() {
         // EMPTY
     }
 
+    CfnTypeSpecification(Map<String, CfnPropertySpecification> properties) {
+        setProperties(properties);
+    }
+
+    /**
+     * Immutable; type specifications may be shared between specifications and services.
+     */
     public Map<String, CfnPropertySpecification> getProperties() {
         return properties;
     }
 
+    // also used by Jackson, which would otherwise set the field to its own mutable map
+    private void setProperties(Map<String, CfnPropertySpecification> properties) {
+        this.properties = ImmutableMap.copyOf(properties);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof CfnTypeSpecification && properties.equals(((CfnTypeSpecification) o).properties);
+    }
+
+    @Override
+    public int hashCode() {
+        return properties.hashCode();
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
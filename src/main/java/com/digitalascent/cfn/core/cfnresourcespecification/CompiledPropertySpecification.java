@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+/**
+ * Property specification paired with its formal (correctly cased) name and, for list/map properties, a link to the
+ * specification of its item type; the link is resolved once, either when the specification is compiled or on first use.
+ */
+final class CompiledPropertySpecification {
+    private final String formalPropertyName;
+    private final CfnPropertySpecification propertySpecification;
+    private final String resourceType;
+    private final UpdateType updateType;
+
+    @Nullable
+    private volatile CompiledTypeSpecification itemTypeSpecification;
+    private volatile boolean itemTypeLinked;
+
+    CompiledPropertySpecification(String formalPropertyName, CfnPropertySpecification propertySpecification, String resourceType) {
+        this.formalPropertyName = checkNotNull(formalPropertyName, "formalPropertyName is required");
+        this.propertySpecification = checkNotNull(propertySpecification, "propertySpecification is required");
+        this.resourceType = checkNotNull(resourceType, "resourceType is required");
+        this.updateType = UpdateType.fromSpecification(propertySpecification.getUpdateType());
+    }
+
+    String getFormalPropertyName() {
+        return formalPropertyName;
+    }
+
+    CfnPropertySpecification getPropertySpecification() {
+        return propertySpecification;
+    }
+
+    UpdateType getUpdateType() {
+        return updateType;
+    }
+
+    boolean hasItemType() {
+        return !isNullOrEmpty(propertySpecification.getItemType());
+    }
+
+    /**
+     * Resource type that scopes this property's item type, e.g. AWS::EC2::Instance for AWS::EC2::Instance.BlockDeviceMapping
+     */
+    String getResourceType() {
+        return resourceType;
+    }
+
+    boolean isItemTypeLinked() {
+        return itemTypeLinked;
+    }
+
+    @Nullable
+    CompiledTypeSpecification getItemTypeSpecification() {
+        return itemTypeSpecification;
+    }
+
+    void linkItemType(@Nullable CompiledTypeSpecification itemTypeSpecification) {
+        this.itemTypeSpecification = itemTypeSpecification;
+        this.itemTypeLinked = true;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("formalPropertyName", formalPropertyName)
+                .add("propertySpecification", propertySpecification)
+                .toString();
+    }
+}
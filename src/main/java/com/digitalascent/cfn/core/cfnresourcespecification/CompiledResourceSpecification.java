@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Pre-indexed view of a resource specification, for fast property name resolution.
+ * <p>
+ * Built either eagerly from a fully loaded {@link ResourceSpecification}, restored as compiled from a
+ * {@link ResourceSpecificationSnapshot}, or lazily from a {@link LazyResourceSpecification}, in which case types are
+ * compiled and linked on first use.
+ */
+final class CompiledResourceSpecification {
+    private final ConcurrentMap<String, CompiledTypeSpecification> resourceTypes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompiledTypeSpecification> propertyTypes = new ConcurrentHashMap<>();
+    private final Function<String, CfnTypeSpecification> resourceTypeSource;
+    private final Function<String, CfnTypeSpecification> propertyTypeSource;
+
+    CompiledResourceSpecification(ResourceSpecification resourceSpecification) {
+        checkNotNull(resourceSpecification, "resourceSpecification is required");
+        this.resourceTypeSource = resourceSpecification.getResourceTypes()::get;
+        this.propertyTypeSource = resourceSpecification.getPropertyTypes()::get;
+
+        compileAll(resourceSpecification.getResourceTypes(), resourceTypes);
+        compileAll(resourceSpecification.getPropertyTypes(), propertyTypes);
+
+        resourceTypes.values().forEach(this::linkItemTypes);
+        propertyTypes.values().forEach(this::linkItemTypes);
+    }
+
+    /**
+     * Restores a specification compiled ahead of time, e.g. read from a {@link ResourceSpecificationSnapshot}; item types
+     * must already be linked.
+     */
+    CompiledResourceSpecification(ResourceSpecification resourceSpecification, Map<String, CompiledTypeSpecification> resourceTypes,
+                                  Map<String, CompiledTypeSpecification> propertyTypes) {
+        checkNotNull(resourceSpecification, "resourceSpecification is required");
+        this.resourceTypeSource = resourceSpecification.getResourceTypes()::get;
+        this.propertyTypeSource = resourceSpecification.getPropertyTypes()::get;
+
+        this.resourceTypes.putAll(resourceTypes);
+        this.propertyTypes.putAll(propertyTypes);
+    }
+
+    CompiledResourceSpecification(LazyResourceSpecification resourceSpecification) {
+        checkNotNull(resourceSpecification, "resourceSpecification is required");
+        this.resourceTypeSource = resourceSpecification::findResourceType;
+        this.propertyTypeSource = resourceSpecification::findPropertyType;
+    }
+
+    @Nullable
+    CompiledTypeSpecification findResourceType(String resourceType) {
+        return compileIfAbsent(resourceType, resourceTypes, resourceTypeSource);
+    }
+
+    @Nullable
+    CompiledTypeSpecification findPropertyType(String propertyType) {
+        return compileIfAbsent(propertyType, propertyTypes, propertyTypeSource);
+    }
+
+    /**
+     * Returns the specification of the given property's item type, resolving and caching the link on first use.
+     */
+    @Nullable
+    CompiledTypeSpecification findItemType(CompiledPropertySpecification propertySpec) {
+        if (!propertySpec.isItemTypeLinked()) {
+            String itemType = propertySpec.getPropertySpecification().getItemType();
+            CompiledTypeSpecification itemTypeSpec = findPropertyType(propertySpec.getResourceType() + '.' + itemType);
+            if (itemTypeSpec == null) {
+                itemTypeSpec = findPropertyType(itemType);
+            }
+            propertySpec.linkItemType(itemTypeSpec);
+        }
+        return propertySpec.getItemTypeSpecification();
+    }
+
+    Collection<CompiledTypeSpecification> compiledResourceTypes() {
+        return resourceTypes.values();
+    }
+
+    Collection<CompiledTypeSpecification> compiledPropertyTypes() {
+        return propertyTypes.values();
+    }
+
+    int resourceTypeCount() {
+        return resourceTypes.size();
+    }
+
+    int propertyTypeCount() {
+        return propertyTypes.size();
+    }
+
+    private void linkItemTypes(CompiledTypeSpecification typeSpec) {
+        for (CompiledPropertySpecification propertySpec : typeSpec.properties()) {
+            if (propertySpec.hasItemType()) {
+                findItemType(propertySpec);
+            }
+        }
+    }
+
+    @Nullable
+    private static CompiledTypeSpecification compileIfAbsent(String typeName, ConcurrentMap<String, CompiledTypeSpecification> compiledTypes,
+                                                             Function<String, CfnTypeSpecification> source) {
+        CompiledTypeSpecification typeSpec = compiledTypes.get(typeName);
+        if (typeSpec != null) {
+            return typeSpec;
+        }
+        return compiledTypes.computeIfAbsent(typeName, name -> {
+            CfnTypeSpecification cfnTypeSpec = source.apply(name);
+            return cfnTypeSpec == null ? null : new CompiledTypeSpecification(name, cfnTypeSpec);
+        });
+    }
+
+    private static void compileAll(Map<String, CfnTypeSpecification> typeSpecifications, Map<String, CompiledTypeSpecification> compiledTypes) {
+        typeSpecifications.forEach((typeName, typeSpec) -> compiledTypes.put(typeName, new CompiledTypeSpecification(typeName, typeSpec)));
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Resource or property type specification with a case-insensitive, open-addressed property index.
+ * <p>
+ * Lookups take a region of a property path, so path segments can be resolved without allocating substrings.
+ */
+final class CompiledTypeSpecification {
+    static final int EMPTY_SLOT = -1;
+
+    private final String typeName;
+    private final CfnTypeSpecification typeSpecification;
+    private final CompiledPropertySpecification[] table;
+    private final int mask;
+    private final int size;
+
+    CompiledTypeSpecification(String typeName, CfnTypeSpecification typeSpecification) {
+        this.typeName = checkNotNull(typeName, "typeName is required");
+        this.typeSpecification = checkNotNull(typeSpecification, "typeSpecification is required");
+        Map<String, CfnPropertySpecification> properties = typeSpecification.getProperties();
+
+        int capacity = Integer.highestOneBit(Math.max(properties.size(), 1) * 2) << 1;
+        this.table = new CompiledPropertySpecification[capacity];
+        this.mask = capacity - 1;
+
+        String resourceType = scopeOf(typeName);
+        int count = 0;
+        for (Map.Entry<String, CfnPropertySpecification> entry : properties.entrySet()) {
+            String formalPropertyName = entry.getKey();
+            int slot = slotFor(formalPropertyName, 0, formalPropertyName.length());
+            // first property wins if the specification ever contains names differing only by case
+            if (table[slot] == null) {
+                table[slot] = new CompiledPropertySpecification(formalPropertyName, entry.getValue(), resourceType);
+                count++;
+            }
+        }
+        this.size = count;
+    }
+
+    /**
+     * Restores a compiled type from a snapshot; {@code slots} holds, for each slot of the property index, the position of
+     * its property in the type specification's property order, or -1 if the slot is empty.
+     */
+    CompiledTypeSpecification(String typeName, CfnTypeSpecification typeSpecification, int[] slots) {
+        this.typeName = checkNotNull(typeName, "typeName is required");
+        this.typeSpecification = checkNotNull(typeSpecification, "typeSpecification is required");
+        checkArgument(Integer.bitCount(slots.length) == 1, "slots must be a power of two : %s", slots.length);
+        List<Map.Entry<String, CfnPropertySpecification>> properties = ImmutableList.copyOf(typeSpecification.getProperties().entrySet());
+
+        this.table = new CompiledPropertySpecification[slots.length];
+        this.mask = slots.length - 1;
+
+        String resourceType = scopeOf(typeName);
+        int count = 0;
+        for (int slot = 0; slot < slots.length; slot++) {
+            if (slots[slot] != EMPTY_SLOT) {
+                Map.Entry<String, CfnPropertySpecification> entry = properties.get(slots[slot]);
+                table[slot] = new CompiledPropertySpecification(entry.getKey(), entry.getValue(), resourceType);
+                count++;
+            }
+        }
+        this.size = count;
+    }
+
+    String getTypeName() {
+        return typeName;
+    }
+
+    CfnTypeSpecification getTypeSpecification() {
+        return typeSpecification;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Length of the property index.
+     */
+    int capacity() {
+        return table.length;
+    }
+
+    /**
+     * Property in the given slot of the property index, if any.
+     */
+    @Nullable
+    CompiledPropertySpecification propertyAt(int slot) {
+        return table[slot];
+    }
+
+    Iterable<CompiledPropertySpecification> properties() {
+        return () -> Arrays.stream(table).filter(Objects::nonNull).iterator();
+    }
+
+    @Nullable
+    CompiledPropertySpecification findProperty(CharSequence propertyPath, int start, int end) {
+        return table[slotFor(propertyPath, start, end)];
+    }
+
+    private int slotFor(CharSequence name, int start, int end) {
+        int slot = hash(name, start, end) & mask;
+        while (true) {
+            CompiledPropertySpecification candidate = table[slot];
+            if (candidate == null || regionMatches(candidate.getFormalPropertyName(), name, start, end)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    // property types are scoped to their resource type, e.g. AWS::EC2::Instance.BlockDeviceMapping; shared ones (Tag) are not
+    private static String scopeOf(String typeName) {
+        int separator = typeName.indexOf('.');
+        return separator < 0 ? typeName : typeName.substring(0, separator);
+    }
+
+    private static boolean regionMatches(String formalPropertyName, CharSequence name, int start, int end) {
+        int length = end - start;
+        if (formalPropertyName.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (fold(formalPropertyName.charAt(i)) != fold(name.charAt(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence name, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + fold(name.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    // same folding as String.equalsIgnoreCase
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("typeName", typeName)
+                .add("size", size)
+                .toString();
+    }
+}
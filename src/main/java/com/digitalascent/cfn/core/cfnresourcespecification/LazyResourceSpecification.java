@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Resource specification that is indexed by a single streaming pass over the JSON document, recording the byte
+ * extent of each resource and property type; individual types are only databound when requested.
+ */
+final class LazyResourceSpecification {
+    private final byte[] json;
+    private final ObjectMapper mapper;
+    @Nullable
+    private final String resourceSpecificationVersion;
+    private final Map<String, Extent> resourceTypes;
+    private final Map<String, Extent> propertyTypes;
+
+    private LazyResourceSpecification(byte[] json, ObjectMapper mapper, @Nullable String resourceSpecificationVersion,
+                                      Map<String, Extent> resourceTypes, Map<String, Extent> propertyTypes) {
+        this.json = json;
+        this.mapper = mapper;
+        this.resourceSpecificationVersion = resourceSpecificationVersion;
+        this.resourceTypes = resourceTypes;
+        this.propertyTypes = propertyTypes;
+    }
+
+    static LazyResourceSpecification index(byte[] json, ObjectMapper mapper) throws IOException {
+        checkNotNull(json, "json is required");
+        checkNotNull(mapper, "mapper is required");
+
+        String resourceSpecificationVersion = null;
+        ImmutableMap.Builder<String, Extent> resourceTypes = ImmutableMap.builder();
+        ImmutableMap.Builder<String, Extent> propertyTypes = ImmutableMap.builder();
+
+        try (JsonParser parser = mapper.getFactory().createParser(json)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                switch (fieldName) {
+                    case "ResourceTypes":
+                        indexTypes(parser, token, resourceTypes);
+                        break;
+                    case "PropertyTypes":
+                        indexTypes(parser, token, propertyTypes);
+                        break;
+                    case "ResourceSpecificationVersion":
+                        resourceSpecificationVersion = parser.getValueAsString();
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
+                }
+            }
+        }
+
+        return new LazyResourceSpecification(json, mapper, resourceSpecificationVersion, resourceTypes.build(), propertyTypes.build());
+    }
+
+    @Nullable
+    String getResourceSpecificationVersion() {
+        return resourceSpecificationVersion;
+    }
+
+    Set<String> getResourceTypeNames() {
+        return ImmutableSet.copyOf(resourceTypes.keySet());
+    }
+
+    @Nullable
+    CfnTypeSpecification findResourceType(String resourceType) {
+        return materialize(resourceTypes.get(resourceType));
+    }
+
+    @Nullable
+    CfnTypeSpecification findPropertyType(String propertyType) {
+        return materialize(propertyTypes.get(propertyType));
+    }
+
+    @Nullable
+    private CfnTypeSpecification materialize(@Nullable Extent extent) {
+        if (extent == null) {
+            return null;
+        }
+        try {
+            return mapper.readValue(json, extent.offset, extent.length, CfnTypeSpecification.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void indexTypes(JsonParser parser, JsonToken token, ImmutableMap.Builder<String, Extent> types) throws IOException {
+        expect(token, JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String typeName = parser.getCurrentName();
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            long start = parser.getTokenLocation().getByteOffset();
+            parser.skipChildren();
+            long end = parser.getCurrentLocation().getByteOffset();
+            types.put(typeName, new Extent((int) start, (int) (end - start)));
+        }
+    }
+
+    private static void expect(@Nullable JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Malformed resource specification; expected " + expected + " but found " + actual);
+        }
+    }
+
+    private static final class Extent {
+        private final int offset;
+        private final int length;
+
+        Extent(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
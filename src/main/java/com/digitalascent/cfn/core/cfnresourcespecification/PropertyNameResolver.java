@@ -17,101 +17,127 @@
 package com.digitalascent.cfn.core.cfnresourcespecification;
 
 import com.digitalascent.core.base.SimpleApplicationObject;
-import com.google.common.base.Splitter;
-import com.google.common.collect.ImmutableSet;
 
-import java.util.List;
-import java.util.Set;
-import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.base.Strings.isNullOrEmpty;
 
 final class PropertyNameResolver extends SimpleApplicationObject {
-    private static final Pattern INDEX_PATTERN = Pattern.compile("\\[[0-9]+]$");
+    private static final String PROPERTIES_SEGMENT = "properties";
 
-    private final ResourceSpecification resourceSpecification;
+    private final CompiledResourceSpecification compiledSpecification;
 
-    PropertyNameResolver(ResourceSpecification resourceSpecification) {
-        this.resourceSpecification = checkNotNull(resourceSpecification, "resourceSpecification is required");
+    PropertyNameResolver(CompiledResourceSpecification compiledSpecification) {
+        this.compiledSpecification = checkNotNull(compiledSpecification, "compiledSpecification is required");
     }
 
     String resolvePropertyName(String resourceType, String propertyPath) throws ResourceSpecException {
-        String type = resourceType;
-        CfnTypeSpecification typeSpec = findResourceType(resourceType);
-        List<String> propertyNames = Splitter.on('.').splitToList(propertyPath);
-        PropertySpecHolder propertySpecHolder = null;
-        for (String propertyName : propertyNames) {
+        return checkNotNull(findPropertySpec(resourceType, propertyPath, true), "propertySpec is required").getFormalPropertyName();
+    }
 
-            // normalize out indexed properties, e.g. blockDeviceMappings[0] -> blockDeviceMappings
-            propertyName = INDEX_PATTERN.matcher(propertyName).replaceAll("");
+    /**
+     * Non-throwing variant of {@link #resolvePropertyName(String, String)}; unknown types and properties yield null
+     * rather than paying for an exception.
+     */
+    @Nullable
+    String lookupPropertyName(String resourceType, String propertyPath) {
+        CompiledPropertySpecification propertySpec = findPropertySpec(resourceType, propertyPath, false);
+        return propertySpec == null ? null : propertySpec.getFormalPropertyName();
+    }
+
+    @Nullable
+    private CompiledPropertySpecification findPropertySpec(String resourceType, String propertyPath, boolean required) {
+        CompiledTypeSpecification typeSpec = findResourceType(resourceType, required);
+        if (typeSpec == null) {
+            return null;
+        }
+        CompiledPropertySpecification propertySpec = null;
+
+        // walk the dot-separated path in place; no splitting or per-segment substrings
+        int length = propertyPath.length();
+        int start = 0;
+        while (true) {
+            int end = propertyPath.indexOf('.', start);
+            if (end < 0) {
+                end = length;
+            }
 
-            if ("properties".equalsIgnoreCase(propertyName)) {
-                continue;
+            // normalize out indexed properties, e.g. blockDeviceMappings[0] -> blockDeviceMappings
+            int segmentEnd = stripIndex(propertyPath, start, end);
+
+            if (!isPropertiesSegment(propertyPath, start, segmentEnd)) {
+                propertySpec = findPropertySpec(propertyPath, typeSpec, start, segmentEnd, required);
+                if (propertySpec == null) {
+                    return null;
+                }
+                if (propertySpec.hasItemType()) {
+                    typeSpec = findItemType(propertySpec, required);
+                    if (typeSpec == null) {
+                        return null;
+                    }
+                }
             }
-            propertySpecHolder = findPropertySpec(type, propertyPath, typeSpec, propertyName);
-            String itemType = propertySpecHolder.getPropertySpecification().getItemType();
-            if (isNullOrEmpty(itemType)) {
-                continue;
+
+            if (end == length) {
+                break;
             }
-            type = itemType;
-            typeSpec = findPropertyType(resourceType, itemType);
+            start = end + 1;
         }
 
-        if (propertySpecHolder == null) {
-            throw new ResourceSpecException(String.format("Unable to locate resource spec data for '%s' property path = %s", resourceType, propertyPath));
+        if (propertySpec == null && required) {
+            throw new ResourceSpecException("Unable to locate resource spec data for '" + resourceType + "' property path = " + propertyPath);
         }
+        return propertySpec;
+    }
 
-        return propertySpecHolder.getFormalPropertyName();
+    UpdateType resolveUpdateType(String resourceType, String propertyName) throws ResourceSpecException {
+        CompiledTypeSpecification typeSpec = checkNotNull(findResourceType(resourceType, true), "typeSpec is required");
+        return checkNotNull(findPropertySpec(propertyName, typeSpec, 0, propertyName.length(), true), "propertySpec is required").getUpdateType();
     }
 
-    private CfnTypeSpecification findPropertyType(String resourceType, String itemType) {
-        Set<String> searchPatterns = ImmutableSet.of(resourceType + '.' + itemType, itemType);
-        for (String searchPattern : searchPatterns) {
-            CfnTypeSpecification typeSpec = resourceSpecification.getPropertyTypes().get(searchPattern);
-            if (typeSpec != null) {
-                getLogger().debug("Resolved property type {}", itemType);
-                return typeSpec;
-            }
+    private static int stripIndex(String propertyPath, int start, int end) {
+        if (end - start < 3 || propertyPath.charAt(end - 1) != ']') {
+            return end;
+        }
+        int i = end - 2;
+        while (i > start && isDigit(propertyPath.charAt(i))) {
+            i--;
         }
-        throw new ResourceSpecException("Unable to locate property type: " + itemType);
+        return (i < end - 2 && propertyPath.charAt(i) == '[') ? i : end;
     }
 
-    private static class PropertySpecHolder {
-        private final String formalPropertyName;
-        private final CfnPropertySpecification propertySpecification;
-
-        PropertySpecHolder(String formalPropertyName, CfnPropertySpecification propertySpecification) {
-            this.formalPropertyName = checkNotNull(formalPropertyName, "formalPropertyName is required");
-            this.propertySpecification = checkNotNull(propertySpecification, "propertySpecification is required");
-        }
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
 
-        public String getFormalPropertyName() {
-            return formalPropertyName;
-        }
+    private static boolean isPropertiesSegment(String propertyPath, int start, int end) {
+        return end - start == PROPERTIES_SEGMENT.length() && propertyPath.regionMatches(true, start, PROPERTIES_SEGMENT, 0, PROPERTIES_SEGMENT.length());
+    }
 
-        public CfnPropertySpecification getPropertySpecification() {
-            return propertySpecification;
+    @Nullable
+    private CompiledTypeSpecification findItemType(CompiledPropertySpecification propertySpec, boolean required) {
+        CompiledTypeSpecification itemTypeSpec = compiledSpecification.findItemType(propertySpec);
+        if (itemTypeSpec == null && required) {
+            throw new ResourceSpecException("Unable to locate property type: " + propertySpec.getPropertySpecification().getItemType());
         }
+        return itemTypeSpec;
     }
 
-    private PropertySpecHolder findPropertySpec(String resourceType, String propertyPath, CfnTypeSpecification typeSpec, String propertyName) {
-        for (String formalPropertyName : typeSpec.getProperties().keySet()) {
-            if (formalPropertyName.equalsIgnoreCase(propertyName)) {
-                getLogger().debug("Resolved property name '{}' -> '{}'", propertyName, formalPropertyName);
-                return new PropertySpecHolder(formalPropertyName, typeSpec.getProperties().get(formalPropertyName));
-            }
+    @Nullable
+    private static CompiledPropertySpecification findPropertySpec(String propertyPath, CompiledTypeSpecification typeSpec, int start, int end, boolean required) {
+        CompiledPropertySpecification propertySpec = typeSpec.findProperty(propertyPath, start, end);
+        if (propertySpec == null && required) {
+            throw new ResourceSpecException("Unable to locate property '" + propertyPath.substring(start, end) + "' on type " + typeSpec.getTypeName() + " for path " + propertyPath);
         }
-
-        throw new ResourceSpecException(String.format("Unable to locate property '%s' on type %s for path %s", propertyName, resourceType, propertyPath));
+        return propertySpec;
     }
 
-    private CfnTypeSpecification findResourceType(String resourceType) {
-        CfnTypeSpecification typeSpec = resourceSpecification.getResourceTypes().get(resourceType);
-        if (typeSpec == null) {
+    @Nullable
+    private CompiledTypeSpecification findResourceType(String resourceType, boolean required) {
+        CompiledTypeSpecification typeSpec = compiledSpecification.findResourceType(resourceType);
+        if (typeSpec == null && required) {
             throw new ResourceSpecException("Unable to locate resource type: " + resourceType);
         }
-        getLogger().debug("Resolved resource type {}", resourceType);
         return typeSpec;
     }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A specification held by a {@link ResourceSpecificationRegistry}, compiled once and shared by its services.
+ */
+final class RegisteredSpecification {
+    private final String source;
+    private final ResourceSpecification resourceSpecification;
+    private final CompiledResourceSpecification compiledSpecification;
+    private final List<String> resourceTypes;
+    private final long sequence;
+    private final ResourceSpecificationServiceImpl service;
+
+    RegisteredSpecification(String source, ResourceSpecification resourceSpecification, long sequence) {
+        this.source = checkNotNull(source, "source is required");
+        this.resourceSpecification = checkNotNull(resourceSpecification, "resourceSpecification is required");
+        this.compiledSpecification = new CompiledResourceSpecification(resourceSpecification);
+        this.resourceTypes = ImmutableList.copyOf(resourceSpecification.getResourceTypes().keySet());
+        this.sequence = sequence;
+        this.service = new ResourceSpecificationServiceImpl(compiledSpecification, resourceTypes,
+                resourceSpecification.getResourceSpecificationVersion());
+    }
+
+    String getSource() {
+        return source;
+    }
+
+    ResourceSpecification getResourceSpecification() {
+        return resourceSpecification;
+    }
+
+    CompiledResourceSpecification getCompiledSpecification() {
+        return compiledSpecification;
+    }
+
+    List<String> getResourceTypes() {
+        return resourceTypes;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    ResourceSpecificationServiceImpl getService() {
+        return service;
+    }
+}
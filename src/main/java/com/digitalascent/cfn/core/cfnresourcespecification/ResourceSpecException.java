@@ -16,9 +16,16 @@
 
 package com.digitalascent.cfn.core.cfnresourcespecification;
 
+/**
+ * Raised for unknown resource types, property types and property paths.
+ * <p>
+ * Stackless: lookup misses are expected data conditions rather than programming errors, so the stack trace is not
+ * captured. Callers that probe for names should prefer
+ * {@link ResourceSpecificationService#lookupPropertyName(String, String)}, which does not throw at all.
+ */
 public final class ResourceSpecException extends RuntimeException {
     private static final long serialVersionUID = 123738344L;
     public ResourceSpecException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -39,6 +39,10 @@ public final class ResourceSpecification {
         return resourceSpecificationVersion;
     }
 
+    void setResourceSpecificationVersion(String resourceSpecificationVersion) {
+        this.resourceSpecificationVersion = resourceSpecificationVersion;
+    }
+
     public Map<String, CfnTypeSpecification> getResourceTypes() {
         return resourceTypes;
     }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification;
+
+import com.google.common.base.MoreObjects;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Estimated heap footprint of one specification held by a {@link ResourceSpecificationRegistry}.
+ * <p>
+ * Sizes are estimated from a 64-bit JVM object layout with compressed references and cover the specification model
+ * (types, properties, their maps and strings) and the lookup indexes compiled from it.
+ */
+public final class ResourceSpecificationFootprint {
+    private final String source;
+    private final String version;
+    private final long totalBytes;
+    private final long retainedBytes;
+
+    ResourceSpecificationFootprint(String source, String version, long totalBytes, long retainedBytes) {
+        this.source = checkNotNull(source, "source is required");
+        this.version = checkNotNull(version, "version is required");
+        this.totalBytes = totalBytes;
+        this.retainedBytes = retainedBytes;
+    }
+
+    /**
+     * Where the specification was loaded from.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Everything reachable from the specification, shared or not; roughly what it would take on its own.
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Held by this specification only; what unloading it would free.
+     */
+    public long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    /**
+     * Shared with other specifications in the registry.
+     */
+    public long getSharedBytes() {
+        return totalBytes - retainedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("source", source)
+                .add("version", version)
+                .add("totalBytes", totalBytes)
+                .add("retainedBytes", retainedBytes)
+                .toString();
+    }
+}
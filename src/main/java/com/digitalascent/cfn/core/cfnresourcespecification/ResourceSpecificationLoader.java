@@ -20,19 +20,48 @@ import com.digitalascent.core.base.SimpleApplicationObject;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.google.common.io.ByteSource;
 import com.google.common.io.CharSource;
 import com.google.common.io.Resources;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 
 final class ResourceSpecificationLoader extends SimpleApplicationObject {
+    static final String JSON_RESOURCE_NAME = "CloudFormationResourceSpecification.json";
 
+    /**
+     * Loads the bundled specification, preferring the precompiled binary snapshot when it is on the classpath.
+     */
     ResourceSpecification loadResourceSpecification() {
+        ResourceSpecificationSnapshot snapshot = loadBundledSnapshot();
+        return snapshot == null ? loadResourceSpecification(bundledJson()) : snapshot.getResourceSpecification();
+    }
+
+    /**
+     * Loads the bundled specification along with its lookup indexes, as compiled at build time when the binary snapshot
+     * is on the classpath.
+     */
+    ResourceSpecificationSnapshot loadCompiledResourceSpecification() {
+        ResourceSpecificationSnapshot snapshot = loadBundledSnapshot();
+        return snapshot == null ? ResourceSpecificationSnapshot.compile(loadResourceSpecification(bundledJson())) : snapshot;
+    }
 
+    /**
+     * Whether the bundled JSON specification is on the classpath; the published jar only ships the binary snapshot.
+     */
+    boolean hasBundledJson() {
+        return ResourceSpecificationLoader.class.getResource(JSON_RESOURCE_NAME) != null;
+    }
+
+    /**
+     * Loads a (custom) JSON specification.
+     */
+    ResourceSpecification loadResourceSpecification(URL url) {
         try {
-            URL url = Resources.getResource(getClass(), "CloudFormationResourceSpecification.json");
             CharSource cs = Resources.asCharSource(url, StandardCharsets.UTF_8);
 
             getLogger().info("Loading CFN resource specification from {}", cs);
@@ -44,11 +73,67 @@ final class ResourceSpecificationLoader extends SimpleApplicationObject {
         }
     }
 
+    /**
+     * Indexes the bundled JSON specification without databinding it; types are loaded on first use.
+     */
+    LazyResourceSpecification loadLazyResourceSpecification() {
+        return loadLazyResourceSpecification(bundledJson());
+    }
+
+    /**
+     * Indexes a (custom) JSON specification without databinding it; types are loaded on first use.
+     */
+    LazyResourceSpecification loadLazyResourceSpecification(URL url) {
+        try {
+            ByteSource bs = Resources.asByteSource(url);
+
+            getLogger().info("Indexing CFN resource specification from {}", bs);
+            LazyResourceSpecification spec = LazyResourceSpecification.index(bs.read(), newObjectMapper());
+            getLogger().info("CFN resource specification indexed, version = {}", spec.getResourceSpecificationVersion());
+            return spec;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Nullable
+    private ResourceSpecificationSnapshot loadBundledSnapshot() {
+        URL snapshotUrl = ResourceSpecificationLoader.class.getResource(ResourceSpecificationSnapshot.RESOURCE_NAME);
+        if (snapshotUrl != null) {
+            try {
+                return loadSnapshot(snapshotUrl);
+            } catch (IOException e) {
+                getLogger().warn("Unable to load CFN resource specification snapshot from {}; falling back to JSON", snapshotUrl, e);
+            }
+        }
+        return null;
+    }
+
+    private ResourceSpecificationSnapshot loadSnapshot(URL url) throws IOException {
+        ByteSource bs = Resources.asByteSource(url);
+
+        getLogger().info("Loading CFN resource specification snapshot from {}", bs);
+        ResourceSpecificationSnapshot snapshot;
+        try (InputStream is = bs.openBufferedStream()) {
+            snapshot = ResourceSpecificationSnapshot.read(is);
+        }
+        getLogger().info("CFN resource specification loaded, version = {}", snapshot.getResourceSpecification().getResourceSpecificationVersion());
+        return snapshot;
+    }
+
+    private static URL bundledJson() {
+        return Resources.getResource(ResourceSpecificationLoader.class, JSON_RESOURCE_NAME);
+    }
+
     private static ResourceSpecification loadJson(CharSource cs) throws IOException {
+        return newObjectMapper().readValue(cs.openBufferedStream(), ResourceSpecification.class);
+    }
+
+    private static ObjectMapper newObjectMapper() {
         ObjectMapper mapper = new ObjectMapper();
         mapper.setPropertyNamingStrategy(PropertyNamingStrategy.UPPER_CAMEL_CASE);
         mapper.configure(DeserializationFeature.FAIL_ON_READING_DUP_TREE_KEY, true);
         mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        return mapper.readValue(cs.openBufferedStream(), ResourceSpecification.class);
+        return mapper;
     }
 }
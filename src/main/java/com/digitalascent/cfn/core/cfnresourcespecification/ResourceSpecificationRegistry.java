@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification;
+
+import com.digitalascent.core.base.SimpleApplicationObject;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Loads each resource specification (the bundled one, or one per region / pinned version URL) once and shares it.
+ * <p>
+ * Every specification is built from flyweights shared across all specifications in the registry, so a second version
+ * only costs what differs from the first; {@link #getFootprints()} reports how much each one retains. The services
+ * returned share the compiled lookup indexes too. Specifications stay loaded until invalidated; a URL is loaded again
+ * on next use once invalidated, e.g. after the document behind it has changed.
+ * <p>
+ * {@link #getShared()} is the process-wide registry backing {@link ResourceSpecificationServiceImpl#ResourceSpecificationServiceImpl()};
+ * services for a custom URL only share when obtained from a registry. Thread-safe.
+ */
+public final class ResourceSpecificationRegistry extends SimpleApplicationObject {
+    private static final String BUNDLED = "bundled";
+
+    private final ConcurrentMap<String, CompletableFuture<RegisteredSpecification>> specifications = new ConcurrentHashMap<>();
+    private final SpecificationInterner interner = new SpecificationInterner();
+    private final AtomicLong loadSequence = new AtomicLong();
+
+    public ResourceSpecificationRegistry() {
+        // EMPTY
+    }
+
+    public static ResourceSpecificationRegistry getShared() {
+        return SharedRegistryHolder.REGISTRY;
+    }
+
+    /**
+     * Service for the bundled specification.
+     */
+    public ResourceSpecificationService getService() {
+        return bundled().getService();
+    }
+
+    /**
+     * Service for a custom JSON specification, e.g. for a specific region or version; loaded once per URL.
+     */
+    public ResourceSpecificationService getService(URL resourceSpecificationUrl) {
+        return register(resourceSpecificationUrl).getService();
+    }
+
+    /**
+     * Drops the specification loaded from the given URL, if any; services already handed out keep working.
+     */
+    public void invalidate(URL resourceSpecificationUrl) {
+        checkNotNull(resourceSpecificationUrl, "resourceSpecificationUrl is required");
+        specifications.remove(resourceSpecificationUrl.toExternalForm());
+    }
+
+    /**
+     * Drops every loaded specification, including the bundled one.
+     */
+    public void invalidateAll() {
+        specifications.clear();
+    }
+
+    /**
+     * Estimated heap footprint of each loaded specification, in load order.
+     */
+    public List<ResourceSpecificationFootprint> getFootprints() {
+        List<RegisteredSpecification> registered = new ArrayList<>(specifications.size());
+        for (CompletableFuture<RegisteredSpecification> specification : specifications.values()) {
+            if (specification.isDone() && !specification.isCompletedExceptionally()) {
+                registered.add(specification.join());
+            }
+        }
+        registered.sort((a, b) -> Long.compare(a.getSequence(), b.getSequence()));
+        List<Map<Object, Long>> reachable = new ArrayList<>(registered.size());
+        Map<Object, Integer> owners = new IdentityHashMap<>();
+        for (RegisteredSpecification specification : registered) {
+            Map<Object, Long> objects = SpecificationSizes.reachable(specification.getResourceSpecification(),
+                    specification.getCompiledSpecification());
+            objects.keySet().forEach(object -> owners.merge(object, 1, Integer::sum));
+            reachable.add(objects);
+        }
+
+        ImmutableList.Builder<ResourceSpecificationFootprint> footprints = ImmutableList.builder();
+        for (int i = 0; i < registered.size(); i++) {
+            long totalBytes = 0;
+            long retainedBytes = 0;
+            for (Map.Entry<Object, Long> object : reachable.get(i).entrySet()) {
+                totalBytes += object.getValue();
+                if (owners.get(object.getKey()) == 1) {
+                    retainedBytes += object.getValue();
+                }
+            }
+            RegisteredSpecification specification = registered.get(i);
+            footprints.add(new ResourceSpecificationFootprint(specification.getSource(),
+                    specification.getResourceSpecification().getResourceSpecificationVersion(), totalBytes, retainedBytes));
+        }
+        return footprints.build();
+    }
+
+    RegisteredSpecification bundled() {
+        return get(BUNDLED, () -> new ResourceSpecificationLoader().loadResourceSpecification());
+    }
+
+    RegisteredSpecification register(URL resourceSpecificationUrl) {
+        checkNotNull(resourceSpecificationUrl, "resourceSpecificationUrl is required");
+        return get(resourceSpecificationUrl.toExternalForm(),
+                () -> new ResourceSpecificationLoader().loadResourceSpecification(resourceSpecificationUrl));
+    }
+
+    // the first caller for a source loads it, outside the map; concurrent callers wait on its future
+    private RegisteredSpecification get(String source, Supplier<ResourceSpecification> loader) {
+        CompletableFuture<RegisteredSpecification> specification = specifications.get(source);
+        if (specification == null) {
+            CompletableFuture<RegisteredSpecification> loading = new CompletableFuture<>();
+            specification = specifications.putIfAbsent(source, loading);
+            if (specification == null) {
+                specification = loading;
+                try {
+                    loading.complete(load(source, loader.get()));
+                } catch (RuntimeException | Error e) {
+                    // not memoized, the next caller tries again
+                    specifications.remove(source, loading);
+                    loading.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+        try {
+            return specification.join();
+        } catch (CompletionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
+        }
+    }
+
+    private RegisteredSpecification load(String source, ResourceSpecification resourceSpecification) {
+        RegisteredSpecification registered = new RegisteredSpecification(source, interner.intern(resourceSpecification),
+                loadSequence.getAndIncrement());
+        getLogger().info("Registered CFN resource specification {}, version = {}", source,
+                registered.getResourceSpecification().getResourceSpecificationVersion());
+        return registered;
+    }
+
+    // lazily created, on first use of the shared registry
+    private static final class SharedRegistryHolder {
+        private static final ResourceSpecificationRegistry REGISTRY = new ResourceSpecificationRegistry();
+    }
+}
@@ -17,9 +17,60 @@
 package com.digitalascent.cfn.core.cfnresourcespecification;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface ResourceSpecificationService {
     String findPropertyNameFor(String resourceType, String propertyPath) throws ResourceSpecException;
 
+    /**
+     * Like {@link #findPropertyNameFor(String, String)}, but an unknown resource type or property path yields an empty
+     * result instead of a {@link ResourceSpecException}.
+     */
+    default Optional<String> lookupPropertyName(String resourceType, String propertyPath) {
+        try {
+            return Optional.of(findPropertyNameFor(resourceType, propertyPath));
+        } catch (ResourceSpecException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Update behavior of a top-level resource property, e.g. {@link UpdateType#IMMUTABLE} for an AWS::EC2::Instance
+     * ImageId; the property name matches case-insensitively, like property paths do.
+     * <p>
+     * The default implementation has no update data and always throws, which callers treat as an unknown update type.
+     */
+    default UpdateType findUpdateType(String resourceType, String propertyName) throws ResourceSpecException {
+        throw new ResourceSpecException("Update types not available from " + getClass().getName());
+    }
+
+    /**
+     * Specification of a resource type, e.g. AWS::EC2::Instance.
+     * <p>
+     * The default implementation has no type data and always throws; validators skip types they cannot find.
+     */
+    default CfnTypeSpecification findResourceTypeSpecification(String resourceType) throws ResourceSpecException {
+        throw new ResourceSpecException("Type specifications not available from " + getClass().getName());
+    }
+
+    /**
+     * Specification of a property type, either scoped to a resource type (AWS::EC2::Instance.BlockDeviceMapping) or
+     * shared (Tag).
+     * <p>
+     * The default implementation has no type data and always throws.
+     */
+    default CfnTypeSpecification findPropertyTypeSpecification(String propertyType) throws ResourceSpecException {
+        throw new ResourceSpecException("Type specifications not available from " + getClass().getName());
+    }
+
     List<String> listResourceTypes();
+
+    /**
+     * Version of the specification behind this service, e.g. 1.5.0; identifies it for caches of generated output.
+     * <p>
+     * The default implementation has no version and always throws.
+     */
+    default String getResourceSpecificationVersion() throws ResourceSpecException {
+        throw new ResourceSpecException("Specification version not available from " + getClass().getName());
+    }
 }
@@ -18,22 +18,125 @@ package com.digitalascent.cfn.core.cfnresourcespecification;
 
 import com.digitalascent.core.base.SimpleApplicationObject;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import javax.annotation.Nullable;
+import java.net.URL;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * http://docs.aws.amazon.com/AWSCloudFormation/latest/UserGuide/cfn-resource-specification.html
  */
 @SuppressWarnings("unused")
 public final class ResourceSpecificationServiceImpl extends SimpleApplicationObject implements ResourceSpecificationService {
+    private static final ThreadFactory LOADER_THREADS = new ThreadFactoryBuilder()
+            .setNameFormat("cfn-resource-specification-loader-%d")
+            .setDaemon(true)
+            .build();
+    // one short-lived thread per load; loading blocks on I/O, so it stays off the common fork-join pool
+    private static final Executor LOADER = command -> LOADER_THREADS.newThread(command).start();
+
+    private final CompiledResourceSpecification compiledSpecification;
     private final PropertyNameResolver propertyNameResolver;
     private final List<String> resourceTypes;
+    @Nullable
+    private final String resourceSpecificationVersion;
 
+    /**
+     * Creates a service backed by the bundled specification held by {@link ResourceSpecificationRegistry#getShared()};
+     * the specification is loaded once per process and its immutable type specifications and lookup indexes are shared.
+     */
     public ResourceSpecificationServiceImpl() {
+        this(ResourceSpecificationRegistry.getShared().bundled());
+    }
+
+    /**
+     * Creates a service backed by a custom JSON resource specification, e.g. for a specific region.
+     */
+    public ResourceSpecificationServiceImpl(URL resourceSpecificationUrl) {
+        this(new ResourceSpecificationLoader().loadResourceSpecification(resourceSpecificationUrl));
+    }
+
+    private ResourceSpecificationServiceImpl(ResourceSpecification resourceSpecification) {
+        this(new CompiledResourceSpecification(resourceSpecification), resourceSpecification.getResourceTypes().keySet(),
+                resourceSpecification.getResourceSpecificationVersion());
+    }
+
+    private ResourceSpecificationServiceImpl(RegisteredSpecification registered) {
+        this(registered.getCompiledSpecification(), registered.getResourceTypes(),
+                registered.getResourceSpecification().getResourceSpecificationVersion());
+    }
+
+    private ResourceSpecificationServiceImpl(ResourceSpecificationSnapshot snapshot) {
+        this(snapshot.getCompiledSpecification(), snapshot.getResourceSpecification().getResourceTypes().keySet(),
+                snapshot.getResourceSpecification().getResourceSpecificationVersion());
+    }
+
+    private ResourceSpecificationServiceImpl(LazyResourceSpecification resourceSpecification) {
+        this(new CompiledResourceSpecification(resourceSpecification), resourceSpecification.getResourceTypeNames(),
+                resourceSpecification.getResourceSpecificationVersion());
+    }
+
+    ResourceSpecificationServiceImpl(CompiledResourceSpecification compiledSpecification, Collection<String> resourceTypes,
+                                     @Nullable String resourceSpecificationVersion) {
+        this.compiledSpecification = compiledSpecification;
+        this.propertyNameResolver = new PropertyNameResolver(compiledSpecification);
+        this.resourceTypes = ImmutableList.copyOf(resourceTypes);
+        this.resourceSpecificationVersion = resourceSpecificationVersion;
+    }
+
+    /**
+     * Creates a service that indexes the bundled JSON specification in a single streaming pass and only loads
+     * the resource and property types that are actually used. Where only the precompiled snapshot is bundled, as in the
+     * published jar, the service is backed by the snapshot instead, which loads faster than indexing the JSON.
+     */
+    public static ResourceSpecificationServiceImpl createLazy() {
         ResourceSpecificationLoader loader = new ResourceSpecificationLoader();
-        ResourceSpecification resourceSpecification = loader.loadResourceSpecification();
-        this.propertyNameResolver = new PropertyNameResolver(resourceSpecification);
-        this.resourceTypes = ImmutableList.copyOf(resourceSpecification.getResourceTypes().keySet());
+        if (!loader.hasBundledJson()) {
+            return new ResourceSpecificationServiceImpl(loader.loadCompiledResourceSpecification());
+        }
+        return new ResourceSpecificationServiceImpl(loader.loadLazyResourceSpecification());
+    }
+
+    /**
+     * Lazily loading service backed by a custom JSON resource specification.
+     */
+    public static ResourceSpecificationServiceImpl createLazy(URL resourceSpecificationUrl) {
+        return new ResourceSpecificationServiceImpl(new ResourceSpecificationLoader().loadLazyResourceSpecification(resourceSpecificationUrl));
+    }
+
+    /**
+     * Returns immediately, loading the bundled specification on a dedicated daemon thread; the first lookup waits for
+     * the load to finish. Backed by the shared registry, like {@link #ResourceSpecificationServiceImpl()}.
+     */
+    public static AsyncResourceSpecificationService createAsync() {
+        return createAsync(LOADER);
+    }
+
+    /**
+     * Returns immediately, loading the bundled specification on the given executor.
+     */
+    public static AsyncResourceSpecificationService createAsync(Executor executor) {
+        checkNotNull(executor, "executor is required");
+        return new AsyncResourceSpecificationService(CompletableFuture.supplyAsync(
+                ResourceSpecificationServiceImpl::new, executor));
+    }
+
+    /**
+     * Returns immediately, loading a custom JSON resource specification on the given executor.
+     */
+    public static AsyncResourceSpecificationService createAsync(URL resourceSpecificationUrl, Executor executor) {
+        checkNotNull(resourceSpecificationUrl, "resourceSpecificationUrl is required");
+        checkNotNull(executor, "executor is required");
+        return new AsyncResourceSpecificationService(CompletableFuture.supplyAsync(
+                () -> new ResourceSpecificationServiceImpl(resourceSpecificationUrl), executor));
     }
 
     @Override
@@ -41,8 +144,44 @@ public final class ResourceSpecificationServiceImpl extends SimpleApplicationObj
         return propertyNameResolver.resolvePropertyName(resourceType,propertyPath);
     }
 
+    @Override
+    public Optional<String> lookupPropertyName(String resourceType, String propertyPath) {
+        return Optional.ofNullable(propertyNameResolver.lookupPropertyName(resourceType, propertyPath));
+    }
+
+    @Override
+    public UpdateType findUpdateType(String resourceType, String propertyName) throws ResourceSpecException {
+        return propertyNameResolver.resolveUpdateType(resourceType, propertyName);
+    }
+
+    @Override
+    public CfnTypeSpecification findResourceTypeSpecification(String resourceType) throws ResourceSpecException {
+        CompiledTypeSpecification typeSpec = compiledSpecification.findResourceType(resourceType);
+        if (typeSpec == null) {
+            throw new ResourceSpecException("Unable to locate resource type: " + resourceType);
+        }
+        return typeSpec.getTypeSpecification();
+    }
+
+    @Override
+    public CfnTypeSpecification findPropertyTypeSpecification(String propertyType) throws ResourceSpecException {
+        CompiledTypeSpecification typeSpec = compiledSpecification.findPropertyType(propertyType);
+        if (typeSpec == null) {
+            throw new ResourceSpecException("Unable to locate property type: " + propertyType);
+        }
+        return typeSpec.getTypeSpecification();
+    }
+
     @Override
     public List<String> listResourceTypes() {
         return resourceTypes;
     }
+
+    @Override
+    public String getResourceSpecificationVersion() throws ResourceSpecException {
+        if (resourceSpecificationVersion == null) {
+            throw new ResourceSpecException("Resource specification has no ResourceSpecificationVersion");
+        }
+        return resourceSpecificationVersion;
+    }
 }
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification;
+
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nullable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Compact binary form of a {@link ResourceSpecification} and its {@link CompiledResourceSpecification}, compiled at
+ * build time from the JSON specification, so loading it neither parses JSON nor rebuilds the lookup indexes.
+ * <p>
+ * Layout: magic, format version, a table of distinct strings, then resource and property types whose names and
+ * attributes are indexes into the string table (-1 for null). Then, for each resource and property type in the same
+ * order, its compiled property index: the table size and, for each slot, the position of its property in the type
+ * as a short (-1 if empty). Last, for each list or map property of those types in slot order, the position of its item type among
+ * the property types (-1 if it has none).
+ */
+final class ResourceSpecificationSnapshot {
+    static final String RESOURCE_NAME = "CloudFormationResourceSpecification.bin";
+
+    private static final int MAGIC = 0x43464e53; // CFNS
+    private static final int FORMAT_VERSION = 3;
+    private static final int NULL_STRING = -1;
+    private static final int NO_TYPE = -1;
+
+    private final ResourceSpecification resourceSpecification;
+    private final CompiledResourceSpecification compiledSpecification;
+
+    private ResourceSpecificationSnapshot(ResourceSpecification resourceSpecification, CompiledResourceSpecification compiledSpecification) {
+        this.resourceSpecification = checkNotNull(resourceSpecification, "resourceSpecification is required");
+        this.compiledSpecification = checkNotNull(compiledSpecification, "compiledSpecification is required");
+    }
+
+    /**
+     * Compiles a specification loaded some other way, e.g. parsed from JSON.
+     */
+    static ResourceSpecificationSnapshot compile(ResourceSpecification resourceSpecification) {
+        return new ResourceSpecificationSnapshot(resourceSpecification, new CompiledResourceSpecification(resourceSpecification));
+    }
+
+    ResourceSpecification getResourceSpecification() {
+        return resourceSpecification;
+    }
+
+    CompiledResourceSpecification getCompiledSpecification() {
+        return compiledSpecification;
+    }
+
+    static void write(ResourceSpecification resourceSpecification, OutputStream os) throws IOException {
+        StringTable strings = new StringTable();
+        strings.add(resourceSpecification.getResourceSpecificationVersion());
+        collectStrings(resourceSpecification.getResourceTypes(), strings);
+        collectStrings(resourceSpecification.getPropertyTypes(), strings);
+
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+
+        out.writeInt(strings.size());
+        for (String string : strings.strings()) {
+            out.writeUTF(string);
+        }
+
+        out.writeInt(strings.indexOf(resourceSpecification.getResourceSpecificationVersion()));
+        writeTypes(resourceSpecification.getResourceTypes(), strings, out);
+        writeTypes(resourceSpecification.getPropertyTypes(), strings, out);
+
+        CompiledResourceSpecification compiledSpecification = new CompiledResourceSpecification(resourceSpecification);
+        List<CompiledTypeSpecification> resourceTypes = compiledTypes(resourceSpecification.getResourceTypes(), compiledSpecification::findResourceType);
+        List<CompiledTypeSpecification> propertyTypes = compiledTypes(resourceSpecification.getPropertyTypes(), compiledSpecification::findPropertyType);
+        writeCompiledTypes(resourceTypes, out);
+        writeCompiledTypes(propertyTypes, out);
+
+        Map<String, Integer> propertyTypeIndexes = new HashMap<>();
+        propertyTypes.forEach(propertyType -> propertyTypeIndexes.put(propertyType.getTypeName(), propertyTypeIndexes.size()));
+        writeItemTypes(resourceTypes, compiledSpecification, propertyTypeIndexes, out);
+        writeItemTypes(propertyTypes, compiledSpecification, propertyTypeIndexes, out);
+        out.flush();
+    }
+
+    static ResourceSpecificationSnapshot read(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(is);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a resource specification snapshot");
+        }
+        int formatVersion = in.readInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported resource specification snapshot format: " + formatVersion);
+        }
+
+        String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readUTF();
+        }
+
+        ResourceSpecification resourceSpecification = new ResourceSpecification();
+        resourceSpecification.setResourceSpecificationVersion(string(strings, in.readInt()));
+        List<String> resourceTypeNames = readTypes(resourceSpecification.getResourceTypes(), strings, in);
+        List<String> propertyTypeNames = readTypes(resourceSpecification.getPropertyTypes(), strings, in);
+
+        Map<String, CompiledTypeSpecification> resourceTypes = readCompiledTypes(resourceTypeNames, resourceSpecification.getResourceTypes(), in);
+        Map<String, CompiledTypeSpecification> propertyTypes = readCompiledTypes(propertyTypeNames, resourceSpecification.getPropertyTypes(), in);
+
+        List<CompiledTypeSpecification> propertyTypesByIndex = new ArrayList<>(propertyTypes.values());
+        readItemTypes(resourceTypes.values(), propertyTypesByIndex, in);
+        readItemTypes(propertyTypesByIndex, propertyTypesByIndex, in);
+
+        return new ResourceSpecificationSnapshot(resourceSpecification,
+                new CompiledResourceSpecification(resourceSpecification, resourceTypes, propertyTypes));
+    }
+
+    private static void collectStrings(Map<String, CfnTypeSpecification> types, StringTable strings) {
+        types.forEach((typeName, typeSpec) -> {
+            strings.add(typeName);
+            typeSpec.getProperties().forEach((propertyName, propertySpec) -> {
+                strings.add(propertyName);
+                strings.add(propertySpec.getPrimitiveType());
+                strings.add(propertySpec.getUpdateType());
+                strings.add(propertySpec.getItemType());
+                strings.add(propertySpec.getType());
+                strings.add(propertySpec.getPrimitiveItemType());
+            });
+        });
+    }
+
+    private static void writeTypes(Map<String, CfnTypeSpecification> types, StringTable strings, DataOutputStream out) throws IOException {
+        out.writeInt(types.size());
+        for (Map.Entry<String, CfnTypeSpecification> type : types.entrySet()) {
+            out.writeInt(strings.indexOf(type.getKey()));
+            Map<String, CfnPropertySpecification> properties = type.getValue().getProperties();
+            out.writeInt(properties.size());
+            for (Map.Entry<String, CfnPropertySpecification> property : properties.entrySet()) {
+                CfnPropertySpecification propertySpec = property.getValue();
+                out.writeInt(strings.indexOf(property.getKey()));
+                out.writeInt(strings.indexOf(propertySpec.getPrimitiveType()));
+                out.writeBoolean(propertySpec.isRequired());
+                out.writeInt(strings.indexOf(propertySpec.getUpdateType()));
+                out.writeInt(strings.indexOf(propertySpec.getItemType()));
+                out.writeInt(strings.indexOf(propertySpec.getType()));
+                out.writeInt(strings.indexOf(propertySpec.getPrimitiveItemType()));
+            }
+        }
+    }
+
+    private static List<CompiledTypeSpecification> compiledTypes(Map<String, CfnTypeSpecification> types,
+                                                                 Function<String, CompiledTypeSpecification> compiledTypes) {
+        List<CompiledTypeSpecification> compiled = new ArrayList<>(types.size());
+        types.keySet().forEach(typeName -> compiled.add(compiledTypes.apply(typeName)));
+        return compiled;
+    }
+
+    private static void writeCompiledTypes(List<CompiledTypeSpecification> compiledTypes, DataOutputStream out) throws IOException {
+        for (CompiledTypeSpecification compiledType : compiledTypes) {
+            Map<String, Integer> positions = new HashMap<>();
+            compiledType.getTypeSpecification().getProperties().keySet().forEach(propertyName -> positions.put(propertyName, positions.size()));
+            checkArgument(positions.size() <= Short.MAX_VALUE, "Too many properties on %s: %s", compiledType.getTypeName(), positions.size());
+
+            out.writeInt(compiledType.capacity());
+            for (int slot = 0; slot < compiledType.capacity(); slot++) {
+                CompiledPropertySpecification propertySpec = compiledType.propertyAt(slot);
+                out.writeShort(propertySpec == null ? CompiledTypeSpecification.EMPTY_SLOT : positions.get(propertySpec.getFormalPropertyName()));
+            }
+        }
+    }
+
+    private static void writeItemTypes(List<CompiledTypeSpecification> compiledTypes, CompiledResourceSpecification compiledSpecification,
+                                       Map<String, Integer> propertyTypeIndexes, DataOutputStream out) throws IOException {
+        for (CompiledTypeSpecification compiledType : compiledTypes) {
+            for (CompiledPropertySpecification propertySpec : compiledType.properties()) {
+                if (propertySpec.hasItemType()) {
+                    CompiledTypeSpecification itemType = compiledSpecification.findItemType(propertySpec);
+                    out.writeInt(itemType == null ? NO_TYPE : propertyTypeIndexes.get(itemType.getTypeName()));
+                }
+            }
+        }
+    }
+
+    private static List<String> readTypes(Map<String, CfnTypeSpecification> types, String[] strings, DataInputStream in) throws IOException {
+        int typeCount = in.readInt();
+        List<String> typeNames = new ArrayList<>(typeCount);
+        for (int i = 0; i < typeCount; i++) {
+            String typeName = string(strings, in.readInt());
+            ImmutableMap.Builder<String, CfnPropertySpecification> properties = ImmutableMap.builder();
+            int propertyCount = in.readInt();
+            for (int j = 0; j < propertyCount; j++) {
+                String propertyName = string(strings, in.readInt());
+                String primitiveType = string(strings, in.readInt());
+                boolean required = in.readBoolean();
+                String updateType = string(strings, in.readInt());
+                String itemType = string(strings, in.readInt());
+                String type = string(strings, in.readInt());
+                String primitiveItemType = string(strings, in.readInt());
+                properties.put(propertyName, new CfnPropertySpecification(primitiveType, required, updateType, itemType, type, primitiveItemType));
+            }
+            types.put(typeName, new CfnTypeSpecification(properties.build()));
+            typeNames.add(typeName);
+        }
+        return typeNames;
+    }
+
+    // in the order written, which item type links refer to
+    private static Map<String, CompiledTypeSpecification> readCompiledTypes(List<String> typeNames, Map<String, CfnTypeSpecification> types,
+                                                                           DataInputStream in) throws IOException {
+        Map<String, CompiledTypeSpecification> compiledTypes = new LinkedHashMap<>();
+        for (String typeName : typeNames) {
+            int[] slots = new int[in.readInt()];
+            for (int slot = 0; slot < slots.length; slot++) {
+                slots[slot] = in.readShort();
+            }
+            compiledTypes.put(typeName, new CompiledTypeSpecification(typeName, types.get(typeName), slots));
+        }
+        return compiledTypes;
+    }
+
+    private static void readItemTypes(Collection<CompiledTypeSpecification> compiledTypes, List<CompiledTypeSpecification> propertyTypes,
+                                      DataInputStream in) throws IOException {
+        for (CompiledTypeSpecification compiledType : compiledTypes) {
+            for (CompiledPropertySpecification propertySpec : compiledType.properties()) {
+                if (propertySpec.hasItemType()) {
+                    int itemType = in.readInt();
+                    propertySpec.linkItemType(itemType == NO_TYPE ? null : propertyTypes.get(itemType));
+                }
+            }
+        }
+    }
+
+    @Nullable
+    private static String string(String[] strings, int index) {
+        return index == NULL_STRING ? null : strings[index];
+    }
+
+    private static final class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        void add(@Nullable String string) {
+            if (string != null && !indexes.containsKey(string)) {
+                indexes.put(string, strings.size());
+                strings.add(string);
+            }
+        }
+
+        int indexOf(@Nullable String string) {
+            return string == null ? NULL_STRING : indexes.get(string);
+        }
+
+        int size() {
+            return strings.size();
+        }
+
+        List<String> strings() {
+            return strings;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * Build-time entry point that compiles a JSON resource specification into a {@link ResourceSpecificationSnapshot}.
+ * <p>
+ * Usage: {@code ResourceSpecificationSnapshotCompiler <specification.json> <snapshot.bin>}
+ */
+final class ResourceSpecificationSnapshotCompiler {
+    private ResourceSpecificationSnapshotCompiler() {
+        // EMPTY
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: ResourceSpecificationSnapshotCompiler <specification.json> <snapshot.bin>");
+        }
+
+        File source = new File(args[0]);
+        File target = new File(args[1]);
+
+        ResourceSpecification resourceSpecification = new ResourceSpecificationLoader().loadResourceSpecification(source.toURI().toURL());
+
+        Files.createDirectories(target.getAbsoluteFile().getParentFile().toPath());
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(target.toPath()))) {
+            ResourceSpecificationSnapshot.write(resourceSpecification, os);
+        }
+    }
+}
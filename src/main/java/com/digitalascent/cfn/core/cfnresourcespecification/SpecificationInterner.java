@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * Flyweights for resource specifications: equal strings, property specifications and type specifications are shared
+ * by every specification interned here, so loading another version or region only adds what actually differs.
+ * Instances are held weakly, so they go away with the last specification using them. Thread-safe.
+ */
+final class SpecificationInterner {
+    private final Interner<String> strings = Interners.newWeakInterner();
+    private final Interner<CfnPropertySpecification> propertySpecifications = Interners.newWeakInterner();
+    private final Interner<CfnTypeSpecification> typeSpecifications = Interners.newWeakInterner();
+
+    /**
+     * Copy of the specification built from shared instances; the argument is left as-is.
+     */
+    ResourceSpecification intern(ResourceSpecification resourceSpecification) {
+        ResourceSpecification interned = new ResourceSpecification();
+        interned.setResourceSpecificationVersion(internString(resourceSpecification.getResourceSpecificationVersion()));
+        internTypes(resourceSpecification.getResourceTypes(), interned.getResourceTypes());
+        internTypes(resourceSpecification.getPropertyTypes(), interned.getPropertyTypes());
+        return interned;
+    }
+
+    private void internTypes(Map<String, CfnTypeSpecification> types, Map<String, CfnTypeSpecification> internedTypes) {
+        types.forEach((typeName, typeSpec) -> internedTypes.put(strings.intern(typeName), internType(typeSpec)));
+    }
+
+    private CfnTypeSpecification internType(CfnTypeSpecification typeSpec) {
+        ImmutableMap.Builder<String, CfnPropertySpecification> properties = ImmutableMap.builder();
+        typeSpec.getProperties().forEach((propertyName, propertySpec) ->
+                properties.put(strings.intern(propertyName), internProperty(propertySpec)));
+        return typeSpecifications.intern(new CfnTypeSpecification(properties.build()));
+    }
+
+    private CfnPropertySpecification internProperty(CfnPropertySpecification propertySpec) {
+        return propertySpecifications.intern(new CfnPropertySpecification(
+                internString(propertySpec.getPrimitiveType()),
+                propertySpec.isRequired(),
+                internString(propertySpec.getUpdateType()),
+                internString(propertySpec.getItemType()),
+                internString(propertySpec.getType()),
+                internString(propertySpec.getPrimitiveItemType())));
+    }
+
+    @Nullable
+    private String internString(@Nullable String value) {
+        return value == null ? null : strings.intern(value);
+    }
+}
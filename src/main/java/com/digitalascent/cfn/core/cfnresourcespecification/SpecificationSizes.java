@@ -0,0 +1,168 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Shallow size estimates for the objects of a resource specification and the lookup indexes compiled from it, assuming
+ * a 64-bit JVM with compressed references (12 byte object headers, 4 byte references, 8 byte alignment), Java 8 strings
+ * and Guava 23 immutable maps. Maps and arrays count as part of their owner.
+ */
+final class SpecificationSizes {
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int INT = 4;
+    private static final int LONG = 8;
+
+    // HashMap: table, entrySet, keySet, values, size, modCount, threshold, loadFactor
+    private static final long HASH_MAP = align(OBJECT_HEADER + 4 * REFERENCE + 4 * INT);
+    // HashMap.Node: hash, key, value, next
+    private static final long HASH_MAP_NODE = align(OBJECT_HEADER + INT + 3 * REFERENCE);
+    // ImmutableMap: entrySet, keySet, values, multimapView; RegularImmutableMap: entries, table, mask
+    private static final long IMMUTABLE_MAP = align(OBJECT_HEADER + 6 * REFERENCE + INT);
+    // SingletonImmutableBiMap: singleKey, singleValue, inverse
+    private static final long SINGLETON_IMMUTABLE_MAP = align(OBJECT_HEADER + 7 * REFERENCE);
+    // ImmutableMapEntry: key, value and, when hashes collide, nextInKeyBucket
+    private static final long IMMUTABLE_MAP_ENTRY = align(OBJECT_HEADER + 3 * REFERENCE);
+    // ConcurrentHashMap: table, nextTable, counterCells, keySet, values, entrySet, baseCount, sizeCtl, transferIndex, cellsBusy
+    private static final long CONCURRENT_HASH_MAP = align(OBJECT_HEADER + 6 * REFERENCE + LONG + 3 * INT);
+    private static final long STRING = align(OBJECT_HEADER + REFERENCE + INT);
+    private static final long RESOURCE_SPECIFICATION = align(OBJECT_HEADER + 3 * REFERENCE);
+    private static final long TYPE_SPECIFICATION = align(OBJECT_HEADER + REFERENCE);
+    private static final long PROPERTY_SPECIFICATION = align(OBJECT_HEADER + 5 * REFERENCE + 1);
+    // compiled types, two type sources (bound method references)
+    private static final long COMPILED_RESOURCE_SPECIFICATION = align(OBJECT_HEADER + 4 * REFERENCE)
+            + 2 * align(OBJECT_HEADER + REFERENCE);
+    private static final long COMPILED_TYPE_SPECIFICATION = align(OBJECT_HEADER + 3 * REFERENCE + 2 * INT);
+    private static final long COMPILED_PROPERTY_SPECIFICATION = align(OBJECT_HEADER + 5 * REFERENCE + 1);
+    private static final int MIN_HASH_MAP_CAPACITY = 16;
+
+    private SpecificationSizes() {
+        // EMPTY
+    }
+
+    /**
+     * Distinct objects reachable from the specification and its compiled form, by identity, with their shallow sizes.
+     */
+    static Map<Object, Long> reachable(ResourceSpecification resourceSpecification, CompiledResourceSpecification compiledSpecification) {
+        Map<Object, Long> objects = new IdentityHashMap<>();
+        objects.put(resourceSpecification, RESOURCE_SPECIFICATION
+                + hashMap(resourceSpecification.getResourceTypes().size())
+                + hashMap(resourceSpecification.getPropertyTypes().size()));
+        addString(resourceSpecification.getResourceSpecificationVersion(), objects);
+        addTypes(resourceSpecification.getResourceTypes(), objects);
+        addTypes(resourceSpecification.getPropertyTypes(), objects);
+
+        Collection<CompiledTypeSpecification> resourceTypes = compiledSpecification.compiledResourceTypes();
+        Collection<CompiledTypeSpecification> propertyTypes = compiledSpecification.compiledPropertyTypes();
+        objects.put(compiledSpecification, COMPILED_RESOURCE_SPECIFICATION
+                + concurrentHashMap(resourceTypes.size())
+                + concurrentHashMap(propertyTypes.size()));
+        addCompiledTypes(resourceTypes, objects);
+        addCompiledTypes(propertyTypes, objects);
+        return objects;
+    }
+
+    private static void addTypes(Map<String, CfnTypeSpecification> types, Map<Object, Long> objects) {
+        types.forEach((typeName, typeSpec) -> {
+            addString(typeName, objects);
+            if (objects.putIfAbsent(typeSpec, TYPE_SPECIFICATION + immutableMap(typeSpec.getProperties().size())) == null) {
+                typeSpec.getProperties().forEach((propertyName, propertySpec) -> {
+                    addString(propertyName, objects);
+                    addProperty(propertySpec, objects);
+                });
+            }
+        });
+    }
+
+    private static void addCompiledTypes(Collection<CompiledTypeSpecification> compiledTypes, Map<Object, Long> objects) {
+        for (CompiledTypeSpecification compiledType : compiledTypes) {
+            objects.put(compiledType, COMPILED_TYPE_SPECIFICATION + array(compiledType.capacity()));
+            addString(compiledType.getTypeName(), objects);
+            for (CompiledPropertySpecification compiledProperty : compiledType.properties()) {
+                objects.put(compiledProperty, COMPILED_PROPERTY_SPECIFICATION);
+                addString(compiledProperty.getResourceType(), objects);
+            }
+        }
+    }
+
+    private static void addProperty(CfnPropertySpecification propertySpec, Map<Object, Long> objects) {
+        if (objects.putIfAbsent(propertySpec, PROPERTY_SPECIFICATION) == null) {
+            addString(propertySpec.getPrimitiveType(), objects);
+            addString(propertySpec.getUpdateType(), objects);
+            addString(propertySpec.getItemType(), objects);
+            addString(propertySpec.getType(), objects);
+            addString(propertySpec.getPrimitiveItemType(), objects);
+        }
+    }
+
+    private static void addString(@Nullable String value, Map<Object, Long> objects) {
+        if (value != null) {
+            objects.putIfAbsent(value, STRING + align(ARRAY_HEADER + 2L * value.length()));
+        }
+    }
+
+    private static long hashMap(int size) {
+        return HASH_MAP + hashTable(size);
+    }
+
+    // nodes have the same layout as HashMap's
+    private static long concurrentHashMap(int size) {
+        return CONCURRENT_HASH_MAP + hashTable(size);
+    }
+
+    private static long hashTable(int size) {
+        if (size == 0) {
+            // table is allocated on first put
+            return 0;
+        }
+        int capacity = MIN_HASH_MAP_CAPACITY;
+        while (size > capacity * 3L / 4) {
+            capacity <<= 1;
+        }
+        return array(capacity) + HASH_MAP_NODE * size;
+    }
+
+    private static long immutableMap(int size) {
+        if (size == 0) {
+            // shared empty instance
+            return 0;
+        }
+        if (size == 1) {
+            return SINGLETON_IMMUTABLE_MAP;
+        }
+        // same sizing as Hashing.closedTableSize(size, 1.2)
+        int tableSize = Integer.highestOneBit(size);
+        if (size > (int) (1.2 * tableSize)) {
+            tableSize <<= 1;
+        }
+        return IMMUTABLE_MAP + array(size) + array(tableSize) + IMMUTABLE_MAP_ENTRY * size;
+    }
+
+    private static long array(int length) {
+        return align(ARRAY_HEADER + (long) REFERENCE * length);
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification;
+
+import javax.annotation.Nullable;
+
+/**
+ * What CloudFormation does to a resource when a property changes; declared in increasing order of disruption.
+ */
+public enum UpdateType {
+    /**
+     * Updated in place.
+     */
+    MUTABLE,
+
+    /**
+     * Replaced or updated in place, depending on the change or on other properties.
+     */
+    CONDITIONAL,
+
+    /**
+     * Replaced.
+     */
+    IMMUTABLE;
+
+    /**
+     * @param updateType the specification's {@code UpdateType}; missing or unknown values are treated as conditional
+     */
+    static UpdateType fromSpecification(@Nullable String updateType) {
+        if ("Mutable".equals(updateType)) {
+            return MUTABLE;
+        }
+        return "Immutable".equals(updateType) ? IMMUTABLE : CONDITIONAL;
+    }
+}
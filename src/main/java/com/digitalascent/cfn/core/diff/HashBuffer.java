@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.diff;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer that a node is encoded into before being hashed in one call; Guava's streaming hashers are
+ * slow per byte or char. Not thread-safe.
+ * <p>
+ * Hashes are 64-bit fingerprints: a diff only ever compares a node with its counterpart, so the chance of a collision
+ * hiding a change is about one in 2^64 per node, and FarmHash hashes a byte array without a streaming hasher.
+ */
+final class HashBuffer {
+    private static final HashFunction HASH_FUNCTION = Hashing.farmHashFingerprint64();
+    private static final int HASH_BYTES = HASH_FUNCTION.bits() / Byte.SIZE;
+
+    private byte[] buffer = new byte[256];
+    private int position;
+
+    void reset() {
+        position = 0;
+    }
+
+    void putByte(byte b) {
+        ensureCapacity(1);
+        buffer[position++] = b;
+    }
+
+    void putInt(int i) {
+        ensureCapacity(4);
+        buffer[position++] = (byte) i;
+        buffer[position++] = (byte) (i >>> 8);
+        buffer[position++] = (byte) (i >>> 16);
+        buffer[position++] = (byte) (i >>> 24);
+    }
+
+    // length-prefixed, so adjacent strings can't run together; ASCII chars take one byte, anything else an escape
+    // byte plus both char bytes
+    void putString(String s) {
+        int length = s.length();
+        putInt(length);
+        ensureCapacity(length * 3);
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else {
+                buffer[position++] = (byte) 0x80;
+                buffer[position++] = (byte) c;
+                buffer[position++] = (byte) (c >>> 8);
+            }
+        }
+    }
+
+    void putHash(HashCode hash) {
+        ensureCapacity(HASH_BYTES);
+        position += hash.writeBytesTo(buffer, position, HASH_BYTES);
+    }
+
+    HashCode hash() {
+        return HASH_FUNCTION.hashBytes(buffer, 0, position);
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (position + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import javax.annotation.Nullable;
+import java.util.Iterator;
+
+/**
+ * Jackson tree of previously generated JSON; leaves are compared and hashed by node type and text.
+ */
+final class JsonTree implements TreeModel<JsonNode> {
+    static final JsonTree INSTANCE = new JsonTree();
+
+    private static final byte NULL = 0;
+
+    private JsonTree() {
+        // EMPTY
+    }
+
+    @Override
+    public Kind kindOf(@Nullable JsonNode node) {
+        if (node == null) {
+            return Kind.LEAF;
+        }
+        if (node.isObject()) {
+            return Kind.OBJECT;
+        }
+        return node.isArray() ? Kind.ARRAY : Kind.LEAF;
+    }
+
+    @Override
+    public Iterator<String> fieldNames(JsonNode node) {
+        return node.fieldNames();
+    }
+
+    @Override
+    public boolean hasField(JsonNode node, String name) {
+        return node.has(name);
+    }
+
+    @Override
+    @Nullable
+    public JsonNode field(JsonNode node, String name) {
+        return node.get(name);
+    }
+
+    @Override
+    public Iterator<JsonNode> elements(JsonNode node) {
+        return node.elements();
+    }
+
+    @Override
+    public boolean leafEquals(@Nullable JsonNode a, @Nullable JsonNode b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        // consistent with encodeLeaf; an int and a long holding 1 are the same JSON
+        return a.getNodeType() == b.getNodeType() && a.asText().equals(b.asText());
+    }
+
+    @Override
+    public void encodeLeaf(@Nullable JsonNode node, HashBuffer buffer) {
+        if (node == null) {
+            buffer.putByte(NULL);
+            return;
+        }
+        // node types start at 0 as well, so shift them past NULL
+        buffer.putByte((byte) (node.getNodeType().ordinal() + 1));
+        buffer.putString(node.asText());
+    }
+}
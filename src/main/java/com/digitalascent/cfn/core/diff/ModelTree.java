@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.diff;
+
+import com.digitalascent.cfn.core.domain.CfnObject;
+import com.digitalascent.cfn.core.domain.IntrinsicFunction;
+import com.google.common.collect.Iterators;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * CfnObjects and maps are objects (map keys as strings), an IntrinsicFunction is a single-field object named after the
+ * function (as in the generated JSON), collections are arrays and everything else is a leaf.
+ */
+final class ModelTree implements TreeModel<Object> {
+    static final ModelTree INSTANCE = new ModelTree();
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte OTHER = 2;
+
+    private ModelTree() {
+        // EMPTY
+    }
+
+    @Override
+    public Kind kindOf(@Nullable Object node) {
+        if (node instanceof CfnObject || node instanceof IntrinsicFunction || node instanceof Map) {
+            return Kind.OBJECT;
+        }
+        return node instanceof Collection ? Kind.ARRAY : Kind.LEAF;
+    }
+
+    @Override
+    public Iterator<String> fieldNames(Object node) {
+        if (node instanceof IntrinsicFunction) {
+            return Iterators.singletonIterator(((IntrinsicFunction) node).getFunctionName());
+        }
+        return Iterators.transform(asMap(node).keySet().iterator(), String::valueOf);
+    }
+
+    @Override
+    public boolean hasField(Object node, String name) {
+        if (node instanceof IntrinsicFunction) {
+            return ((IntrinsicFunction) node).getFunctionName().equals(name);
+        }
+        return asMap(node).containsKey(name);
+    }
+
+    @Override
+    @Nullable
+    public Object field(Object node, String name) {
+        if (node instanceof IntrinsicFunction) {
+            IntrinsicFunction function = (IntrinsicFunction) node;
+            return function.getFunctionName().equals(name) ? function.getArguments() : null;
+        }
+        return asMap(node).get(name);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Iterator<Object> elements(Object node) {
+        return ((Collection<Object>) node).iterator();
+    }
+
+    @Override
+    public boolean leafEquals(@Nullable Object a, @Nullable Object b) {
+        return Objects.equals(a, b);
+    }
+
+    @Override
+    public void encodeLeaf(@Nullable Object node, HashBuffer buffer) {
+        if (node == null) {
+            buffer.putByte(NULL);
+        } else if (node instanceof String) {
+            buffer.putByte(STRING);
+            buffer.putString((String) node);
+        } else {
+            buffer.putByte(OTHER);
+            buffer.putString(node.getClass().getName());
+            buffer.putString(node.toString());
+        }
+    }
+
+    private static Map<?, ?> asMap(Object node) {
+        return node instanceof CfnObject ? ((CfnObject) node).getPropertiesView() : (Map<?, ?>) node;
+    }
+}
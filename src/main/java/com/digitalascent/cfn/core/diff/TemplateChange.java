@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.diff;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A single added, removed or modified value, e.g. {@code Resources.bucket.properties.bucketName}.
+ */
+public final class TemplateChange {
+    private final String path;
+    @Nullable
+    private final String resourceName;
+    private final ChangeType changeType;
+    @Nullable
+    private final Object oldValue;
+    @Nullable
+    private final Object newValue;
+
+    TemplateChange(String path, @Nullable String resourceName, ChangeType changeType, @Nullable Object oldValue, @Nullable Object newValue) {
+        this.path = checkNotNull(path, "path is required");
+        this.resourceName = resourceName;
+        this.changeType = checkNotNull(changeType, "changeType is required");
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+    }
+
+    /**
+     * Dotted path from the template root; list elements are {@code [index]}. Empty when the roots themselves differ.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Name of the resource under {@code Resources} that the change is in, or null for changes outside of resources.
+     */
+    @Nullable
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    /**
+     * Model object or JsonNode, depending on what was compared; null for additions.
+     */
+    @Nullable
+    public Object getOldValue() {
+        return oldValue;
+    }
+
+    /**
+     * Model object or JsonNode, depending on what was compared; null for removals.
+     */
+    @Nullable
+    public Object getNewValue() {
+        return newValue;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("path", path)
+                .add("changeType", changeType)
+                .add("oldValue", oldValue)
+                .add("newValue", newValue)
+                .toString();
+    }
+}
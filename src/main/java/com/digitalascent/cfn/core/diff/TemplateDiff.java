@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Path-level differences between two templates, either model trees (template maps of CfnResources, CfnObjects,
+ * IntrinsicFunctions, collections and maps) or previously generated JSON.
+ * <p>
+ * Subtrees are compared by Merkle hash, so unchanged resources and properties cost O(1) each once both trees are
+ * hashed. Changes are reported at the highest differing path: a resource added or removed as a whole is a single
+ * change at {@code Resources.<name>}. List elements are compared by position.
+ */
+public final class TemplateDiff {
+    private final ImmutableList<TemplateChange> changes;
+
+    private TemplateDiff(ImmutableList<TemplateChange> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Compares model trees, e.g. template maps, resources or property values; model paths use model names such as
+     * {@code Resources.bucket.properties.bucketName}.
+     */
+    public static TemplateDiff of(Object oldTemplate, Object newTemplate) {
+        checkNotNull(oldTemplate, "oldTemplate is required");
+        checkNotNull(newTemplate, "newTemplate is required");
+        return new TemplateDiff(new TreeDiffer<>(ModelTree.INSTANCE).diff(oldTemplate, newTemplate));
+    }
+
+    /**
+     * Compares generated JSON; paths use CloudFormation names such as {@code Resources.bucket.Properties.BucketName}.
+     */
+    public static TemplateDiff ofJson(JsonNode oldTemplate, JsonNode newTemplate) {
+        checkNotNull(oldTemplate, "oldTemplate is required");
+        checkNotNull(newTemplate, "newTemplate is required");
+        return new TemplateDiff(new TreeDiffer<>(JsonTree.INSTANCE).diff(oldTemplate, newTemplate));
+    }
+
+    /**
+     * Changes in document order, old template fields first.
+     */
+    public List<TemplateChange> getChanges() {
+        return changes;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * Resources that were added, removed or modified.
+     */
+    public Set<String> getChangedResourceNames() {
+        ImmutableSet.Builder<String> names = ImmutableSet.builder();
+        for (TemplateChange change : changes) {
+            if (change.getResourceName() != null) {
+                names.add(change.getResourceName());
+            }
+        }
+        return names.build();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("changes", changes)
+                .toString();
+    }
+}
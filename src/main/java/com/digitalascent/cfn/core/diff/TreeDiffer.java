@@ -0,0 +1,187 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.diff;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diffs two trees top-down, skipping subtrees whose Merkle hashes match.
+ * <p>
+ * A container's hash covers its field names / element order and its children's hashes, and is computed at most once
+ * per node; hashing both trees is O(nodes), after which each identical subtree is skipped in O(1). Identical nodes
+ * (the same instance on both sides) are skipped without hashing. Single use, not thread-safe.
+ *
+ * @param <T> node type
+ */
+final class TreeDiffer<T> {
+    private static final String RESOURCES = "Resources";
+
+    private static final byte OBJECT = 16;
+    private static final byte ARRAY = 17;
+    private static final byte LEAF = 18;
+
+    private final TreeModel<T> model;
+    private final Map<T, HashCode> hashes = new IdentityHashMap<>();
+    private final List<HashBuffer> buffers = new ArrayList<>();
+    private final StringBuilder path = new StringBuilder();
+    private final ImmutableList.Builder<TemplateChange> changes = ImmutableList.builder();
+
+    TreeDiffer(TreeModel<T> model) {
+        this.model = model;
+    }
+
+    ImmutableList<TemplateChange> diff(@Nullable T oldRoot, @Nullable T newRoot) {
+        diff(oldRoot, newRoot, 0, null);
+        return changes.build();
+    }
+
+    private void diff(@Nullable T oldNode, @Nullable T newNode, int depth, @Nullable String resourceName) {
+        if (oldNode == newNode) {
+            return;
+        }
+
+        TreeModel.Kind kind = model.kindOf(oldNode);
+        if (kind != model.kindOf(newNode)) {
+            addChange(ChangeType.MODIFIED, resourceName, oldNode, newNode);
+            return;
+        }
+
+        switch (kind) {
+            case OBJECT:
+                if (!hash(oldNode, 0).equals(hash(newNode, 0))) {
+                    diffObjects(oldNode, newNode, depth, resourceName);
+                }
+                break;
+            case ARRAY:
+                if (!hash(oldNode, 0).equals(hash(newNode, 0))) {
+                    diffArrays(oldNode, newNode, depth, resourceName);
+                }
+                break;
+            default:
+                if (!model.leafEquals(oldNode, newNode)) {
+                    addChange(ChangeType.MODIFIED, resourceName, oldNode, newNode);
+                }
+        }
+    }
+
+    private void diffObjects(T oldNode, T newNode, int depth, @Nullable String resourceName) {
+        // direct children of the root's Resources are resources
+        boolean resources = depth == 1 && RESOURCES.contentEquals(path);
+        int length = path.length();
+
+        for (Iterator<String> names = model.fieldNames(oldNode); names.hasNext(); ) {
+            String name = names.next();
+            appendField(name, length);
+            String childResourceName = resources ? name : resourceName;
+            if (model.hasField(newNode, name)) {
+                diff(model.field(oldNode, name), model.field(newNode, name), depth + 1, childResourceName);
+            } else {
+                addChange(ChangeType.REMOVED, childResourceName, model.field(oldNode, name), null);
+            }
+        }
+
+        for (Iterator<String> names = model.fieldNames(newNode); names.hasNext(); ) {
+            String name = names.next();
+            if (!model.hasField(oldNode, name)) {
+                appendField(name, length);
+                addChange(ChangeType.ADDED, resources ? name : resourceName, null, model.field(newNode, name));
+            }
+        }
+        path.setLength(length);
+    }
+
+    private void diffArrays(T oldNode, T newNode, int depth, @Nullable String resourceName) {
+        int length = path.length();
+        Iterator<T> oldElements = model.elements(oldNode);
+        Iterator<T> newElements = model.elements(newNode);
+
+        int index = 0;
+        while (oldElements.hasNext() || newElements.hasNext()) {
+            path.setLength(length);
+            path.append('[').append(index++).append(']');
+            if (!newElements.hasNext()) {
+                addChange(ChangeType.REMOVED, resourceName, oldElements.next(), null);
+            } else if (!oldElements.hasNext()) {
+                addChange(ChangeType.ADDED, resourceName, null, newElements.next());
+            } else {
+                diff(oldElements.next(), newElements.next(), depth + 1, resourceName);
+            }
+        }
+        path.setLength(length);
+    }
+
+    private void appendField(String name, int length) {
+        path.setLength(length);
+        if (length > 0) {
+            path.append('.');
+        }
+        path.append(name);
+    }
+
+    private void addChange(ChangeType changeType, @Nullable String resourceName, @Nullable T oldValue, @Nullable T newValue) {
+        changes.add(new TemplateChange(path.toString(), resourceName, changeType, oldValue, newValue));
+    }
+
+    // only containers are hashed (and memoized); leaves are encoded into their parent, which is encoded into its own
+    // buffer so children can be hashed on the way
+    private HashCode hash(T node, int depth) {
+        HashCode hash = hashes.get(node);
+        if (hash != null) {
+            return hash;
+        }
+
+        if (depth == buffers.size()) {
+            buffers.add(new HashBuffer());
+        }
+        HashBuffer buffer = buffers.get(depth);
+        buffer.reset();
+        if (model.kindOf(node) == TreeModel.Kind.OBJECT) {
+            buffer.putByte(OBJECT);
+            for (Iterator<String> names = model.fieldNames(node); names.hasNext(); ) {
+                String name = names.next();
+                buffer.putString(name);
+                encodeChild(model.field(node, name), buffer, depth);
+            }
+        } else {
+            buffer.putByte(ARRAY);
+            for (Iterator<T> elements = model.elements(node); elements.hasNext(); ) {
+                encodeChild(elements.next(), buffer, depth);
+            }
+        }
+
+        hash = buffer.hash();
+        hashes.put(node, hash);
+        return hash;
+    }
+
+    private void encodeChild(@Nullable T child, HashBuffer buffer, int depth) {
+        if (model.kindOf(child) == TreeModel.Kind.LEAF) {
+            buffer.putByte(LEAF);
+            model.encodeLeaf(child, buffer);
+        } else {
+            buffer.putHash(hash(child, depth + 1));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.diff;
+
+import javax.annotation.Nullable;
+import java.util.Iterator;
+
+/**
+ * Uniform view of a template tree, so the model and generated JSON are diffed by the same code.
+ *
+ * @param <T> node type
+ */
+interface TreeModel<T> {
+    enum Kind {
+        OBJECT,
+        ARRAY,
+        LEAF
+    }
+
+    Kind kindOf(@Nullable T node);
+
+    /**
+     * Field names of an {@link Kind#OBJECT} node, in order.
+     */
+    Iterator<String> fieldNames(T node);
+
+    boolean hasField(T node, String name);
+
+    @Nullable
+    T field(T node, String name);
+
+    /**
+     * Elements of an {@link Kind#ARRAY} node, in order.
+     */
+    Iterator<T> elements(T node);
+
+    boolean leafEquals(@Nullable T a, @Nullable T b);
+
+    void encodeLeaf(@Nullable T node, HashBuffer buffer);
+}
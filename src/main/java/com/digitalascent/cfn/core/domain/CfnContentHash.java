@@ -0,0 +1,180 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.domain;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import com.google.common.collect.ImmutableSet;
+
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Content hash of a model subtree that is stable across JVM runs; equal hashes mean equal generated JSON.
+ * <p>
+ * CfnObjects hash their resource type, property path and properties in order; collections and maps hash their elements
+ * in iteration order; booleans and JDK numbers hash their class name and string form. Any other value (a GString, a
+ * bean, a date) is written by Jackson in a form its {@code toString()} does not determine, so a subtree containing one
+ * has no content hash.
+ */
+public final class CfnContentHash {
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte OBJECT = 2;
+    private static final byte FUNCTION = 3;
+    private static final byte COLLECTION = 4;
+    private static final byte MAP = 5;
+    private static final byte OTHER = 6;
+
+    // JSON form is fully determined by class and toString()
+    private static final Set<Class<?>> SCALAR_TYPES = ImmutableSet.of(Boolean.class, Integer.class, Long.class, Short.class,
+            Byte.class, Double.class, Float.class, BigInteger.class, BigDecimal.class);
+
+    private CfnContentHash() {
+        // EMPTY
+    }
+
+    /**
+     * Hash of the subtree, or empty if it contains a value whose generated JSON the hash cannot account for.
+     */
+    public static Optional<HashCode> of(@Nullable Object value) {
+        Sink sink = new Sink(HASH_FUNCTION.newHasher());
+        return hash(sink, value) ? Optional.of(sink.hash()) : Optional.empty();
+    }
+
+    private static boolean hash(Sink sink, @Nullable Object value) {
+        if (value == null) {
+            sink.putByte(NULL);
+        } else if (value instanceof String) {
+            sink.putByte(STRING);
+            sink.putString((String) value);
+        } else if (value instanceof CfnObject) {
+            CfnObject cfnObject = (CfnObject) value;
+            Map<String, Object> properties = cfnObject.getPropertiesView();
+            sink.putByte(OBJECT);
+            sink.putString(cfnObject.getResourceType());
+            sink.putString(cfnObject.getPropertyPath());
+            sink.putInt(properties.size());
+            for (Map.Entry<String, Object> entry : properties.entrySet()) {
+                sink.putString(entry.getKey());
+                if (!hash(sink, entry.getValue())) {
+                    return false;
+                }
+            }
+        } else if (value instanceof IntrinsicFunction) {
+            IntrinsicFunction function = (IntrinsicFunction) value;
+            sink.putByte(FUNCTION);
+            sink.putString(function.getFunctionName());
+            return hash(sink, function.getArguments());
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            sink.putByte(COLLECTION);
+            sink.putInt(collection.size());
+            for (Object item : collection) {
+                if (!hash(sink, item)) {
+                    return false;
+                }
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            sink.putByte(MAP);
+            sink.putInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!hash(sink, entry.getKey()) || !hash(sink, entry.getValue())) {
+                    return false;
+                }
+            }
+        } else if (SCALAR_TYPES.contains(value.getClass())) {
+            sink.putByte(OTHER);
+            sink.putString(value.getClass().getName());
+            sink.putString(value.toString());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Buffers the encoded tree and feeds the hasher in bulk; Guava's streaming hashers are slow per byte or char.
+     */
+    private static final class Sink {
+        private final Hasher hasher;
+        private final byte[] buffer = new byte[512];
+        private int position;
+
+        Sink(Hasher hasher) {
+            this.hasher = hasher;
+        }
+
+        void putByte(byte b) {
+            ensureCapacity(1);
+            buffer[position++] = b;
+        }
+
+        void putInt(int i) {
+            ensureCapacity(4);
+            buffer[position++] = (byte) i;
+            buffer[position++] = (byte) (i >>> 8);
+            buffer[position++] = (byte) (i >>> 16);
+            buffer[position++] = (byte) (i >>> 24);
+        }
+
+        // length-prefixed, so adjacent strings can't run together; ASCII chars take one byte, anything else an
+        // escape byte plus both char bytes
+        void putString(String s) {
+            int length = s.length();
+            putInt(length);
+            for (int i = 0; i < length; i++) {
+                ensureCapacity(3);
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    buffer[position++] = (byte) c;
+                } else {
+                    buffer[position++] = (byte) 0x80;
+                    buffer[position++] = (byte) c;
+                    buffer[position++] = (byte) (c >>> 8);
+                }
+            }
+        }
+
+        HashCode hash() {
+            flush();
+            return hasher.hash();
+        }
+
+        private void ensureCapacity(int bytes) {
+            if (position + bytes > buffer.length) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            hasher.putBytes(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -28,6 +28,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Contains <a href="http://docs.aws.amazon.com/AWSCloudFormation/latest/UserGuide/intrinsic-function-reference.html">CloudFormation intrinsic functions</a>
+ * <p>
+ * Calls with immutable arguments return shared instances; see {@link IntrinsicFunction#of(String, Object)}.
  */
 @SuppressWarnings("unused")
 public interface CfnIntrinsicFunctions {
@@ -44,16 +46,17 @@ public interface CfnIntrinsicFunctions {
         }
         checkArgument(name != null, "name != null; unknown type for Ref : %s or resource name is null", ref.getClass());
 
-        return new IntrinsicFunction("Ref", name);
+        return IntrinsicFunction.ref(name);
     }
 
     default IntrinsicFunction Fn_Sub(String input, Map<String,Object> replacementMap) {
+        if (replacementMap.isEmpty()) {
+            return IntrinsicFunction.of("Fn::Sub", ImmutableList.of(input));
+        }
         List<Object> list = new ArrayList<>(2);
         list.add(input);
-        if ( !replacementMap.isEmpty()) {
-            list.add(replacementMap);
-        }
-        return new IntrinsicFunction("Fn::Sub", list);
+        list.add(replacementMap);
+        return IntrinsicFunction.of("Fn::Sub", list);
     }
 
     default IntrinsicFunction Fn_Sub(String input) {
@@ -61,50 +64,50 @@ public interface CfnIntrinsicFunctions {
     }
 
     default IntrinsicFunction Fn_Split(String delimiter, Object sourceString) {
-        return new IntrinsicFunction("Fn::Split", ImmutableList.of(delimiter, sourceString));
+        return IntrinsicFunction.of("Fn::Split", ImmutableList.of(delimiter, sourceString));
     }
 
     default IntrinsicFunction Fn_Select(int index, List<Object> list) {
-        return new IntrinsicFunction("Fn::Select", ImmutableList.of(index, list));
+        return IntrinsicFunction.of("Fn::Select", ImmutableList.of(index, list));
     }
 
     default IntrinsicFunction Fn_ImportValue(Object value) {
-        return new IntrinsicFunction("Fn::ImportValue", value);
+        return IntrinsicFunction.of("Fn::ImportValue", value);
     }
 
     default IntrinsicFunction Fn_GetAZs(Object value) {
-        return new IntrinsicFunction("Fn::GetAZs", value);
+        return IntrinsicFunction.of("Fn::GetAZs", value);
     }
 
     default IntrinsicFunction Fn_GetAtt(String logicalResourceName, Object attributeName) {
-        return new IntrinsicFunction("Fn::GetAtt", ImmutableList.of(logicalResourceName, attributeName));
+        return IntrinsicFunction.of("Fn::GetAtt", ImmutableList.of(logicalResourceName, attributeName));
     }
 
     default IntrinsicFunction Fn_FindInMap(Object mapName, Object topLevelKey, Object secondLevelKey) {
-        return new IntrinsicFunction("Fn::FindInMap", ImmutableList.of(mapName, topLevelKey, secondLevelKey));
+        return IntrinsicFunction.of("Fn::FindInMap", ImmutableList.of(mapName, topLevelKey, secondLevelKey));
     }
 
     default IntrinsicFunction Fn_Base64(Object valueToEncode) {
-        return new IntrinsicFunction("Fn::Base64", valueToEncode);
+        return IntrinsicFunction.of("Fn::Base64", valueToEncode);
     }
 
     default IntrinsicFunction Fn_And(List<Object> conditions) {
-        return new IntrinsicFunction("Fn::And", conditions);
+        return IntrinsicFunction.of("Fn::And", conditions);
     }
 
     default IntrinsicFunction Fn_Equals(Object value1, Object value2) {
-        return new IntrinsicFunction("Fn::Equals", ImmutableList.of(value1, value2));
+        return IntrinsicFunction.of("Fn::Equals", ImmutableList.of(value1, value2));
     }
 
     default IntrinsicFunction Fn_If(Object conditionName, Object valueIfTrue, Object valueIfFalse) {
-        return new IntrinsicFunction("Fn::If", ImmutableList.of(conditionName, valueIfTrue, valueIfFalse));
+        return IntrinsicFunction.of("Fn::If", ImmutableList.of(conditionName, valueIfTrue, valueIfFalse));
     }
 
     default IntrinsicFunction Fn_Not(Object condition) {
-        return new IntrinsicFunction("Fn::Not", ImmutableList.of(condition));
+        return IntrinsicFunction.of("Fn::Not", ImmutableList.of(condition));
     }
 
     default IntrinsicFunction Fn_Or(List<Object> conditions) {
-        return new IntrinsicFunction("Fn::Or", conditions);
+        return IntrinsicFunction.of("Fn::Or", conditions);
     }
 }
@@ -16,7 +16,12 @@
 
 package com.digitalascent.cfn.core.domain;
 
+import com.digitalascent.cfn.core.listener.CfnMutationListener;
+import com.digitalascent.cfn.core.listener.CfnMutationListeners;
 import com.digitalascent.cfn.core.strategy.ImmutabilityStrategy;
+import com.digitalascent.cfn.core.strategy.Mutability;
+import com.digitalascent.cfn.core.strategy.MutabilityStrategy;
+import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import groovy.lang.Closure;
@@ -27,57 +32,86 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 
 public class CfnObject extends GroovyObjectSupport implements CfnIntrinsicFunctions, CfnPseudoParameters {
 
-    private final Logger logger = LoggerFactory.getLogger(getClass());
-    private final Map<String, Object> dynamicProperties = new LinkedHashMap<>();
-    private final String propertyPath;
+    private static final Logger LOGGER = LoggerFactory.getLogger(CfnObject.class);
+    private static final int[] NO_SLOTS = new int[0];
+
+    // array-backed, grows on demand; also tracks frozen properties
+    private final CompactPropertyMap dynamicProperties = new CompactPropertyMap();
+    private final PropertyPath propertyPath;
     private final String resourceType;
-    private Set<String> frozenProperties = new HashSet<>();
+
+    // owner notified when this subtree changes; null for roots and until this object is assigned somewhere
+    @Nullable
+    private CfnObject parent;
+    // set by setProperty anywhere in this subtree, cleared by a freeze
+    private boolean dirty = true;
+    @Nullable
+    private ImmutabilityStrategy frozenWith;
+    // slots whose values may change without setProperty (e.g. semi-mutable collections); re-frozen on every freeze
+    private int[] unsettledSlots = NO_SLOTS;
 
     public CfnObject(String resourceType, String propertyPath) {
+        this(resourceType, parsePropertyPath(propertyPath));
+    }
+
+    public CfnObject(String resourceType, PropertyPath propertyPath) {
         checkArgument(!isNullOrEmpty(resourceType), "resourceType is required to be non-null & not empty: %s", resourceType);
-        checkArgument(!isNullOrEmpty(propertyPath), "propertyPath is required to be non-null & not empty: %s", propertyPath);
-        this.propertyPath = propertyPath;
+        this.propertyPath = checkNotNull(propertyPath, "propertyPath is required");
         this.resourceType = resourceType;
     }
 
+    private static PropertyPath parsePropertyPath(String propertyPath) {
+        checkArgument(!isNullOrEmpty(propertyPath), "propertyPath is required to be non-null & not empty: %s", propertyPath);
+        return PropertyPath.parse(propertyPath);
+    }
+
     public String getResourceType() {
         return resourceType;
     }
 
     public String getPropertyPath() {
+        return propertyPath.toString();
+    }
+
+    public PropertyPath getPath() {
         return propertyPath;
     }
 
     protected final Logger getLogger() {
-        return logger;
+        return LOGGER;
     }
 
     public final Map<String, Object> getProperties() {
         return ImmutableMap.copyOf(dynamicProperties);
     }
 
+    /**
+     * Read-only, live view of the properties; unlike {@link #getProperties()} this does not copy.
+     */
+    public final Map<String, Object> getPropertiesView() {
+        return dynamicProperties;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public final void setProperty(final String propertyName, Object propertyValue) {
         checkArgument(!isNullOrEmpty(propertyName), "propertyName is required to be non-null & not empty: %s", propertyName);
 
-        if (frozenProperties.contains(propertyName)) {
-            throw new PropertyFrozenException(propertyPath + '.' + propertyName + " is frozen");
+        if (dynamicProperties.isFrozen(propertyName)) {
+            throw new PropertyFrozenException(propertyPath.child(propertyName) + " is frozen");
         }
 
         Object targetValue = propertyValue;
@@ -90,24 +124,27 @@ public class CfnObject extends GroovyObjectSupport implements CfnIntrinsicFuncti
 
         // execute closures
         if (propertyValue instanceof Closure) {
-            targetValue = handleClosure(propertyName, (Closure) propertyValue, currentValue);
+            targetValue = handleClosure(propertyPath.child(propertyName), (Closure) propertyValue, currentValue);
         }
 
         // replace with Ref to other resource
         if (propertyValue instanceof CfnResource) {
             targetValue = Ref(propertyValue);
+        } else if (propertyValue instanceof CfnObject) {
+            adopt((CfnObject) propertyValue);
         }
 
-        // only generate log info on properties, not entire nested objects
-        if (!(targetValue instanceof CfnObject)) {
+        dynamicProperties.putValue(propertyName, targetValue);
+        markDirty();
+
+        CfnMutationListener listener = CfnMutationListeners.getListener();
+        if (listener != CfnMutationListener.NONE) {
             if (currentValue == null) {
-                logger.info("{}: setting '{}' to '{}'", propertyPath, propertyName, targetValue);
+                listener.propertySet(this, propertyName, targetValue);
             } else {
-                logger.info("{}: overriding '{}'; replacing '{}' with '{}'", propertyPath, propertyName, currentValue, targetValue);
+                listener.propertyOverridden(this, propertyName, currentValue, targetValue);
             }
-
         }
-        dynamicProperties.put(propertyName, targetValue);
     }
 
     @Override
@@ -116,15 +153,19 @@ public class CfnObject extends GroovyObjectSupport implements CfnIntrinsicFuncti
     }
 
     private List<Object> handleCollection(final Collection<Object> collection, final String property) {
-        AtomicLong counter = new AtomicLong();
+        AtomicInteger counter = new AtomicInteger();
+        PropertyPath collectionPath = propertyPath.child(property);
 
         return collection.stream().map(item -> {
             if (item instanceof Closure) {
-                return handleClosure(String.format("%s[%d]", property, counter.getAndIncrement()), (Closure) item, null);
+                return handleClosure(collectionPath.element(counter.getAndIncrement()), (Closure) item, null);
             }
             if (item instanceof CfnResource) {
                 return Ref(item);
             }
+            if (item instanceof CfnObject) {
+                adopt((CfnObject) item);
+            }
             return item;
         }).collect(toImmutableList());
     }
@@ -138,13 +179,14 @@ public class CfnObject extends GroovyObjectSupport implements CfnIntrinsicFuncti
         return dynamicProperties.get(property);
     }
 
-    private CfnObject handleClosure(final String name, Closure<?> closure, @Nullable final Object currentValue) {
+    private CfnObject handleClosure(final PropertyPath path, Closure<?> closure, @Nullable final Object currentValue) {
         if ((currentValue != null) && !(currentValue instanceof CfnObject)) {
             throw new IllegalArgumentException("Cannot overwrite CfnObject with " + currentValue.getClass());
         }
 
         // merge properties into existing object if it exists
-        CfnObject delegate = (currentValue != null) ? (CfnObject) currentValue : new CfnObject(resourceType, propertyPath + '.' + name);
+        CfnObject delegate = (currentValue != null) ? (CfnObject) currentValue : new CfnObject(resourceType, path);
+        adopt(delegate);
 
         closure.setDelegate(delegate);
         closure.setResolveStrategy(Closure.DELEGATE_FIRST);
@@ -152,28 +194,145 @@ public class CfnObject extends GroovyObjectSupport implements CfnIntrinsicFuncti
         return delegate;
     }
 
+    private void adopt(CfnObject child) {
+        // an object shared by several owners keeps its first; the others re-walk it on every freeze
+        if (child.parent == null && child != this) {
+            child.parent = this;
+        }
+    }
+
+    private void markDirty() {
+        // the owner of a dirty object is dirty or re-freezes its slot anyway, so the walk stops at the first one
+        for (CfnObject o = this; o != null && !o.dirty; o = o.parent) {
+            o.dirty = true;
+        }
+    }
+
+    /**
+     * Freezes properties according to the strategy.
+     * <p>
+     * Re-freezing with the same strategy only revisits what may have changed since the last freeze: subtrees mutated
+     * through {@link #setProperty(String, Object)}, and properties holding values that can change on their own, such as
+     * semi-mutable or mutable collections. Other subtrees are skipped and emit no freeze events.
+     */
     public final void makeImmutable(final ImmutabilityStrategy immutabilityStrategy) {
-        String propertyPathRoot = propertyPath;
-        propertyPathRoot = propertyPathRoot.contains(".") ? propertyPathRoot.substring(propertyPathRoot.indexOf('.') + 1) : "";
-
-        String finalPropertyPathRoot = propertyPathRoot;
-        final Set<String> tempFrozenProperties = new LinkedHashSet<>();
-        dynamicProperties.forEach((key, value) -> {
-            String propertyPath = finalPropertyPathRoot + '.' + key;
-            if (finalPropertyPathRoot.isEmpty()) {
-                propertyPath = key;
+        boolean fullWalk = dirty || frozenWith != immutabilityStrategy;
+        if (!fullWalk && unsettledSlots.length == 0) {
+            return;
+        }
+
+        // strategy paths are relative to the resource, e.g. MyBucket.metadata -> metadata.<key>
+        PropertyPath propertyPathRoot = propertyPath.withoutRoot();
+        MutabilityStrategy mutabilityStrategy = immutabilityStrategy instanceof MutabilityStrategy ? (MutabilityStrategy) immutabilityStrategy : null;
+
+        if (fullWalk) {
+            dynamicProperties.unfreezeAll();
+        }
+        int count = fullWalk ? dynamicProperties.size() : unsettledSlots.length;
+        for (int i = 0; i < count; i++) {
+            int slot = fullWalk ? i : unsettledSlots[i];
+            String key = dynamicProperties.keyAt(slot);
+            PropertyPath path = propertyPathRoot == null ? PropertyPath.of(key) : propertyPathRoot.child(key);
+
+            if (mutabilityStrategy != null) {
+                Mutability mutability = mutabilityStrategy.mutabilityOf(path);
+                if (mutability != Mutability.MUTABLE) {
+                    freeze(slot, mutabilityStrategy.freeze(path, dynamicProperties.valueAt(slot), mutability));
+                }
+                continue;
             }
 
-            Tuple result = immutabilityStrategy.maybeMakeImmutable(propertyPath, value);
+            Tuple result = immutabilityStrategy.maybeMakeImmutable(path, dynamicProperties.valueAt(slot));
             if (result != null) {
-                // prevent overwriting the property entirely
-                tempFrozenProperties.add(key);
+                freeze(slot, result.get(0));
+            }
+        }
+
+        CfnMutationListener listener = CfnMutationListeners.getListener();
+        if (listener != CfnMutationListener.NONE) {
+            ImmutableSet.Builder<String> frozenProperties = ImmutableSet.builder();
+            for (int i = 0; i < count; i++) {
+                int slot = fullWalk ? i : unsettledSlots[i];
+                if (dynamicProperties.isFrozenAt(slot)) {
+                    frozenProperties.add(dynamicProperties.keyAt(slot));
+                }
+            }
+            listener.propertiesFrozen(this, frozenProperties.build());
+        }
+
+        frozenWith = immutabilityStrategy;
+        dirty = false;
+        unsettledSlots = fullWalk ? findUnsettledSlots() : findUnsettledSlots(unsettledSlots);
+    }
 
-                // store (semi)immutable value (collections, maps, CfnObjects inside collections & maps)
-                dynamicProperties.put(key, result.get(0));
+    private int[] findUnsettledSlots() {
+        int[] slots = null;
+        int count = 0;
+        for (int slot = 0; slot < dynamicProperties.size(); slot++) {
+            if (!isSettled(dynamicProperties.valueAt(slot))) {
+                if (slots == null) {
+                    slots = new int[dynamicProperties.size() - slot];
+                }
+                slots[count++] = slot;
             }
-        });
+        }
+        return slots == null ? NO_SLOTS : Arrays.copyOf(slots, count);
+    }
+
+    private int[] findUnsettledSlots(int[] candidates) {
+        int count = 0;
+        for (int slot : candidates) {
+            if (!isSettled(dynamicProperties.valueAt(slot))) {
+                count++;
+            }
+        }
+        if (count == candidates.length) {
+            return candidates;
+        }
+        int[] slots = new int[count];
+        count = 0;
+        for (int slot : candidates) {
+            if (!isSettled(dynamicProperties.valueAt(slot))) {
+                slots[count++] = slot;
+            }
+        }
+        return slots;
+    }
+
+    // true if re-freezing could not change the value: scalars, intrinsic functions, immutable collections of those and
+    // settled objects owned by this one, which report their own changes
+    private boolean isSettled(@Nullable Object value) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean || value instanceof IntrinsicFunction) {
+            return true;
+        }
+        if (value instanceof CfnObject) {
+            CfnObject child = (CfnObject) value;
+            return child.parent == this && !child.dirty && child.unsettledSlots.length == 0;
+        }
+        if (value instanceof ImmutableCollection) {
+            for (Object element : (ImmutableCollection<?>) value) {
+                if (!isSettled(element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (value instanceof ImmutableMap) {
+            for (Map.Entry<?, ?> entry : ((ImmutableMap<?, ?>) value).entrySet()) {
+                if (!isSettled(entry.getKey()) || !isSettled(entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void freeze(int slot, Object frozenValue) {
+        // prevent overwriting the property entirely
+        dynamicProperties.freezeAt(slot);
 
-        frozenProperties = ImmutableSet.copyOf(tempFrozenProperties);
+        // store (semi)immutable value (collections, maps, CfnObjects inside collections & maps)
+        dynamicProperties.setValueAt(slot, frozenValue);
     }
 }
@@ -16,6 +16,9 @@
 
 package com.digitalascent.cfn.core.domain;
 
+import com.digitalascent.cfn.core.listener.CfnMutationListener;
+import com.digitalascent.cfn.core.listener.CfnMutationListeners;
+
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -53,8 +56,12 @@ public final class CfnResource extends CfnObject {
             properties.setProperty("tags", tags);
         }
 
-        getLogger().info( "{}: tagging with {}={}", resourceName, key, value );
         tags.put(key, value);
+
+        CfnMutationListener listener = CfnMutationListeners.getListener();
+        if (listener != CfnMutationListener.NONE) {
+            listener.tagged(this, key, value);
+        }
     }
 
     public String getResourceName() {
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.domain;
+
+import javax.annotation.Nullable;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Insertion-ordered property storage for {@link CfnObject}, backed by parallel key / value arrays.
+ * <p>
+ * Arrays start small and grow only as properties are added; small maps are searched linearly and a hash index is only
+ * built once a map outgrows {@link #LINEAR_SCAN_LIMIT}. Properties are never removed, so slot indexes are stable and
+ * frozen properties are tracked as a bitset over slots.
+ * <p>
+ * Externally the map is read-only; CfnObject mutates it via the package-private methods.
+ */
+final class CompactPropertyMap extends AbstractMap<String, Object> {
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int LINEAR_SCAN_LIMIT = 8;
+    private static final String[] EMPTY_KEYS = new String[0];
+    private static final Object[] EMPTY_VALUES = new Object[0];
+    private static final long[] NOT_FROZEN = new long[0];
+
+    private String[] keys = EMPTY_KEYS;
+    private Object[] values = EMPTY_VALUES;
+    private int size;
+    private long[] frozen = NOT_FROZEN;
+
+    @Nullable
+    private Map<String, Integer> index;
+
+    /**
+     * Stores the value, returning the previous value or null if the property is new.
+     */
+    @Nullable
+    Object putValue(String key, Object value) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            Object previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+
+        if (size == keys.length) {
+            int capacity = keys.length == 0 ? INITIAL_CAPACITY : keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        keys[size] = key;
+        values[size] = value;
+        if (index != null) {
+            index.put(key, size);
+        } else if (size == LINEAR_SCAN_LIMIT) {
+            index = new HashMap<>();
+            for (int i = 0; i <= size; i++) {
+                index.put(keys[i], i);
+            }
+        }
+        size++;
+        return null;
+    }
+
+    void setValueAt(int slot, Object value) {
+        values[slot] = value;
+    }
+
+    String keyAt(int slot) {
+        return keys[slot];
+    }
+
+    Object valueAt(int slot) {
+        return values[slot];
+    }
+
+    int slotOf(Object key) {
+        if (index != null) {
+            Integer slot = index.get(key);
+            return slot == null ? -1 : slot;
+        }
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    boolean isFrozen(String key) {
+        if (frozen == NOT_FROZEN) {
+            return false;
+        }
+        int slot = slotOf(key);
+        return slot >= 0 && isFrozenAt(slot);
+    }
+
+    boolean isFrozenAt(int slot) {
+        int word = slot >>> 6;
+        return word < frozen.length && (frozen[word] & (1L << slot)) != 0;
+    }
+
+    void freezeAt(int slot) {
+        int word = slot >>> 6;
+        if (word >= frozen.length) {
+            frozen = Arrays.copyOf(frozen, ((size - 1) >>> 6) + 1);
+        }
+        frozen[word] |= 1L << slot;
+    }
+
+    void unfreezeAll() {
+        // keep the words; re-freezing usually freezes the same slots again
+        Arrays.fill(frozen, 0L);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return slotOf(key) >= 0;
+    }
+
+    @Override
+    @Nullable
+    public Object get(Object key) {
+        int slot = slotOf(key);
+        return slot < 0 ? null : values[slot];
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(keys[i], values[i]);
+        }
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new SlotIterator<>(slot -> keys[slot]);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return containsKey(key);
+            }
+        };
+    }
+
+    @Override
+    public Collection<Object> values() {
+        return new AbstractCollection<Object>() {
+            @Override
+            public Iterator<Object> iterator() {
+                return new SlotIterator<>(slot -> values[slot]);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new SlotIterator<>(slot -> new SimpleImmutableEntry<>(keys[slot], values[slot]));
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private final class SlotIterator<T> implements Iterator<T> {
+        private final IntFunction<T> element;
+        private int slot;
+
+        SlotIterator(IntFunction<T> element) {
+            this.element = element;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return slot < size;
+        }
+
+        @Override
+        public T next() {
+            if (slot >= size) {
+                throw new NoSuchElementException();
+            }
+            return element.apply(slot++);
+        }
+    }
+}
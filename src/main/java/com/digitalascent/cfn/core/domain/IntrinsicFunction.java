@@ -16,18 +16,57 @@
 
 package com.digitalascent.cfn.core.domain;
 
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
 
+/**
+ * A CloudFormation intrinsic function call, e.g. {@code Ref} or {@code Fn::GetAtt}.
+ * <p>
+ * Functions compare by name and arguments. Instances obtained from {@link #of(String, Object)} and {@link #ref(String)}
+ * are hash-consed when their arguments are immutable, so identical calls (say, thousands of {@code Ref}s to the same
+ * VPC) share one instance and compare by identity in the common case.
+ */
 public final class IntrinsicFunction {
+    // weak, so instances are released along with the templates referencing them
+    private static final Interner<IntrinsicFunction> INTERNER = Interners.newWeakInterner();
+
     private final String functionName;
     private final Object arguments;
+    private final boolean immutable;
+    private final int hashCode;
 
+    /**
+     * Always creates a new instance; prefer {@link #of(String, Object)}.
+     */
     public IntrinsicFunction(String functionName, Object arguments) {
         checkArgument(!isNullOrEmpty(functionName), "functionName is required to be non-null & not empty: %s", functionName);
         this.functionName = functionName;
         this.arguments = checkNotNull(arguments, "arguments is required");
+        this.immutable = isImmutable(arguments);
+        // only cached when the arguments cannot change underneath us
+        this.hashCode = immutable ? computeHashCode() : 0;
+    }
+
+    /**
+     * Returns the shared instance for this call if the arguments are immutable (strings, numbers, booleans, other
+     * functions, and Guava immutable collections of those), otherwise a new instance.
+     */
+    public static IntrinsicFunction of(String functionName, Object arguments) {
+        IntrinsicFunction function = new IntrinsicFunction(functionName, arguments);
+        return function.immutable ? INTERNER.intern(function) : function;
+    }
+
+    public static IntrinsicFunction ref(String name) {
+        return of("Ref", name);
     }
 
     @Override
@@ -42,4 +81,55 @@ public final class IntrinsicFunction {
     public Object getArguments() {
         return arguments;
     }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IntrinsicFunction)) {
+            return false;
+        }
+        IntrinsicFunction that = (IntrinsicFunction) o;
+        if (immutable && that.immutable && hashCode != that.hashCode) {
+            return false;
+        }
+        return functionName.equals(that.functionName) && arguments.equals(that.arguments);
+    }
+
+    @Override
+    public int hashCode() {
+        return immutable ? hashCode : computeHashCode();
+    }
+
+    private int computeHashCode() {
+        return 31 * functionName.hashCode() + arguments.hashCode();
+    }
+
+    private static boolean isImmutable(Object value) {
+        if (value instanceof String || value instanceof Boolean || value instanceof Integer || value instanceof Long
+                || value instanceof Double || value instanceof Enum) {
+            return true;
+        }
+        if (value instanceof IntrinsicFunction) {
+            return ((IntrinsicFunction) value).immutable;
+        }
+        if (value instanceof ImmutableCollection) {
+            for (Object element : (ImmutableCollection<?>) value) {
+                if (!isImmutable(element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (value instanceof ImmutableMap) {
+            for (Map.Entry<?, ?> entry : ((ImmutableMap<?, ?>) value).entrySet()) {
+                if (!isImmutable(entry.getKey()) || !isImmutable(entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
 }
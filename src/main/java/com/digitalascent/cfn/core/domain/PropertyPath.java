@@ -0,0 +1,236 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.domain;
+
+import com.google.common.collect.MapMaker;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Interned, dot-separated property path, e.g. {@code properties.blockDeviceMappings[0].ebs}.
+ * <p>
+ * Each node holds its parent, its segment and an optional element index; equal paths are always the same instance, so
+ * paths compare by identity and can be used directly as cache keys. The string form is built once, on first use.
+ */
+public final class PropertyPath {
+    private static final int NO_INDEX = -1;
+
+    // weak values throughout: a node is released once no CfnObject (or descendant node) references it, so long-lived
+    // shared trees such as properties.* only hold the paths still in use
+    private static final ConcurrentMap<String, PropertyPath> ROOTS = newInternMap();
+
+    @Nullable
+    private final PropertyPath parent;
+    private final String segment;
+    private final int index;
+    // element paths pin their unindexed sibling, which owns the interned elements
+    @Nullable
+    private final PropertyPath unindexed;
+    private final int depth;
+    private final int hashCode;
+
+    @Nullable
+    private volatile ConcurrentMap<String, PropertyPath> children;
+    @Nullable
+    private volatile ConcurrentMap<Integer, PropertyPath> elements;
+    @Nullable
+    private volatile PropertyPath rootless;
+    @Nullable
+    private String text;
+
+    private PropertyPath(@Nullable PropertyPath parent, String segment, int index, @Nullable PropertyPath unindexed) {
+        this.parent = parent;
+        this.segment = segment;
+        this.index = index;
+        this.unindexed = unindexed;
+        this.depth = parent == null ? 1 : parent.depth + 1;
+        this.hashCode = 31 * (31 * (parent == null ? 0 : parent.hashCode) + segment.hashCode()) + index;
+    }
+
+    /**
+     * Single-segment path.
+     */
+    public static PropertyPath of(String segment) {
+        checkNotNull(segment, "segment is required");
+        PropertyPath root = ROOTS.get(segment);
+        return root != null ? root : ROOTS.computeIfAbsent(segment, name -> new PropertyPath(null, name, NO_INDEX, null));
+    }
+
+    /**
+     * Interns a dot-separated path; trailing {@code [n]} element indexes are recognized on each segment.
+     */
+    public static PropertyPath parse(String propertyPath) {
+        checkArgument(!propertyPath.isEmpty(), "propertyPath is required to be non-empty");
+
+        PropertyPath path = null;
+        int start = 0;
+        while (true) {
+            int end = propertyPath.indexOf('.', start);
+            if (end < 0) {
+                end = propertyPath.length();
+            }
+
+            int indexStart = indexStart(propertyPath, start, end);
+            String segment = propertyPath.substring(start, indexStart);
+            path = path == null ? of(segment) : path.child(segment);
+            if (indexStart < end) {
+                path = path.element(Integer.parseInt(propertyPath.substring(indexStart + 1, end - 1)));
+            }
+
+            if (end == propertyPath.length()) {
+                return path;
+            }
+            start = end + 1;
+        }
+    }
+
+    // position of a canonical '[n]' suffix (no sign, no leading zeros) so that parsing round-trips; end if none
+    private static int indexStart(String propertyPath, int start, int end) {
+        if (end - start < 3 || propertyPath.charAt(end - 1) != ']') {
+            return end;
+        }
+        int i = end - 2;
+        while (i > start && isDigit(propertyPath.charAt(i))) {
+            i--;
+        }
+        boolean canonical = i < end - 2 && (propertyPath.charAt(i + 1) != '0' || i + 1 == end - 2) && end - i - 2 <= 9;
+        return (canonical && propertyPath.charAt(i) == '[') ? i : end;
+    }
+
+    private static <K> ConcurrentMap<K, PropertyPath> newInternMap() {
+        // most nodes have few children, so a single segment keeps the per-node overhead down
+        return new MapMaker().concurrencyLevel(1).weakValues().makeMap();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    public PropertyPath child(String segment) {
+        checkNotNull(segment, "segment is required");
+        ConcurrentMap<String, PropertyPath> map = children;
+        if (map == null) {
+            synchronized (this) {
+                map = children;
+                if (map == null) {
+                    map = newInternMap();
+                    children = map;
+                }
+            }
+        }
+        PropertyPath child = map.get(segment);
+        return child != null ? child : map.computeIfAbsent(segment, name -> new PropertyPath(this, name, NO_INDEX, null));
+    }
+
+    /**
+     * Indexed sibling of this path, e.g. {@code securityGroupIngress} -> {@code securityGroupIngress[2]}.
+     */
+    public PropertyPath element(int elementIndex) {
+        checkArgument(elementIndex >= 0, "elementIndex is required to be >= 0: %s", elementIndex);
+        checkState(index == NO_INDEX, "%s is already indexed", this);
+        ConcurrentMap<Integer, PropertyPath> map = elements;
+        if (map == null) {
+            synchronized (this) {
+                map = elements;
+                if (map == null) {
+                    map = newInternMap();
+                    elements = map;
+                }
+            }
+        }
+        PropertyPath element = map.get(elementIndex);
+        return element != null ? element : map.computeIfAbsent(elementIndex, i -> new PropertyPath(parent, segment, i, this));
+    }
+
+    /**
+     * This path without its first segment, or null for a single-segment path; e.g. {@code MyBucket.metadata.a} ->
+     * {@code metadata.a}.
+     */
+    @Nullable
+    public PropertyPath withoutRoot() {
+        if (parent == null) {
+            return null;
+        }
+        PropertyPath path = rootless;
+        if (path == null) {
+            PropertyPath parentWithoutRoot = parent.withoutRoot();
+            path = parentWithoutRoot == null ? of(segment) : parentWithoutRoot.child(segment);
+            if (index != NO_INDEX) {
+                path = path.element(index);
+            }
+            rootless = path;
+        }
+        return path;
+    }
+
+    @Nullable
+    public PropertyPath getParent() {
+        return parent;
+    }
+
+    public String getSegment() {
+        return segment;
+    }
+
+    public boolean hasIndex() {
+        return index != NO_INDEX;
+    }
+
+    /**
+     * Element index, or -1 if this segment is not indexed.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        // racy single-check; Strings are safely published
+        String s = text;
+        if (s == null) {
+            StringBuilder sb = new StringBuilder();
+            appendTo(sb);
+            s = sb.toString();
+            text = s;
+        }
+        return s;
+    }
+
+    private void appendTo(StringBuilder sb) {
+        if (parent != null) {
+            sb.append(parent).append('.');
+        }
+        sb.append(segment);
+        if (index != NO_INDEX) {
+            sb.append('[').append(index).append(']');
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator;
+
+import com.digitalascent.core.base.SimpleApplicationObject;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Generates many templates with one shared {@link CloudFormationGenerator} on a bounded pool of worker threads.
+ * <p>
+ * At most {@code maxInFlight} templates are queued or running at once; submitting further templates blocks until a
+ * worker frees up, so requests may be produced lazily without being buffered. A failing template is recorded in the
+ * {@link BatchGenerationReport} and does not abort the rest of the batch.
+ */
+public final class BatchCloudFormationGenerator extends SimpleApplicationObject implements AutoCloseable {
+    private final CloudFormationGenerator generator;
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private final boolean ownsExecutor;
+
+    public BatchCloudFormationGenerator(CloudFormationGenerator generator, int parallelism) {
+        this(generator, newExecutor(parallelism), parallelism * 2, true);
+    }
+
+    /**
+     * Uses a caller-supplied executor, which is not shut down by {@link #close()}.
+     */
+    public BatchCloudFormationGenerator(CloudFormationGenerator generator, ExecutorService executor, int maxInFlight) {
+        this(generator, executor, maxInFlight, false);
+    }
+
+    private BatchCloudFormationGenerator(CloudFormationGenerator generator, ExecutorService executor, int maxInFlight, boolean ownsExecutor) {
+        checkArgument(maxInFlight > 0, "maxInFlight > 0 : %s", maxInFlight);
+        this.generator = checkNotNull(generator, "generator is required");
+        this.executor = checkNotNull(executor, "executor is required");
+        this.maxInFlight = maxInFlight;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    public BatchGenerationReport generate(Iterable<TemplateGenerationRequest> requests, boolean prettyPrint) {
+        checkNotNull(requests, "requests is required");
+        long start = System.nanoTime();
+
+        Semaphore permits = new Semaphore(maxInFlight);
+        List<Future<TemplateGenerationResult>> futures = new ArrayList<>();
+        for (TemplateGenerationRequest request : requests) {
+            permits.acquireUninterruptibly();
+            try {
+                futures.add(executor.submit(() -> {
+                    try {
+                        return generate(request, prettyPrint);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        List<TemplateGenerationResult> results = new ArrayList<>(futures.size());
+        for (Future<TemplateGenerationResult> future : futures) {
+            try {
+                results.add(Uninterruptibles.getUninterruptibly(future));
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        BatchGenerationReport report = new BatchGenerationReport(results, Duration.ofNanos(System.nanoTime() - start));
+        getLogger().info("Generated {}", report);
+        return report;
+    }
+
+    private TemplateGenerationResult generate(TemplateGenerationRequest request, boolean prettyPrint) {
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try (OutputStream os = request.getDestination().openStream()) {
+            generator.generate(request.getModel(), os, prettyPrint);
+        } catch (Exception | StackOverflowError e) {
+            // a deeply nested or cyclic model overflows the worker's stack; other errors are left to fail the batch
+            getLogger().warn("Failed to generate template '{}'", request.getName(), e);
+            failure = e;
+        }
+        return new TemplateGenerationResult(request.getName(), Duration.ofNanos(System.nanoTime() - start), failure);
+    }
+
+    /**
+     * Shuts down the executor created by this batch generator; a caller-supplied executor is left running.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    private static ExecutorService newExecutor(int parallelism) {
+        checkArgument(parallelism > 0, "parallelism > 0 : %s", parallelism);
+        return Executors.newFixedThreadPool(parallelism, new ThreadFactoryBuilder()
+                .setNameFormat("cfn-generator-%d")
+                .setDaemon(true)
+                .build());
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import java.time.Duration;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/**
+ * Per-template results of a batch generation, in request order.
+ */
+public final class BatchGenerationReport {
+    private final List<TemplateGenerationResult> results;
+    private final Duration elapsed;
+
+    BatchGenerationReport(List<TemplateGenerationResult> results, Duration elapsed) {
+        this.results = ImmutableList.copyOf(results);
+        this.elapsed = checkNotNull(elapsed, "elapsed is required");
+    }
+
+    public List<TemplateGenerationResult> getResults() {
+        return results;
+    }
+
+    public List<TemplateGenerationResult> getFailures() {
+        return results.stream().filter(result -> !result.isSuccess()).collect(toImmutableList());
+    }
+
+    public boolean isSuccess() {
+        return results.stream().allMatch(TemplateGenerationResult::isSuccess);
+    }
+
+    /**
+     * Wall-clock time for the whole batch.
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("templates", results.size())
+                .add("failures", getFailures().size())
+                .add("elapsed", elapsed)
+                .toString();
+    }
+}
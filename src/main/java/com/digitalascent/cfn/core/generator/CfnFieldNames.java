@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator;
+
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationService;
+import com.digitalascent.cfn.core.domain.CfnObject;
+import com.digitalascent.cfn.core.domain.CfnResource;
+import com.digitalascent.cfn.core.domain.PropertyPath;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.google.common.collect.MapMaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+
+/**
+ * Resolves and caches the JSON field names for CfnObject properties.
+ * <p>
+ * Names are resolved against the {@link ResourceSpecificationService} once per (resource type, property path, property
+ * name) and cached as pre-encoded {@link SerializableString}s; repeated lookups do not build path strings.
+ */
+final class CfnFieldNames {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final ResourceSpecificationService resourceSpecificationService;
+
+    private final PropertyNamingStrategy.UpperCamelCaseStrategy namingStrategy = new PropertyNamingStrategy.UpperCamelCaseStrategy();
+
+    private final Map<String, String> resourceAttributeMap;
+
+    private final ConcurrentMap<String, SerializableString> resourceAttributeNames = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<PropertyPath, ConcurrentMap<String, SerializableString>>> propertyNames = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, SerializableString> functionNames = new ConcurrentHashMap<>();
+
+    CfnFieldNames(ResourceSpecificationService resourceSpecificationService) {
+        this.resourceSpecificationService = checkNotNull(resourceSpecificationService, "resourceSpecificationService is required");
+
+        Set<String> resourceAttributes = new LinkedHashSet<>();
+        resourceAttributes.add("CreationPolicy");
+        resourceAttributes.add("DeletionPolicy");
+        resourceAttributes.add("UpdatePolicy");
+        resourceAttributes.add("DependsOn");
+        resourceAttributes.add("Metadata");
+        resourceAttributes.add("Type");
+        resourceAttributes.add("Properties");
+
+        resourceAttributeMap = resourceAttributes.stream().collect(toImmutableMap(String::toLowerCase, Function.identity()));
+    }
+
+    SerializableString fieldNameForProperty(String propertyName, CfnObject cfnObject) {
+        if (cfnObject instanceof CfnResource) {
+            SerializableString fieldName = resourceAttributeNames.get(propertyName);
+            return fieldName != null ? fieldName : resourceAttributeNames.computeIfAbsent(propertyName, this::resolveResourceAttribute);
+        }
+
+        ConcurrentMap<String, SerializableString> fieldNames = fieldNamesFor(cfnObject.getResourceType(), cfnObject.getPath());
+        SerializableString fieldName = fieldNames.get(propertyName);
+        return fieldName != null ? fieldName : fieldNames.computeIfAbsent(propertyName, name -> resolvePropertyName(cfnObject, name));
+    }
+
+    SerializableString fieldNameForFunction(String functionName) {
+        SerializableString fieldName = functionNames.get(functionName);
+        return fieldName != null ? fieldName : functionNames.computeIfAbsent(functionName, SerializedString::new);
+    }
+
+    private ConcurrentMap<String, SerializableString> fieldNamesFor(String resourceType, PropertyPath propertyPath) {
+        ConcurrentMap<PropertyPath, ConcurrentMap<String, SerializableString>> pathFieldNames = propertyNames.get(resourceType);
+        if (pathFieldNames == null) {
+            // weak keys, compared by identity: paths are interned, and a path's names are dropped with its last CfnObject
+            pathFieldNames = propertyNames.computeIfAbsent(resourceType, type -> new MapMaker().weakKeys().makeMap());
+        }
+        ConcurrentMap<String, SerializableString> fieldNames = pathFieldNames.get(propertyPath);
+        if (fieldNames == null) {
+            fieldNames = pathFieldNames.computeIfAbsent(propertyPath, path -> new ConcurrentHashMap<>());
+        }
+        return fieldNames;
+    }
+
+    private SerializableString resolveResourceAttribute(String propertyName) {
+        String retVal = resourceAttributeMap.get(propertyName.toLowerCase());
+        if (retVal == null) {
+            throw new RuntimeException(String.format("Unable to map resource attribute '%s'", propertyName));
+        }
+        return new SerializedString(retVal);
+    }
+
+    private SerializableString resolvePropertyName(CfnObject cfnObject, String propertyName) {
+        String propertyPath = cfnObject.getPath().child(propertyName).toString();
+        Optional<String> formalName = resourceSpecificationService.lookupPropertyName(cfnObject.getResourceType(), propertyPath);
+        if (formalName.isPresent()) {
+            return new SerializedString(formalName.get());
+        }
+        logger.warn("Unknown property name '{}' on type {} for path {}", propertyName, cfnObject.getResourceType(), propertyPath);
+
+        // fallback, uppercase the first character
+        return new SerializedString(namingStrategy.translate(propertyName));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator;
+
+import com.digitalascent.cfn.core.domain.CfnObject;
+import com.digitalascent.cfn.core.domain.IntrinsicFunction;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Streams a CfnObject model directly to a {@link JsonGenerator}.
+ * <p>
+ * CfnObjects, intrinsic functions, strings, collections and string-keyed maps are written without going back through
+ * Jackson's serializer lookup or copying property maps; anything else is handed to the {@link SerializerProvider}.
+ */
+final class CfnModelJsonWriter {
+    private final CfnFieldNames fieldNames;
+
+    CfnModelJsonWriter(CfnFieldNames fieldNames) {
+        this.fieldNames = checkNotNull(fieldNames, "fieldNames is required");
+    }
+
+    void writeCfnObject(CfnObject cfnObject, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        for (Map.Entry<String, Object> property : cfnObject.getPropertiesView().entrySet()) {
+            gen.writeFieldName(fieldNames.fieldNameForProperty(property.getKey(), cfnObject));
+            writeValue(property.getValue(), gen, provider);
+        }
+        gen.writeEndObject();
+    }
+
+    void writeIntrinsicFunction(IntrinsicFunction intrinsicFunction, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(fieldNames.fieldNameForFunction(intrinsicFunction.getFunctionName()));
+        writeValue(intrinsicFunction.getArguments(), gen, provider);
+        gen.writeEndObject();
+    }
+
+    @SuppressWarnings("unchecked")
+    void writeValue(@Nullable Object value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (value == null) {
+            provider.defaultSerializeNull(gen);
+        } else if (value instanceof String) {
+            gen.writeString((String) value);
+        } else if (value instanceof CfnObject) {
+            writeCfnObject((CfnObject) value, gen, provider);
+        } else if (value instanceof IntrinsicFunction) {
+            writeIntrinsicFunction((IntrinsicFunction) value, gen, provider);
+        } else if (value instanceof Collection) {
+            writeCollection((Collection<Object>) value, gen, provider);
+        } else if (value instanceof Map && hasStringKeys((Map<Object, Object>) value)) {
+            writeMap((Map<String, Object>) value, gen, provider);
+        } else {
+            provider.defaultSerializeValue(value, gen);
+        }
+    }
+
+    private void writeCollection(Collection<Object> collection, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartArray(collection.size());
+        if (collection instanceof List && collection instanceof RandomAccess) {
+            List<Object> list = (List<Object>) collection;
+            for (int i = 0; i < list.size(); i++) {
+                writeValue(list.get(i), gen, provider);
+            }
+        } else {
+            for (Object item : collection) {
+                writeValue(item, gen, provider);
+            }
+        }
+        gen.writeEndArray();
+    }
+
+    private void writeMap(Map<String, Object> map, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            gen.writeFieldName(entry.getKey());
+            writeValue(entry.getValue(), gen, provider);
+        }
+        gen.writeEndObject();
+    }
+
+    private static boolean hasStringKeys(Map<Object, Object> map) {
+        for (Object key : map.keySet()) {
+            if (!(key instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator;
+
+import com.digitalascent.core.base.SimpleApplicationObject;
+import com.google.common.hash.HashCode;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link FragmentCache} persisted as append-only segment files under a directory, {@code <dir>/fragments-*.pack}.
+ * <p>
+ * All segments are read once, on first use; one sequential read per segment beats opening a file per resource.
+ * {@link #flush()} writes only the fragments put since the previous flush, as a new segment, so generators (or JVMs)
+ * sharing a directory never overwrite each other's entries. Segments are written to a temporary file that is then
+ * moved into place, so readers never see a partial segment.
+ * <p>
+ * Once there are more than a handful of segments, a flush merges all but the largest into one. Once they exceed the size
+ * cap, a flush compacts them: entries not used within the maximum age are dropped, the most recently used entries are
+ * kept up to three quarters of the cap, and the segments that were read are replaced by the result. Either way, I/O is
+ * proportional to what was added rather than to the whole cache. Segments added by other processes in the meantime are
+ * left alone.
+ * <p>
+ * I/O errors and corrupt segments are logged and treated as misses. Fragments depend on the resource specification
+ * used for property names; {@link JsonCloudFormationGenerator} keys them by specification, so generators using
+ * different specifications can share a directory.
+ */
+public final class DiskFragmentCache extends SimpleApplicationObject implements FragmentCache {
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofDays(30);
+
+    private static final String SEGMENT_PREFIX = "fragments-";
+    private static final String SEGMENT_GLOB = "fragments-*.pack";
+    private static final int PACK_MAGIC = 0x43464e46;
+    private static final int PACK_VERSION = 2;
+    private static final int MAX_SEGMENTS = 16;
+    private static final int HEADER_BYTES = 12;
+    // per entry: key length, lastUsed, fragment length
+    private static final int ENTRY_OVERHEAD_BYTES = 13;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong writeCount = new AtomicLong();
+
+    private final Object lock = new Object();
+    @Nullable
+    private volatile Map<HashCode, CachedFragment> fragments;
+    // keys put since the last flush
+    private final Queue<HashCode> pending = new ConcurrentLinkedQueue<>();
+    // segments whose entries are in memory, with their sizes; guarded by lock
+    private final Map<Path, Long> segments = new LinkedHashMap<>();
+    // guarded by lock
+    private long segmentBytes;
+
+    public DiskFragmentCache(Path directory) {
+        this(directory, DEFAULT_MAX_BYTES, DEFAULT_MAX_AGE);
+    }
+
+    public DiskFragmentCache(Path directory, long maxBytes, Duration maxAge) {
+        checkArgument(maxBytes > 0, "maxBytes is required to be > 0: %s", maxBytes);
+        checkArgument(!maxAge.isNegative() && !maxAge.isZero(), "maxAge is required to be positive: %s", maxAge);
+        this.directory = checkNotNull(directory, "directory is required");
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAge.toMillis();
+    }
+
+    @Override
+    @Nullable
+    public byte[] get(HashCode key) {
+        CachedFragment fragment = fragments().get(key);
+        if (fragment == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        fragment.lastUsed = System.currentTimeMillis();
+        return fragment.bytes;
+    }
+
+    @Override
+    public void put(HashCode key, byte[] fragment) {
+        if (fragments().put(key, new CachedFragment(fragment, System.currentTimeMillis())) == null) {
+            pending.add(key);
+        }
+        writeCount.incrementAndGet();
+    }
+
+    @Override
+    public void flush() {
+        synchronized (lock) {
+            Map<HashCode, CachedFragment> current = fragments;
+            if (current == null || pending.isEmpty()) {
+                return;
+            }
+
+            Map<HashCode, CachedFragment> added = new LinkedHashMap<>();
+            for (HashCode key = pending.poll(); key != null; key = pending.poll()) {
+                CachedFragment fragment = current.get(key);
+                if (fragment != null) {
+                    added.put(key, fragment);
+                }
+            }
+
+            try {
+                Files.createDirectories(directory);
+                addSegment(writeSegment(added));
+                if (segmentBytes > maxBytes) {
+                    compact(current);
+                } else if (segments.size() > MAX_SEGMENTS) {
+                    mergeSmallSegments(current);
+                }
+            } catch (IOException e) {
+                getLogger().warn("Unable to write fragment segment in {}", directory, e);
+            }
+        }
+    }
+
+    @Override
+    public FragmentCacheStats stats() {
+        return new FragmentCacheStats(hitCount.get(), missCount.get(), writeCount.get());
+    }
+
+    private Map<HashCode, CachedFragment> fragments() {
+        Map<HashCode, CachedFragment> current = fragments;
+        if (current == null) {
+            synchronized (lock) {
+                current = fragments;
+                if (current == null) {
+                    current = readSegments();
+                    fragments = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // called with lock held
+    private void addSegment(Path segment) throws IOException {
+        long size = Files.size(segment);
+        segments.put(segment, size);
+        segmentBytes += size;
+    }
+
+    // called with lock held
+    private void compact(Map<HashCode, CachedFragment> current) throws IOException {
+        long cutoff = System.currentTimeMillis() - maxAgeMillis;
+        List<Map.Entry<HashCode, CachedFragment>> entries = new ArrayList<>(current.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<HashCode, CachedFragment> entry) -> entry.getValue().lastUsed).reversed());
+
+        // leave headroom so the next flushes do not immediately compact again
+        long budget = maxBytes / 4 * 3 - HEADER_BYTES;
+        Map<HashCode, CachedFragment> kept = new LinkedHashMap<>();
+        long bytes = 0;
+        for (Map.Entry<HashCode, CachedFragment> entry : entries) {
+            CachedFragment fragment = entry.getValue();
+            long size = entrySize(entry.getKey(), fragment);
+            if (fragment.lastUsed < cutoff || bytes + size > budget) {
+                // everything after this one is older, and most would not fit either
+                break;
+            }
+            kept.put(entry.getKey(), fragment);
+            bytes += size;
+        }
+
+        replaceSegments(new ArrayList<>(segments.keySet()), kept);
+        current.keySet().retainAll(kept.keySet());
+        getLogger().debug("Compacted fragment segments in {}: kept {} of {} fragments", directory, kept.size(), entries.size());
+    }
+
+    // called with lock held
+    private void mergeSmallSegments(Map<HashCode, CachedFragment> current) throws IOException {
+        Path largest = segments.entrySet().stream().max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse(null);
+        List<Path> small = new ArrayList<>(segments.keySet());
+        small.remove(largest);
+
+        Map<HashCode, CachedFragment> merged = new LinkedHashMap<>();
+        for (Path segment : small) {
+            if (!readSegment(segment, merged)) {
+                // leave segments we cannot read back untouched; their entries are already in memory
+                return;
+            }
+        }
+        // carry over recency from this process
+        merged.replaceAll((key, fragment) -> current.getOrDefault(key, fragment));
+
+        replaceSegments(small, merged);
+    }
+
+    // called with lock held
+    private void replaceSegments(List<Path> replaced, Map<HashCode, CachedFragment> entries) throws IOException {
+        Path replacement = writeSegment(entries);
+        for (Path segment : replaced) {
+            segmentBytes -= segments.remove(segment);
+            deleteQuietly(segment);
+        }
+        addSegment(replacement);
+    }
+
+    private static long entrySize(HashCode key, CachedFragment fragment) {
+        return key.bits() / Byte.SIZE + ENTRY_OVERHEAD_BYTES + fragment.bytes.length;
+    }
+
+    // called with lock held
+    private Map<HashCode, CachedFragment> readSegments() {
+        Map<HashCode, CachedFragment> loaded = new ConcurrentHashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_GLOB)) {
+            for (Path segment : stream) {
+                if (readSegment(segment, loaded)) {
+                    addSegment(segment);
+                }
+            }
+        } catch (NoSuchFileException | NotDirectoryException e) {
+            // EMPTY; nothing cached yet
+        } catch (IOException e) {
+            getLogger().warn("Unable to list fragment segments in {}", directory, e);
+        }
+        return loaded;
+    }
+
+    private boolean readSegment(Path segment, Map<HashCode, CachedFragment> loaded) {
+        Map<HashCode, CachedFragment> read = new ConcurrentHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment)))) {
+            if (in.readInt() != PACK_MAGIC || in.readInt() != PACK_VERSION) {
+                getLogger().warn("Ignoring fragment segment {} with unknown format", segment);
+                return false;
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[in.readUnsignedByte()];
+                in.readFully(key);
+                long lastUsed = in.readLong();
+                byte[] fragment = new byte[in.readInt()];
+                in.readFully(fragment);
+                read.put(HashCode.fromBytes(key), new CachedFragment(fragment, lastUsed));
+            }
+        } catch (NoSuchFileException e) {
+            // compacted away by another process since listing
+            return false;
+        } catch (EOFException e) {
+            // segments are moved into place complete, so this one is damaged for good
+            getLogger().warn("Deleting truncated fragment segment {}", segment);
+            deleteQuietly(segment);
+            return false;
+        } catch (IOException e) {
+            getLogger().warn("Unable to read fragment segment {}", segment, e);
+            return false;
+        }
+
+        read.forEach((key, fragment) -> loaded.merge(key, fragment, (a, b) -> a.lastUsed >= b.lastUsed ? a : b));
+        return true;
+    }
+
+    private void deleteQuietly(Path segment) {
+        try {
+            Files.deleteIfExists(segment);
+        } catch (IOException e) {
+            getLogger().warn("Unable to delete fragment segment {}", segment, e);
+        }
+    }
+
+    private Path writeSegment(Map<HashCode, CachedFragment> entries) throws IOException {
+        Path temp = Files.createTempFile(directory, SEGMENT_PREFIX, ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(PACK_MAGIC);
+                out.writeInt(PACK_VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<HashCode, CachedFragment> entry : entries.entrySet()) {
+                    byte[] key = entry.getKey().asBytes();
+                    CachedFragment fragment = entry.getValue();
+                    out.writeByte(key.length);
+                    out.write(key);
+                    out.writeLong(fragment.lastUsed);
+                    out.writeInt(fragment.bytes.length);
+                    out.write(fragment.bytes);
+                }
+            }
+
+            // unique per writer, so concurrent processes never replace each other's segments
+            Path segment = directory.resolve(SEGMENT_PREFIX + System.currentTimeMillis() + "-" + UUID.randomUUID() + ".pack");
+            moveIntoPlace(temp, segment);
+            return segment;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void moveIntoPlace(Path temp, Path path) throws IOException {
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path);
+        }
+    }
+
+    private static final class CachedFragment {
+        private final byte[] bytes;
+        // racy by design; a stale timestamp only affects which entries compaction keeps
+        private volatile long lastUsed;
+
+        CachedFragment(byte[] bytes, long lastUsed) {
+            this.bytes = bytes;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator;
+
+import com.google.common.hash.HashCode;
+
+import javax.annotation.Nullable;
+
+/**
+ * Serialized resource JSON fragments keyed by content hash; see {@link JsonCloudFormationGenerator}.
+ * <p>
+ * Implementations must be safe for concurrent use.
+ */
+public interface FragmentCache {
+    /**
+     * @return the UTF-8 encoded fragment, or null on a miss
+     */
+    @Nullable
+    byte[] get(HashCode key);
+
+    void put(HashCode key, byte[] fragment);
+
+    /**
+     * Persists fragments put since the last flush; called once per generated template.
+     */
+    void flush();
+
+    FragmentCacheStats stats();
+}
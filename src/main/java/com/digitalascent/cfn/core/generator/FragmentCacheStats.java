@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Point-in-time statistics for a {@link FragmentCache}.
+ */
+public final class FragmentCacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long writeCount;
+
+    FragmentCacheStats(long hitCount, long missCount, long writeCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.writeCount = writeCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getWriteCount() {
+        return writeCount;
+    }
+
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    public double getHitRate() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("hitCount", hitCount)
+                .add("missCount", missCount)
+                .add("writeCount", writeCount)
+                .add("hitRate", getHitRate())
+                .toString();
+    }
+}
@@ -23,6 +23,8 @@ import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 
 import java.io.IOException;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 /**
  * Jackson serializer that serializes CloudFormation intrinsic functions.
  */
@@ -30,15 +32,15 @@ final class IntrinsicFunctionSerializer extends StdSerializer<IntrinsicFunction>
 
     private static final long serialVersionUID = 84929048592303L;
 
-    IntrinsicFunctionSerializer() {
+    private final transient CfnModelJsonWriter writer;
+
+    IntrinsicFunctionSerializer(CfnModelJsonWriter writer) {
         super(IntrinsicFunction.class);
+        this.writer = checkNotNull(writer, "writer is required");
     }
 
     @Override
     public void serialize(IntrinsicFunction intrinsicFunction, JsonGenerator gen, SerializerProvider provider) throws IOException {
-        gen.writeStartObject();
-        gen.writeFieldName(intrinsicFunction.getFunctionName());
-        gen.writeObject(intrinsicFunction.getArguments());
-        gen.writeEndObject();
+        writer.writeIntrinsicFunction(intrinsicFunction, gen, provider);
     }
 }
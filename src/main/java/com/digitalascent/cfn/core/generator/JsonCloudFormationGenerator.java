@@ -17,49 +17,179 @@
 package com.digitalascent.cfn.core.generator;
 
 import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationService;
+import com.digitalascent.cfn.core.domain.CfnContentHash;
 import com.digitalascent.cfn.core.domain.CfnObject;
 import com.digitalascent.cfn.core.domain.IntrinsicFunction;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+/**
+ * Generates CloudFormation JSON using a Jackson mapper that is configured once, at construction.
+ * <p>
+ * With a {@link FragmentCache}, each resource of a template map is keyed by its {@link CfnContentHash} and the
+ * resource specification it is serialized with (property names come from the specification); unchanged resources are
+ * spliced in from the cache and only changed ones are serialized. Resources without a content hash are always
+ * serialized. Output is byte-identical either way.
+ * <p>
+ * {@link #generate(Map, OutputStream, boolean, TemplateLimits)} measures a template while streaming it, returning
+ * per-section and per-resource sizes and checking it against CloudFormation's limits, so it need not be serialized
+ * twice to find out whether it can be uploaded.
+ * <p>
+ * Instances are immutable and safe for concurrent {@link #generate(Object, OutputStream, boolean)} calls; share one
+ * instance across threads so Jackson's serializer caches are reused.
+ */
 public final class JsonCloudFormationGenerator implements CloudFormationGenerator {
+    // bump when the serialized form of a resource changes, invalidating existing cache entries
+    private static final int FRAGMENT_FORMAT_VERSION = 3;
 
-    private final ResourceSpecificationService resourceSpecificationService;
+    private final ObjectWriter compactWriter;
+    private final ObjectWriter prettyWriter;
+    private final TemplateFragments templateFragments;
+    @Nullable
+    private final FragmentCache fragmentCache;
+    private final String fragmentNamespace;
 
     public JsonCloudFormationGenerator(ResourceSpecificationService resourceSpecificationService) {
-        this.resourceSpecificationService = checkNotNull(resourceSpecificationService, "resourceSpecificationService is required");
+        this(createObjectMapper(checkNotNull(resourceSpecificationService, "resourceSpecificationService is required")), null, "");
+    }
+
+    /**
+     * Caches fragments under the service's specification version, so generators using different versions can share a
+     * cache.
+     */
+    public JsonCloudFormationGenerator(ResourceSpecificationService resourceSpecificationService, FragmentCache fragmentCache) {
+        this(resourceSpecificationService, fragmentCache,
+                checkNotNull(resourceSpecificationService, "resourceSpecificationService is required").getResourceSpecificationVersion());
+    }
+
+    /**
+     * Caches fragments under the given namespace, which must differ between specifications that name properties
+     * differently, e.g. a custom regional specification sharing a version number with the bundled one.
+     */
+    public JsonCloudFormationGenerator(ResourceSpecificationService resourceSpecificationService, FragmentCache fragmentCache,
+                                       String fragmentNamespace) {
+        this(createObjectMapper(checkNotNull(resourceSpecificationService, "resourceSpecificationService is required")),
+                checkNotNull(fragmentCache, "fragmentCache is required"),
+                checkNotNull(fragmentNamespace, "fragmentNamespace is required"));
+    }
+
+    private JsonCloudFormationGenerator(ObjectMapper mapper, @Nullable FragmentCache fragmentCache, String fragmentNamespace) {
+        this.compactWriter = mapper.writer();
+        this.prettyWriter = mapper.writer().with(SerializationFeature.INDENT_OUTPUT);
+        this.templateFragments = new TemplateFragments(mapper);
+        this.fragmentCache = fragmentCache;
+        this.fragmentNamespace = fragmentNamespace;
     }
 
     @Override
     public void generate(Object obj, OutputStream os, boolean prettyPrint) {
-        ObjectMapper mapper = new ObjectMapper();
-
-        mapper.configure(SerializationFeature.CLOSE_CLOSEABLE, false);
-        mapper.configure(SerializationFeature.FLUSH_AFTER_WRITE_VALUE, false);
-        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
-        mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        ObjectWriter writer = prettyPrint ? prettyWriter : compactWriter;
+        try {
+            if (fragmentCache != null && TemplateFragments.isTemplate(obj)) {
+                generateIncrementally((Map<?, ?>) obj, fragmentCache, os, prettyPrint);
+            } else {
+                writer.writeValue(os, obj);
+            }
 
-        if (prettyPrint) {
-            mapper.enable(SerializationFeature.INDENT_OUTPUT);
+            os.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
+    }
 
-        SimpleModule module = new SimpleModule();
-        module.addSerializer(CfnObject.class, new CfnObjectSerializer(resourceSpecificationService));
-        module.addSerializer(IntrinsicFunction.class, new IntrinsicFunctionSerializer());
-        mapper.registerModule(module);
-
+    /**
+     * Generates a template map, measuring it as it is written.
+     *
+     * @throws TemplateLimitExceededException if a limit is exceeded and {@code limits} are set to
+     *                                        {@link LimitAction#FAIL}; count limits are checked before anything is
+     *                                        written, the size limit as soon as it is crossed
+     */
+    public TemplateSizeReport generate(Map<String, ?> template, OutputStream os, boolean prettyPrint, TemplateLimits limits) {
+        checkArgument(TemplateFragments.isTemplate(template), "template requires a Resources map");
+        TemplateSizeAccounting accounting = new TemplateSizeAccounting(checkNotNull(limits, "limits is required"));
+        accounting.checkCounts(template);
         try {
-            mapper.writeValue(os, obj);
+            String[] fragments = fragmentCache == null ? null : cachedFragments(template, fragmentCache, prettyPrint);
+            templateFragments.writeTemplate(template, fragments, os, prettyPrint, accounting);
+            if (fragmentCache != null) {
+                fragmentCache.flush();
+            }
 
             os.flush();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        return accounting.report();
+    }
+
+    private void generateIncrementally(Map<?, ?> template, FragmentCache cache, OutputStream os, boolean prettyPrint) throws IOException {
+        templateFragments.writeTemplate(template, cachedFragments(template, cache, prettyPrint), os, prettyPrint);
+        cache.flush();
+    }
+
+    private String[] cachedFragments(Map<?, ?> template, FragmentCache cache, boolean prettyPrint) throws IOException {
+        Map<?, ?> resources = (Map<?, ?>) template.get(TemplateFragments.RESOURCES);
+        String[] fragments = new String[resources.size()];
+        int i = 0;
+        for (Object resource : resources.values()) {
+            HashCode key = fragmentKey(resource, prettyPrint);
+            byte[] cached = key == null ? null : cache.get(key);
+            if (cached != null) {
+                fragments[i++] = new String(cached, StandardCharsets.UTF_8);
+                continue;
+            }
+
+            String fragment = templateFragments.serializeResource(resource, prettyPrint);
+            if (key != null) {
+                cache.put(key, fragment.getBytes(StandardCharsets.UTF_8));
+            }
+            fragments[i++] = fragment;
+        }
+
+        return fragments;
+    }
+
+    @Nullable
+    private HashCode fragmentKey(Object resource, boolean prettyPrint) {
+        Optional<HashCode> contentHash = CfnContentHash.of(resource);
+        if (!contentHash.isPresent()) {
+            return null;
+        }
+        return Hashing.murmur3_128().newHasher()
+                .putInt(FRAGMENT_FORMAT_VERSION)
+                .putString(fragmentNamespace, StandardCharsets.UTF_8)
+                .putBoolean(prettyPrint)
+                .putBytes(contentHash.get().asBytes())
+                .hash();
+    }
+
+    static ObjectMapper createObjectMapper(ResourceSpecificationService resourceSpecificationService) {
+        ObjectMapper mapper = new ObjectMapper();
+
+        mapper.configure(SerializationFeature.CLOSE_CLOSEABLE, false);
+        mapper.configure(SerializationFeature.FLUSH_AFTER_WRITE_VALUE, false);
+        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+
+        CfnModelJsonWriter writer = new CfnModelJsonWriter(new CfnFieldNames(resourceSpecificationService));
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(CfnObject.class, new CfnObjectSerializer(writer));
+        module.addSerializer(IntrinsicFunction.class, new IntrinsicFunctionSerializer(writer));
+        mapper.registerModule(module);
+        return mapper;
     }
 }
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator;
+
+/**
+ * What to do when a template exceeds one of its {@link TemplateLimits}.
+ */
+public enum LimitAction {
+    /**
+     * Stop generating and throw {@link TemplateLimitExceededException}; the output is left incomplete.
+     */
+    FAIL,
+
+    /**
+     * Log a warning, record the violation in the {@link TemplateSizeReport} and keep generating.
+     */
+    WARN
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator;
+
+import com.google.common.base.MoreObjects;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A template limit that was exceeded; for {@link TemplateLimit#TEMPLATE_BYTES} the actual value is the size at the
+ * point the limit was crossed, not the final size.
+ */
+public final class LimitViolation {
+    private final TemplateLimit limit;
+    private final long max;
+    private final long actual;
+
+    LimitViolation(TemplateLimit limit, long max, long actual) {
+        this.limit = checkNotNull(limit, "limit is required");
+        this.max = max;
+        this.actual = actual;
+    }
+
+    public TemplateLimit getLimit() {
+        return limit;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getActual() {
+        return actual;
+    }
+
+    String getMessage() {
+        return "Template exceeds " + limit + " limit: " + actual + " > " + max;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("limit", limit)
+                .add("max", max)
+                .add("actual", actual)
+                .toString();
+    }
+}
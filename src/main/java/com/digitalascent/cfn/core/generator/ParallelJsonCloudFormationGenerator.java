@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator;
+
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Generates CloudFormation JSON, serializing the resources of a template concurrently.
+ * <p>
+ * When the object being generated is a template map with a {@code Resources} map, each resource is serialized into its
+ * own buffer on a {@link ForkJoinPool}; the buffers are then written into the document in their original order.
+ * Output is byte-identical to {@link JsonCloudFormationGenerator}. Any other object is serialized sequentially.
+ * <p>
+ * Instances are safe for concurrent use.
+ */
+public final class ParallelJsonCloudFormationGenerator implements CloudFormationGenerator {
+    // resources serialized per fork-join leaf task
+    private static final int BATCH_SIZE = 8;
+
+    private final TemplateFragments templateFragments;
+    private final ObjectWriter compactWriter;
+    private final ObjectWriter prettyWriter;
+    private final ForkJoinPool pool;
+
+    public ParallelJsonCloudFormationGenerator(ResourceSpecificationService resourceSpecificationService) {
+        this(resourceSpecificationService, ForkJoinPool.commonPool());
+    }
+
+    public ParallelJsonCloudFormationGenerator(ResourceSpecificationService resourceSpecificationService, ForkJoinPool pool) {
+        checkNotNull(resourceSpecificationService, "resourceSpecificationService is required");
+        this.pool = checkNotNull(pool, "pool is required");
+        ObjectMapper mapper = JsonCloudFormationGenerator.createObjectMapper(resourceSpecificationService);
+        this.templateFragments = new TemplateFragments(mapper);
+        this.compactWriter = mapper.writer();
+        this.prettyWriter = mapper.writer().with(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    @Override
+    public void generate(Object obj, OutputStream os, boolean prettyPrint) {
+        try {
+            if (TemplateFragments.isTemplate(obj)) {
+                generateTemplate((Map<?, ?>) obj, os, prettyPrint);
+            } else {
+                (prettyPrint ? prettyWriter : compactWriter).writeValue(os, obj);
+            }
+
+            os.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void generateTemplate(Map<?, ?> template, OutputStream os, boolean prettyPrint) throws IOException {
+        Object[] resources = ((Map<?, ?>) template.get(TemplateFragments.RESOURCES)).values().toArray();
+        String[] fragments = new String[resources.length];
+        pool.invoke(new SerializeResources(resources, fragments, 0, resources.length, prettyPrint));
+
+        templateFragments.writeTemplate(template, fragments, os, prettyPrint);
+    }
+
+    private final class SerializeResources extends RecursiveAction {
+        private static final long serialVersionUID = 2093847562341L;
+
+        private final transient Object[] resources;
+        private final String[] fragments;
+        private final int from;
+        private final int to;
+        private final boolean prettyPrint;
+
+        SerializeResources(Object[] resources, String[] fragments, int from, int to, boolean prettyPrint) {
+            this.resources = resources;
+            this.fragments = fragments;
+            this.from = from;
+            this.to = to;
+            this.prettyPrint = prettyPrint;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_SIZE) {
+                for (int i = from; i < to; i++) {
+                    try {
+                        fragments[i] = templateFragments.serializeResource(resources[i], prettyPrint);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new SerializeResources(resources, fragments, from, mid, prettyPrint),
+                    new SerializeResources(resources, fragments, mid, to, prettyPrint));
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Serializes the resources of a template map as standalone JSON fragments and writes the template with the fragments
+ * spliced in; the result is byte-identical to serializing the template in one go.
+ */
+final class TemplateFragments {
+    static final String RESOURCES = "Resources";
+
+    // resources are values in the Resources map, itself a value in the template map
+    private static final int RESOURCE_NESTING = 2;
+
+    private final ObjectMapper mapper;
+
+    TemplateFragments(ObjectMapper mapper) {
+        this.mapper = checkNotNull(mapper, "mapper is required");
+    }
+
+    /**
+     * True for a string-keyed map with a string-keyed {@code Resources} map.
+     */
+    static boolean isTemplate(Object obj) {
+        if (!(obj instanceof Map)) {
+            return false;
+        }
+        Map<?, ?> template = (Map<?, ?>) obj;
+        Object resources = template.get(RESOURCES);
+        return resources instanceof Map && hasStringKeys(template) && hasStringKeys((Map<?, ?>) resources);
+    }
+
+    private static boolean hasStringKeys(Map<?, ?> map) {
+        for (Object key : map.keySet()) {
+            if (!(key instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String serializeResource(Object resource, boolean prettyPrint) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(writer)) {
+            if (prettyPrint) {
+                gen.setPrettyPrinter(new NestedPrettyPrinter(RESOURCE_NESTING));
+            }
+            mapper.writeValue(gen, resource);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * @param fragments serialized resources, in {@code Resources} map order
+     */
+    void writeTemplate(Map<?, ?> template, String[] fragments, OutputStream os, boolean prettyPrint) throws IOException {
+        writeTemplate(template, fragments, os, prettyPrint, null);
+    }
+
+    /**
+     * @param fragments  serialized resources, in {@code Resources} map order; if null, resources are serialized in place
+     * @param accounting if not null, measures each section and resource as it is written
+     */
+    void writeTemplate(Map<?, ?> template, @Nullable String[] fragments, OutputStream os, boolean prettyPrint,
+                       @Nullable TemplateSizeAccounting accounting) throws IOException {
+        OutputStream target = accounting == null ? os : accounting.count(os);
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(target, JsonEncoding.UTF8)) {
+            if (prettyPrint) {
+                gen.setPrettyPrinter(new DefaultPrettyPrinter());
+            }
+
+            gen.writeStartObject();
+            for (Map.Entry<?, ?> entry : template.entrySet()) {
+                long start = accounting == null ? 0 : accounting.position(gen);
+                gen.writeFieldName((String) entry.getKey());
+                if (RESOURCES.equals(entry.getKey())) {
+                    writeResources(gen, (Map<?, ?>) entry.getValue(), fragments, accounting);
+                } else {
+                    mapper.writeValue(gen, entry.getValue());
+                }
+                if (accounting != null) {
+                    accounting.sectionWritten((String) entry.getKey(), start, accounting.position(gen));
+                }
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    private void writeResources(JsonGenerator gen, Map<?, ?> resources, @Nullable String[] fragments,
+                                @Nullable TemplateSizeAccounting accounting) throws IOException {
+        gen.writeStartObject();
+        int i = 0;
+        for (Map.Entry<?, ?> entry : resources.entrySet()) {
+            long start = accounting == null ? 0 : accounting.position(gen);
+            gen.writeFieldName((String) entry.getKey());
+            if (fragments == null) {
+                mapper.writeValue(gen, entry.getValue());
+            } else {
+                gen.writeRawValue(fragments[i++]);
+            }
+            if (accounting != null) {
+                accounting.resourceWritten((String) entry.getKey(), start, accounting.position(gen));
+            }
+        }
+        gen.writeEndObject();
+    }
+
+    /**
+     * Pretty printer that starts at a given nesting level, so fragments indent as if written in place.
+     */
+    private static final class NestedPrettyPrinter extends DefaultPrettyPrinter {
+        private static final long serialVersionUID = 7729384756102L;
+
+        NestedPrettyPrinter(int nesting) {
+            _nesting = nesting;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator;
+
+import com.google.common.base.MoreObjects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+/**
+ * A template model to generate, and where to write it.
+ */
+public final class TemplateGenerationRequest {
+    private final String name;
+    private final Object model;
+    private final TemplateDestination destination;
+
+    public TemplateGenerationRequest(String name, Object model, TemplateDestination destination) {
+        checkArgument(!isNullOrEmpty(name), "name is required to be non-null & not empty: %s", name);
+        this.name = name;
+        this.model = checkNotNull(model, "model is required");
+        this.destination = checkNotNull(destination, "destination is required");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Object getModel() {
+        return model;
+    }
+
+    public TemplateDestination getDestination() {
+        return destination;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("name", name)
+                .toString();
+    }
+}
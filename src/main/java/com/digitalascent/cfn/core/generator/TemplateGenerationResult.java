@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Outcome of generating a single template in a batch.
+ */
+public final class TemplateGenerationResult {
+    private final String name;
+    private final Duration elapsed;
+    @Nullable
+    private final Throwable failure;
+
+    TemplateGenerationResult(String name, Duration elapsed, @Nullable Throwable failure) {
+        this.name = checkNotNull(name, "name is required");
+        this.elapsed = checkNotNull(elapsed, "elapsed is required");
+        this.failure = failure;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    @Nullable
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("name", name)
+                .add("elapsed", elapsed)
+                .add("failure", failure)
+                .toString();
+    }
+}
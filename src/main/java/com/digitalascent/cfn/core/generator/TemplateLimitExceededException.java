@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Thrown when a template exceeds a {@link TemplateLimits} configured to {@link LimitAction#FAIL}.
+ */
+public final class TemplateLimitExceededException extends RuntimeException {
+    private static final long serialVersionUID = 5528340917263L;
+
+    private final transient LimitViolation violation;
+
+    TemplateLimitExceededException(LimitViolation violation) {
+        super(checkNotNull(violation, "violation is required").getMessage());
+        this.violation = violation;
+    }
+
+    public LimitViolation getViolation() {
+        return violation;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator;
+
+import com.google.common.base.MoreObjects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Configurable size and count limits for a generated template.
+ * <p>
+ * The defaults are CloudFormation's published limits: a template body of 51,200 bytes when passed directly, 460,800
+ * bytes when uploaded to S3, 200 resources, 60 parameters, 60 outputs and 100 mappings.
+ */
+public final class TemplateLimits {
+    private static final long MAX_DIRECT_TEMPLATE_BYTES = 51_200;
+    private static final long MAX_S3_TEMPLATE_BYTES = 460_800;
+    private static final int MAX_RESOURCES = 200;
+    private static final int MAX_PARAMETERS = 60;
+    private static final int MAX_OUTPUTS = 60;
+    private static final int MAX_MAPPINGS = 100;
+
+    private final long maxTemplateBytes;
+    private final int maxResources;
+    private final int maxParameters;
+    private final int maxOutputs;
+    private final int maxMappings;
+    private final LimitAction action;
+
+    public TemplateLimits(long maxTemplateBytes, int maxResources, int maxParameters, int maxOutputs, int maxMappings, LimitAction action) {
+        checkArgument(maxTemplateBytes > 0, "maxTemplateBytes must be positive: %s", maxTemplateBytes);
+        checkArgument(maxResources > 0, "maxResources must be positive: %s", maxResources);
+        checkArgument(maxParameters >= 0, "maxParameters must not be negative: %s", maxParameters);
+        checkArgument(maxOutputs >= 0, "maxOutputs must not be negative: %s", maxOutputs);
+        checkArgument(maxMappings >= 0, "maxMappings must not be negative: %s", maxMappings);
+        this.maxTemplateBytes = maxTemplateBytes;
+        this.maxResources = maxResources;
+        this.maxParameters = maxParameters;
+        this.maxOutputs = maxOutputs;
+        this.maxMappings = maxMappings;
+        this.action = checkNotNull(action, "action is required");
+    }
+
+    /**
+     * Limits for a template body passed directly to CloudFormation.
+     */
+    public static TemplateLimits direct(LimitAction action) {
+        return new TemplateLimits(MAX_DIRECT_TEMPLATE_BYTES, MAX_RESOURCES, MAX_PARAMETERS, MAX_OUTPUTS, MAX_MAPPINGS, action);
+    }
+
+    /**
+     * Limits for a template uploaded to S3 and referenced by URL.
+     */
+    public static TemplateLimits s3(LimitAction action) {
+        return new TemplateLimits(MAX_S3_TEMPLATE_BYTES, MAX_RESOURCES, MAX_PARAMETERS, MAX_OUTPUTS, MAX_MAPPINGS, action);
+    }
+
+    public long getMaxTemplateBytes() {
+        return maxTemplateBytes;
+    }
+
+    public int getMaxResources() {
+        return maxResources;
+    }
+
+    public int getMaxParameters() {
+        return maxParameters;
+    }
+
+    public int getMaxOutputs() {
+        return maxOutputs;
+    }
+
+    public int getMaxMappings() {
+        return maxMappings;
+    }
+
+    public LimitAction getAction() {
+        return action;
+    }
+
+    long getMax(TemplateLimit limit) {
+        switch (limit) {
+            case TEMPLATE_BYTES:
+                return maxTemplateBytes;
+            case RESOURCES:
+                return maxResources;
+            case PARAMETERS:
+                return maxParameters;
+            case OUTPUTS:
+                return maxOutputs;
+            case MAPPINGS:
+                return maxMappings;
+            default:
+                throw new IllegalArgumentException("Unknown limit " + limit);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("maxTemplateBytes", maxTemplateBytes)
+                .add("maxResources", maxResources)
+                .add("maxParameters", maxParameters)
+                .add("maxOutputs", maxOutputs)
+                .add("maxMappings", maxMappings)
+                .add("action", action)
+                .toString();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.common.io.CountingOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Measures a template as it is written and checks it against {@link TemplateLimits}.
+ * <p>
+ * Bytes are counted by a {@link CountingOutputStream} under the {@link JsonGenerator} plus whatever the generator still
+ * has buffered, so nothing is flushed early and the document is never held in memory. Count limits are checked up
+ * front, before anything is written; the size limit is checked after each section and resource. Not thread-safe; one
+ * instance per template.
+ */
+final class TemplateSizeAccounting {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TemplateSizeAccounting.class);
+
+    private static final String PARAMETERS = "Parameters";
+    private static final String OUTPUTS = "Outputs";
+    private static final String MAPPINGS = "Mappings";
+
+    private final TemplateLimits limits;
+    private final Map<String, Long> sectionBytes = new LinkedHashMap<>();
+    private final Map<String, Long> resourceBytes = new LinkedHashMap<>();
+    private final List<LimitViolation> violations = new ArrayList<>();
+    private CountingOutputStream countingStream;
+    private boolean templateBytesExceeded;
+
+    TemplateSizeAccounting(TemplateLimits limits) {
+        this.limits = checkNotNull(limits, "limits is required");
+    }
+
+    void checkCounts(Map<?, ?> template) {
+        check(TemplateLimit.RESOURCES, sizeOf(template.get(TemplateFragments.RESOURCES)));
+        check(TemplateLimit.PARAMETERS, sizeOf(template.get(PARAMETERS)));
+        check(TemplateLimit.OUTPUTS, sizeOf(template.get(OUTPUTS)));
+        check(TemplateLimit.MAPPINGS, sizeOf(template.get(MAPPINGS)));
+    }
+
+    private static int sizeOf(Object section) {
+        return section instanceof Map ? ((Map<?, ?>) section).size() : 0;
+    }
+
+    OutputStream count(OutputStream os) {
+        countingStream = new CountingOutputStream(os);
+        return countingStream;
+    }
+
+    /**
+     * Bytes written so far, including those still buffered in the generator.
+     */
+    long position(JsonGenerator gen) {
+        checkState(countingStream != null, "count() not called");
+        return countingStream.getCount() + Math.max(gen.getOutputBuffered(), 0);
+    }
+
+    void sectionWritten(String sectionName, long start, long end) {
+        sectionBytes.put(sectionName, end - start);
+        checkTemplateBytes(end);
+    }
+
+    void resourceWritten(String resourceName, long start, long end) {
+        resourceBytes.put(resourceName, end - start);
+        checkTemplateBytes(end);
+    }
+
+    private void checkTemplateBytes(long written) {
+        // only report the first crossing when warning
+        if (!templateBytesExceeded && written > limits.getMaxTemplateBytes()) {
+            templateBytesExceeded = true;
+            check(TemplateLimit.TEMPLATE_BYTES, written);
+        }
+    }
+
+    private void check(TemplateLimit limit, long actual) {
+        long max = limits.getMax(limit);
+        if (actual <= max) {
+            return;
+        }
+
+        LimitViolation violation = new LimitViolation(limit, max, actual);
+        if (limits.getAction() == LimitAction.FAIL) {
+            throw new TemplateLimitExceededException(violation);
+        }
+        LOGGER.warn(violation.getMessage());
+        violations.add(violation);
+    }
+
+    /**
+     * Call once the generator is closed.
+     */
+    TemplateSizeReport report() {
+        checkState(countingStream != null, "count() not called");
+        long totalBytes = countingStream.getCount();
+        checkTemplateBytes(totalBytes);
+        return new TemplateSizeReport(totalBytes, sectionBytes, resourceBytes, violations);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/**
+ * Sizes of a generated template, measured while it was written.
+ * <p>
+ * Section and resource sizes are the encoded UTF-8 bytes from the start of the field name to the end of its value,
+ * including any separator and indentation written before them; they add up to slightly less than the total, which also
+ * counts the enclosing braces.
+ */
+public final class TemplateSizeReport {
+    private final long totalBytes;
+    private final Map<String, Long> sectionBytes;
+    private final Map<String, Long> resourceBytes;
+    private final List<LimitViolation> violations;
+
+    TemplateSizeReport(long totalBytes, Map<String, Long> sectionBytes, Map<String, Long> resourceBytes, List<LimitViolation> violations) {
+        this.totalBytes = totalBytes;
+        this.sectionBytes = ImmutableMap.copyOf(checkNotNull(sectionBytes, "sectionBytes is required"));
+        this.resourceBytes = ImmutableMap.copyOf(checkNotNull(resourceBytes, "resourceBytes is required"));
+        this.violations = ImmutableList.copyOf(checkNotNull(violations, "violations is required"));
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Bytes per top-level section, e.g. {@code Parameters}, {@code Resources}, in template order.
+     */
+    public Map<String, Long> getSectionBytes() {
+        return sectionBytes;
+    }
+
+    /**
+     * Bytes per resource, in template order.
+     */
+    public Map<String, Long> getResourceBytes() {
+        return resourceBytes;
+    }
+
+    /**
+     * Names of the largest resources, largest first; the first candidates to move into a nested stack.
+     */
+    public List<String> getLargestResources(int limit) {
+        checkArgument(limit >= 0, "limit must not be negative: %s", limit);
+        return resourceBytes.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(toImmutableList());
+    }
+
+    /**
+     * Limits exceeded with {@link LimitAction#WARN}.
+     */
+    public List<LimitViolation> getViolations() {
+        return violations;
+    }
+
+    public boolean isWithinLimits() {
+        return violations.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("totalBytes", totalBytes)
+                .add("sectionBytes", sectionBytes)
+                .add("resources", resourceBytes.size())
+                .add("violations", violations)
+                .toString();
+    }
+}
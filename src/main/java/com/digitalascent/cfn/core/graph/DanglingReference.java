@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.graph;
+
+import com.google.common.base.MoreObjects;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A reference from a resource to a name that is neither a resource, a known parameter nor a pseudo parameter.
+ */
+public final class DanglingReference {
+    private final String resourceName;
+    private final String referencedName;
+    private final String referenceType;
+
+    DanglingReference(String resourceName, String referencedName, String referenceType) {
+        this.resourceName = checkNotNull(resourceName, "resourceName is required");
+        this.referencedName = checkNotNull(referencedName, "referencedName is required");
+        this.referenceType = checkNotNull(referenceType, "referenceType is required");
+    }
+
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    public String getReferencedName() {
+        return referencedName;
+    }
+
+    /**
+     * Ref, Fn::GetAtt, Fn::Sub or DependsOn.
+     */
+    public String getReferenceType() {
+        return referenceType;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("resourceName", resourceName)
+                .add("referencedName", referencedName)
+                .add("referenceType", referenceType)
+                .toString();
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.graph;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+public final class DependencyCycleException extends RuntimeException {
+    private static final long serialVersionUID = 6125837740815620377L;
+    private final ImmutableList<ImmutableList<String>> cycles;
+
+    DependencyCycleException(ImmutableList<ImmutableList<String>> cycles) {
+        super("Resource dependency cycles: " + cycles);
+        this.cycles = cycles;
+    }
+
+    public List<ImmutableList<String>> getCycles() {
+        return cycles;
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.graph;
+
+import com.digitalascent.cfn.core.domain.CfnResource;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Resource dependency graph of a template, built in a single pass over the resource trees.
+ * <p>
+ * Edges come from Ref, Fn::GetAtt, {@code ${Name}} / {@code ${Name.Attribute}} tokens in Fn::Sub and DependsOn; an
+ * edge A -> B means A depends on B. Building, ordering and cycle detection are all O(resources + references).
+ */
+public final class DependencyGraph {
+    private static final String PSEUDO_PARAMETER_PREFIX = "AWS::";
+    private static final String RESOURCES = "Resources";
+    private static final String PARAMETERS = "Parameters";
+
+    private final ImmutableList<String> resourceNames;
+    private final ImmutableMap<String, Integer> resourceIds;
+    private final int[][] dependencies;
+    private final int[][] dependents;
+    private final ImmutableList<DanglingReference> danglingReferences;
+
+    private DependencyGraph(List<CfnResource> resources, Set<String> parameterNames) {
+        ImmutableMap.Builder<String, Integer> ids = ImmutableMap.builder();
+        ImmutableList.Builder<String> names = ImmutableList.builder();
+        for (int i = 0; i < resources.size(); i++) {
+            String name = resources.get(i).getResourceName();
+            ids.put(name, i);
+            names.add(name);
+        }
+        this.resourceIds = ids.build();
+        this.resourceNames = names.build();
+
+        int count = resources.size();
+        this.dependencies = new int[count][];
+        int[] dependentCounts = new int[count];
+        ImmutableList.Builder<DanglingReference> dangling = ImmutableList.builder();
+
+        EdgeCollector edges = new EdgeCollector(parameterNames, dangling);
+        for (int source = 0; source < count; source++) {
+            edges.source = source;
+            edges.edgeCount = 0;
+            ReferenceCollector.collect(resources.get(source), edges);
+            dependencies[source] = Arrays.copyOf(edges.targets, edges.edgeCount);
+            for (int target : dependencies[source]) {
+                dependentCounts[target]++;
+            }
+        }
+        this.danglingReferences = dangling.build();
+
+        this.dependents = new int[count][];
+        for (int i = 0; i < count; i++) {
+            dependents[i] = new int[dependentCounts[i]];
+        }
+        int[] filled = new int[count];
+        for (int source = 0; source < count; source++) {
+            for (int target : dependencies[source]) {
+                dependents[target][filled[target]++] = source;
+            }
+        }
+    }
+
+    public static DependencyGraph of(Collection<CfnResource> resources) {
+        return of(resources, ImmutableSet.of());
+    }
+
+    /**
+     * @param parameterNames names that Ref and Fn::Sub may reference without being reported as dangling
+     */
+    public static DependencyGraph of(Collection<CfnResource> resources, Set<String> parameterNames) {
+        checkNotNull(resources, "resources is required");
+        checkNotNull(parameterNames, "parameterNames is required");
+        return new DependencyGraph(ImmutableList.copyOf(resources), parameterNames);
+    }
+
+    /**
+     * Graph of the CfnResource values in a template map's {@code Resources}; {@code Parameters} keys are known names.
+     */
+    public static DependencyGraph ofTemplate(Map<String, ?> template) {
+        checkNotNull(template, "template is required");
+        ImmutableList.Builder<CfnResource> resources = ImmutableList.builder();
+        Object resourceMap = template.get(RESOURCES);
+        if (resourceMap instanceof Map) {
+            for (Object resource : ((Map<?, ?>) resourceMap).values()) {
+                if (resource instanceof CfnResource) {
+                    resources.add((CfnResource) resource);
+                }
+            }
+        }
+
+        ImmutableSet.Builder<String> parameterNames = ImmutableSet.builder();
+        Object parameterMap = template.get(PARAMETERS);
+        if (parameterMap instanceof Map) {
+            ((Map<?, ?>) parameterMap).keySet().forEach(name -> parameterNames.add(String.valueOf(name)));
+        }
+        return new DependencyGraph(resources.build(), parameterNames.build());
+    }
+
+    private static boolean isExternal(String referencedName, String referenceType, Set<String> parameterNames) {
+        if (ReferenceCollector.GET_ATT.equals(referenceType) || ReferenceCollector.DEPENDS_ON.equals(referenceType)) {
+            // only resources have attributes or can be depended on
+            return false;
+        }
+        return referencedName.startsWith(PSEUDO_PARAMETER_PREFIX) || parameterNames.contains(referencedName);
+    }
+
+    /**
+     * Resource names, in the order given.
+     */
+    public List<String> getResourceNames() {
+        return resourceNames;
+    }
+
+    /**
+     * Resources the named resource depends on.
+     */
+    public Set<String> getDependencies(String resourceName) {
+        return namesOf(dependencies[idOf(resourceName)]);
+    }
+
+    /**
+     * Resources that depend on the named resource.
+     */
+    public Set<String> getDependents(String resourceName) {
+        return namesOf(dependents[idOf(resourceName)]);
+    }
+
+    public int getEdgeCount() {
+        int edges = 0;
+        for (int[] edge : dependencies) {
+            edges += edge.length;
+        }
+        return edges;
+    }
+
+    /**
+     * References to names that are not resources, known parameters or pseudo parameters.
+     */
+    public List<DanglingReference> getDanglingReferences() {
+        return danglingReferences;
+    }
+
+    public boolean hasCycles() {
+        return !getCycles().isEmpty();
+    }
+
+    /**
+     * Each cycle is a strongly connected set of resources (or a resource depending on itself), in resource order.
+     */
+    public List<ImmutableList<String>> getCycles() {
+        return new CycleFinder().find();
+    }
+
+    /**
+     * Resources ordered so that every resource comes after the resources it depends on; ties keep the given order.
+     *
+     * @throws DependencyCycleException if the graph has cycles
+     */
+    public List<String> getTopologicalOrder() {
+        int count = resourceNames.size();
+        int[] outstanding = new int[count];
+        Deque<Integer> ready = new ArrayDeque<>();
+        for (int i = 0; i < count; i++) {
+            outstanding[i] = dependencies[i].length;
+            if (outstanding[i] == 0) {
+                ready.add(i);
+            }
+        }
+
+        ImmutableList.Builder<String> order = ImmutableList.builder();
+        int ordered = 0;
+        while (!ready.isEmpty()) {
+            int id = ready.poll();
+            order.add(resourceNames.get(id));
+            ordered++;
+            for (int dependent : dependents[id]) {
+                if (--outstanding[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (ordered < count) {
+            throw new DependencyCycleException(ImmutableList.copyOf(getCycles()));
+        }
+        return order.build();
+    }
+
+    int size() {
+        return resourceNames.size();
+    }
+
+    int[] dependencyIds(int id) {
+        return dependencies[id];
+    }
+
+    int[] dependentIds(int id) {
+        return dependents[id];
+    }
+
+    String nameOf(int id) {
+        return resourceNames.get(id);
+    }
+
+    int idOf(String resourceName) {
+        Integer id = resourceIds.get(resourceName);
+        checkArgument(id != null, "Unknown resource: %s", resourceName);
+        return id;
+    }
+
+    private Set<String> namesOf(int[] ids) {
+        ImmutableSet.Builder<String> names = ImmutableSet.builder();
+        for (int id : ids) {
+            names.add(resourceNames.get(id));
+        }
+        return names.build();
+    }
+
+    @Override
+    public String toString() {
+        return "DependencyGraph{resources=" + resourceNames.size() + ", edges=" + getEdgeCount() + ", dangling=" + danglingReferences.size() + '}';
+    }
+
+    /**
+     * Collects the edges of one source resource at a time; edges are de-duplicated with a per-target stamp of the last
+     * source that added them.
+     */
+    private final class EdgeCollector implements ReferenceCollector.ReferenceVisitor {
+        private final Set<String> parameterNames;
+        private final ImmutableList.Builder<DanglingReference> dangling;
+        private final int[] lastSource = new int[resourceNames.size()];
+        private int[] targets = new int[8];
+        private int source;
+        private int edgeCount;
+
+        EdgeCollector(Set<String> parameterNames, ImmutableList.Builder<DanglingReference> dangling) {
+            this.parameterNames = parameterNames;
+            this.dangling = dangling;
+            Arrays.fill(lastSource, -1);
+        }
+
+        @Override
+        public void reference(String referencedName, String referenceType) {
+            Integer target = resourceIds.get(referencedName);
+            if (target == null) {
+                if (!isExternal(referencedName, referenceType, parameterNames)) {
+                    dangling.add(new DanglingReference(resourceNames.get(source), referencedName, referenceType));
+                }
+                return;
+            }
+            if (lastSource[target] == source) {
+                return;
+            }
+            lastSource[target] = source;
+            if (edgeCount == targets.length) {
+                targets = Arrays.copyOf(targets, targets.length * 2);
+            }
+            targets[edgeCount++] = target;
+        }
+    }
+
+    /**
+     * Iterative Tarjan strongly-connected-components; no recursion, so long dependency chains are fine.
+     */
+    private final class CycleFinder {
+        private final int count = resourceNames.size();
+        private final int[] index = new int[count];
+        private final int[] lowLink = new int[count];
+        private final boolean[] onStack = new boolean[count];
+        private final int[] stack = new int[count];
+        private final int[] frames = new int[count];
+        private final int[] nextEdge = new int[count];
+        private int stackSize;
+        private int nextIndex;
+
+        List<ImmutableList<String>> find() {
+            Arrays.fill(index, -1);
+            ImmutableList.Builder<ImmutableList<String>> cycles = ImmutableList.builder();
+            for (int root = 0; root < count; root++) {
+                if (index[root] < 0) {
+                    strongConnect(root, cycles);
+                }
+            }
+            return cycles.build();
+        }
+
+        private void strongConnect(int root, ImmutableList.Builder<ImmutableList<String>> cycles) {
+            int depth = 0;
+            enter(root, depth);
+            while (depth >= 0) {
+                int v = frames[depth];
+                if (nextEdge[depth] < dependencies[v].length) {
+                    int w = dependencies[v][nextEdge[depth]++];
+                    if (index[w] < 0) {
+                        enter(w, ++depth);
+                    } else if (onStack[w]) {
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                    continue;
+                }
+
+                if (lowLink[v] == index[v]) {
+                    popComponent(v, cycles);
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = frames[depth];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+                }
+            }
+        }
+
+        private void enter(int v, int depth) {
+            index[v] = nextIndex;
+            lowLink[v] = nextIndex;
+            nextIndex++;
+            stack[stackSize++] = v;
+            onStack[v] = true;
+            frames[depth] = v;
+            nextEdge[depth] = 0;
+        }
+
+        private void popComponent(int v, ImmutableList.Builder<ImmutableList<String>> cycles) {
+            int start = stackSize;
+            do {
+                start--;
+                onStack[stack[start]] = false;
+            } while (stack[start] != v);
+
+            int[] component = Arrays.copyOfRange(stack, start, stackSize);
+            stackSize = start;
+            if (component.length > 1 || dependsOnItself(v)) {
+                Arrays.sort(component);
+                cycles.add(ImmutableList.copyOf(namesOf(component)));
+            }
+        }
+
+        private boolean dependsOnItself(int v) {
+            for (int w : dependencies[v]) {
+                if (w == v) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.graph;
+
+import com.digitalascent.cfn.core.domain.CfnObject;
+import com.digitalascent.cfn.core.domain.CfnResource;
+import com.digitalascent.cfn.core.domain.IntrinsicFunction;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single pass over a resource tree reporting the names it references through Ref, Fn::GetAtt, Fn::Sub and DependsOn.
+ */
+final class ReferenceCollector {
+    static final String REF = "Ref";
+    static final String GET_ATT = "Fn::GetAtt";
+    static final String SUB = "Fn::Sub";
+    static final String DEPENDS_ON = "DependsOn";
+
+    @FunctionalInterface
+    interface ReferenceVisitor {
+        void reference(String referencedName, String referenceType);
+    }
+
+    private ReferenceCollector() {
+        // EMPTY
+    }
+
+    static void collect(CfnResource resource, ReferenceVisitor visitor) {
+        resource.getPropertiesView().forEach((name, value) -> {
+            if (DEPENDS_ON.equalsIgnoreCase(name)) {
+                visitDependsOn(value, visitor);
+            } else {
+                visit(value, visitor);
+            }
+        });
+    }
+
+    private static void visitDependsOn(Object value, ReferenceVisitor visitor) {
+        if (value instanceof Collection) {
+            for (Object item : (Collection<?>) value) {
+                visitDependsOn(item, visitor);
+            }
+        } else if (value instanceof CharSequence) {
+            visitor.reference(value.toString(), DEPENDS_ON);
+        } else if (value instanceof CfnResource) {
+            visitor.reference(((CfnResource) value).getResourceName(), DEPENDS_ON);
+        }
+    }
+
+    private static void visit(Object value, ReferenceVisitor visitor) {
+        if (value instanceof IntrinsicFunction) {
+            visitFunction((IntrinsicFunction) value, visitor);
+        } else if (value instanceof CfnObject) {
+            ((CfnObject) value).getPropertiesView().values().forEach(item -> visit(item, visitor));
+        } else if (value instanceof Collection) {
+            for (Object item : (Collection<?>) value) {
+                visit(item, visitor);
+            }
+        } else if (value instanceof Map) {
+            for (Object item : ((Map<?, ?>) value).values()) {
+                visit(item, visitor);
+            }
+        }
+    }
+
+    private static void visitFunction(IntrinsicFunction function, ReferenceVisitor visitor) {
+        Object arguments = function.getArguments();
+        switch (function.getFunctionName()) {
+            case REF:
+                if (arguments instanceof CharSequence) {
+                    visitor.reference(arguments.toString(), REF);
+                    return;
+                }
+                break;
+            case GET_ATT:
+                visitGetAtt(arguments, visitor);
+                break;
+            case SUB:
+                visitSub(arguments, visitor);
+                return;
+            default:
+                break;
+        }
+        visit(arguments, visitor);
+    }
+
+    private static void visitGetAtt(Object arguments, ReferenceVisitor visitor) {
+        if (arguments instanceof List && !((List<?>) arguments).isEmpty() && ((List<?>) arguments).get(0) instanceof CharSequence) {
+            visitor.reference(((List<?>) arguments).get(0).toString(), GET_ATT);
+        } else if (arguments instanceof CharSequence) {
+            // short form, LogicalName.AttributeName
+            String name = arguments.toString();
+            int dot = name.indexOf('.');
+            visitor.reference(dot < 0 ? name : name.substring(0, dot), GET_ATT);
+        }
+    }
+
+    private static void visitSub(Object arguments, ReferenceVisitor visitor) {
+        Object input = arguments;
+        Map<?, ?> variables = null;
+        if (arguments instanceof List && !((List<?>) arguments).isEmpty()) {
+            List<?> list = (List<?>) arguments;
+            input = list.get(0);
+            if (list.size() > 1 && list.get(1) instanceof Map) {
+                variables = (Map<?, ?>) list.get(1);
+                visit(variables, visitor);
+            }
+        }
+
+        if (input instanceof CharSequence) {
+            visitSubTokens(input.toString(), variables, visitor);
+        } else {
+            visit(input, visitor);
+        }
+    }
+
+    // ${Name} and ${Name.Attribute} tokens; ${!Literal} is escaped, ${AWS::Region} is a pseudo parameter
+    private static void visitSubTokens(String input, @Nullable Map<?, ?> variables, ReferenceVisitor visitor) {
+        int start = input.indexOf("${");
+        while (start >= 0) {
+            int end = input.indexOf('}', start + 2);
+            if (end < 0) {
+                return;
+            }
+            if (end > start + 2 && input.charAt(start + 2) != '!') {
+                int dot = input.indexOf('.', start + 2);
+                String name = input.substring(start + 2, dot >= 0 && dot < end ? dot : end);
+                if (variables == null || !variables.containsKey(name)) {
+                    visitor.reference(name, SUB);
+                }
+            }
+            start = input.indexOf("${", end + 1);
+        }
+    }
+}
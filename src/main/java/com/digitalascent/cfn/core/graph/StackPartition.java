@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.graph;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Resources split into stacks; a stack only depends on stacks before it, so the stacks can be nested without cycles.
+ */
+public final class StackPartition {
+    private final ImmutableList<ImmutableList<String>> stacks;
+    private final ImmutableMap<String, Integer> stackIndexes;
+    private final int crossStackEdgeCount;
+
+    StackPartition(ImmutableList<ImmutableList<String>> stacks, int crossStackEdgeCount) {
+        this.stacks = stacks;
+        this.crossStackEdgeCount = crossStackEdgeCount;
+
+        ImmutableMap.Builder<String, Integer> indexes = ImmutableMap.builder();
+        for (int i = 0; i < stacks.size(); i++) {
+            for (String resourceName : stacks.get(i)) {
+                indexes.put(resourceName, i);
+            }
+        }
+        this.stackIndexes = indexes.build();
+    }
+
+    /**
+     * Resource names per stack, each stack in dependency order.
+     */
+    public List<ImmutableList<String>> getStacks() {
+        return stacks;
+    }
+
+    public int getStackCount() {
+        return stacks.size();
+    }
+
+    /**
+     * Dependency edges between resources in different stacks; each needs an output / parameter pair when nested.
+     */
+    public int getCrossStackEdgeCount() {
+        return crossStackEdgeCount;
+    }
+
+    public boolean contains(String resourceName) {
+        return stackIndexes.containsKey(resourceName);
+    }
+
+    public int getStackIndex(String resourceName) {
+        Integer index = stackIndexes.get(resourceName);
+        checkArgument(index != null, "Unknown resource: %s", resourceName);
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("stacks", stacks.size())
+                .add("crossStackEdges", crossStackEdgeCount)
+                .toString();
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.graph;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Splits the resources of a {@link DependencyGraph} into stacks that fit resource-count and, optionally, byte limits,
+ * with as few dependency edges between stacks as possible.
+ * <p>
+ * Resources are first laid out in a locality-preserving topological order: weakly connected groups are kept together
+ * and each resource is placed right after the resources it depends on (depth-first post-order). The order is then cut
+ * into contiguous stacks by dynamic programming, minimizing cross-stack edges and, for equal edges, the number of
+ * stacks. Because every stack is a segment of a topological order, stacks only depend on earlier stacks. This is
+ * O(resources * maxResourcesPerStack * average degree) time and linear space; it is optimal among cuts of that order,
+ * not over all partitions.
+ */
+public final class StackPartitioner {
+    // depth-first search states
+    private static final int UNVISITED = 0;
+    private static final int IN_PROGRESS = 1;
+    private static final int DONE = 2;
+
+    private final int maxResourcesPerStack;
+    private final long maxBytesPerStack;
+    private final Map<String, Long> resourceBytes;
+
+    public StackPartitioner(int maxResourcesPerStack) {
+        this(maxResourcesPerStack, Long.MAX_VALUE, ImmutableMap.of());
+    }
+
+    /**
+     * @param resourceBytes serialized size per resource, e.g. from a template size report; missing resources count as 0
+     */
+    public StackPartitioner(int maxResourcesPerStack, long maxBytesPerStack, Map<String, Long> resourceBytes) {
+        checkArgument(maxResourcesPerStack > 0, "maxResourcesPerStack must be positive: %s", maxResourcesPerStack);
+        checkArgument(maxBytesPerStack > 0, "maxBytesPerStack must be positive: %s", maxBytesPerStack);
+        this.maxResourcesPerStack = maxResourcesPerStack;
+        this.maxBytesPerStack = maxBytesPerStack;
+        this.resourceBytes = ImmutableMap.copyOf(checkNotNull(resourceBytes, "resourceBytes is required"));
+    }
+
+    /**
+     * @throws DependencyCycleException if the graph has cycles
+     */
+    public StackPartition partition(DependencyGraph graph) {
+        checkNotNull(graph, "graph is required");
+        int[] order = localityOrder(graph);
+        int count = order.length;
+        int[] positions = new int[count];
+        for (int position = 0; position < count; position++) {
+            positions[order[position]] = position;
+        }
+
+        // best[i]: cheapest split of order[0, i); cost is cross-stack edges, then stack count
+        long[] best = new long[count + 1];
+        int[] stackStart = new int[count + 1];
+        long edgeWeight = count + 1L;
+        for (int end = 1; end <= count; end++) {
+            best[end] = Long.MAX_VALUE;
+            long incomingEdges = 0;
+            long bytes = 0;
+            for (int start = end - 1; start >= 0 && end - start <= maxResourcesPerStack; start--) {
+                int id = order[start];
+                bytes += bytesOf(graph, id);
+                if (bytes > maxBytesPerStack && start < end - 1) {
+                    break;
+                }
+
+                // dependencies of start all come earlier; its dependents inside the stack are no longer incoming
+                incomingEdges += graph.dependencyIds(id).length;
+                for (int dependent : graph.dependentIds(id)) {
+                    if (positions[dependent] < end) {
+                        incomingEdges--;
+                    }
+                }
+
+                long cost = best[start] + incomingEdges * edgeWeight + 1;
+                if (cost < best[end]) {
+                    best[end] = cost;
+                    stackStart[end] = start;
+                }
+            }
+        }
+
+        ImmutableList.Builder<ImmutableList<String>> stacks = ImmutableList.builder();
+        int[] bounds = new int[count + 1];
+        int stackCount = 0;
+        for (int end = count; end > 0; end = stackStart[end]) {
+            bounds[stackCount++] = end;
+        }
+        int start = 0;
+        for (int i = stackCount - 1; i >= 0; i--) {
+            ImmutableList.Builder<String> stack = ImmutableList.builder();
+            for (int position = start; position < bounds[i]; position++) {
+                stack.add(graph.nameOf(order[position]));
+            }
+            stacks.add(stack.build());
+            start = bounds[i];
+        }
+        return new StackPartition(stacks.build(), (int) (best[count] / edgeWeight));
+    }
+
+    private long bytesOf(DependencyGraph graph, int id) {
+        Long bytes = resourceBytes.get(graph.nameOf(id));
+        return bytes == null ? 0 : bytes;
+    }
+
+    /**
+     * Topological order, dependencies first, with each weakly connected group of resources contiguous.
+     */
+    private static int[] localityOrder(DependencyGraph graph) {
+        int count = graph.size();
+        int[] groups = new int[count];
+        for (int i = 0; i < count; i++) {
+            groups[i] = i;
+        }
+        for (int i = 0; i < count; i++) {
+            for (int dependency : graph.dependencyIds(i)) {
+                union(groups, i, dependency);
+            }
+        }
+
+        // members of each group, in resource order, via counting sort on the group root
+        int[] groupSizes = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            groupSizes[find(groups, i) + 1]++;
+        }
+        for (int i = 0; i < count; i++) {
+            groupSizes[i + 1] += groupSizes[i];
+        }
+        int[] members = new int[count];
+        int[] filled = Arrays.copyOf(groupSizes, count);
+        for (int i = 0; i < count; i++) {
+            members[filled[find(groups, i)]++] = i;
+        }
+
+        int[] order = new int[count];
+        int ordered = 0;
+        int[] state = new int[count];
+        int[] stack = new int[count];
+        int[] nextEdge = new int[count];
+        boolean[] groupDone = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            int group = find(groups, i);
+            if (groupDone[group]) {
+                continue;
+            }
+            groupDone[group] = true;
+            for (int member = groupSizes[group]; member < groupSizes[group + 1]; member++) {
+                ordered = postOrder(graph, members[member], state, stack, nextEdge, order, ordered);
+            }
+        }
+        return order;
+    }
+
+    // iterative depth-first search over dependencies, appending each resource after its dependencies
+    private static int postOrder(DependencyGraph graph, int root, int[] state, int[] stack, int[] nextEdge, int[] order, int ordered) {
+        if (state[root] != UNVISITED) {
+            return ordered;
+        }
+        int depth = 0;
+        stack[0] = root;
+        nextEdge[0] = 0;
+        state[root] = IN_PROGRESS;
+        int position = ordered;
+        while (depth >= 0) {
+            int id = stack[depth];
+            int[] dependencies = graph.dependencyIds(id);
+            if (nextEdge[depth] < dependencies.length) {
+                int dependency = dependencies[nextEdge[depth]++];
+                if (state[dependency] == IN_PROGRESS) {
+                    throw new DependencyCycleException(ImmutableList.copyOf(graph.getCycles()));
+                }
+                if (state[dependency] == UNVISITED) {
+                    state[dependency] = IN_PROGRESS;
+                    stack[++depth] = dependency;
+                    nextEdge[depth] = 0;
+                }
+                continue;
+            }
+
+            state[id] = DONE;
+            order[position++] = id;
+            depth--;
+        }
+        return position;
+    }
+
+    private static int find(int[] groups, int i) {
+        int root = i;
+        while (groups[root] != root) {
+            root = groups[root];
+        }
+        // path compression
+        int node = i;
+        while (groups[node] != root) {
+            int next = groups[node];
+            groups[node] = root;
+            node = next;
+        }
+        return root;
+    }
+
+    private static void union(int[] groups, int a, int b) {
+        int rootA = find(groups, a);
+        int rootB = find(groups, b);
+        // lower id wins, so a group's root is its first resource
+        if (rootA < rootB) {
+            groups[rootB] = rootA;
+        } else {
+            groups[rootA] = rootB;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("maxResourcesPerStack", maxResourcesPerStack)
+                .add("maxBytesPerStack", maxBytesPerStack)
+                .toString();
+    }
+}
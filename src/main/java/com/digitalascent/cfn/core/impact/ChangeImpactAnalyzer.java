@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.impact;
+
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecException;
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationService;
+import com.digitalascent.cfn.core.cfnresourcespecification.UpdateType;
+import com.digitalascent.cfn.core.diff.ChangeType;
+import com.digitalascent.cfn.core.diff.TemplateChange;
+import com.digitalascent.cfn.core.diff.TemplateDiff;
+import com.digitalascent.cfn.core.domain.CfnObject;
+import com.digitalascent.core.base.SimpleApplicationObject;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Classifies each changed resource as added, updated in place, (conditionally) replaced or removed, from the
+ * {@code UpdateType} of its changed top-level properties; no change set is created.
+ * <p>
+ * The cost is that of the {@link TemplateDiff} plus one indexed specification lookup per changed property. A change of
+ * resource type is a replacement; changes outside {@code properties} (metadata, policies, DependsOn) are updates.
+ * Properties missing from the specification are treated as conditional. Instances are thread-safe.
+ */
+public final class ChangeImpactAnalyzer extends SimpleApplicationObject {
+    private static final String RESOURCES = "Resources";
+    private static final String TYPE = "type";
+    private static final String PROPERTIES = "properties";
+
+    private final ResourceSpecificationService resourceSpecificationService;
+
+    public ChangeImpactAnalyzer(ResourceSpecificationService resourceSpecificationService) {
+        this.resourceSpecificationService = checkNotNull(resourceSpecificationService, "resourceSpecificationService is required");
+    }
+
+    /**
+     * Compares template maps of CfnResources.
+     */
+    public ChangeImpactReport analyze(Map<String, ?> oldTemplate, Map<String, ?> newTemplate) {
+        checkNotNull(oldTemplate, "oldTemplate is required");
+        checkNotNull(newTemplate, "newTemplate is required");
+        Map<?, ?> oldResources = resourcesOf(oldTemplate);
+        Map<?, ?> newResources = resourcesOf(newTemplate);
+        return analyze(TemplateDiff.of(oldTemplate, newTemplate), oldResources::get, newResources::get);
+    }
+
+    /**
+     * Compares previously generated templates.
+     */
+    public ChangeImpactReport analyzeJson(JsonNode oldTemplate, JsonNode newTemplate) {
+        checkNotNull(oldTemplate, "oldTemplate is required");
+        checkNotNull(newTemplate, "newTemplate is required");
+        JsonNode oldResources = oldTemplate.path(RESOURCES);
+        JsonNode newResources = newTemplate.path(RESOURCES);
+        return analyze(TemplateDiff.ofJson(oldTemplate, newTemplate), oldResources::get, newResources::get);
+    }
+
+    private ChangeImpactReport analyze(TemplateDiff diff, Function<String, Object> oldResources, Function<String, Object> newResources) {
+        Map<String, ImpactBuilder> builders = new LinkedHashMap<>();
+        for (TemplateChange change : diff.getChanges()) {
+            String resourceName = change.getResourceName();
+            if (resourceName != null) {
+                builders.computeIfAbsent(resourceName, name -> new ImpactBuilder(name, oldResources.apply(name), newResources.apply(name)))
+                        .add(change);
+            }
+        }
+
+        ImmutableList.Builder<ResourceImpact> impacts = ImmutableList.builder();
+        builders.values().forEach(builder -> impacts.add(builder.build()));
+        return new ChangeImpactReport(impacts.build());
+    }
+
+    private static Map<?, ?> resourcesOf(Map<String, ?> template) {
+        Object resources = template.get(RESOURCES);
+        return resources instanceof Map ? (Map<?, ?>) resources : new LinkedHashMap<>();
+    }
+
+    @Nullable
+    private static String resourceTypeOf(@Nullable Object resource) {
+        if (resource instanceof CfnObject) {
+            return ((CfnObject) resource).getResourceType();
+        }
+        if (resource instanceof JsonNode) {
+            return ((JsonNode) resource).path("Type").textValue();
+        }
+        return null;
+    }
+
+    // start of the segment at offset, up to the next '.' or '['
+    private static String segmentAt(String path, int offset) {
+        int end = offset;
+        while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+            end++;
+        }
+        return path.substring(offset, end);
+    }
+
+    private static Iterator<String> fieldNamesOf(@Nullable Object properties) {
+        if (properties instanceof CfnObject) {
+            return ((CfnObject) properties).getPropertiesView().keySet().iterator();
+        }
+        if (properties instanceof JsonNode) {
+            return ((JsonNode) properties).fieldNames();
+        }
+        if (properties instanceof Map) {
+            List<String> names = new ArrayList<>();
+            ((Map<?, ?>) properties).keySet().forEach(name -> names.add(String.valueOf(name)));
+            return names.iterator();
+        }
+        return ImmutableList.<String>of().iterator();
+    }
+
+    private final class ImpactBuilder {
+        private final String resourceName;
+        @Nullable
+        private final String resourceType;
+        private final boolean added;
+        private final boolean removed;
+        private final List<String> replacementCauses = new ArrayList<>();
+        private final List<String> changedPaths = new ArrayList<>();
+        private ChangeImpact impact = ChangeImpact.UPDATE;
+
+        ImpactBuilder(String resourceName, @Nullable Object oldResource, @Nullable Object newResource) {
+            this.resourceName = resourceName;
+            this.resourceType = resourceTypeOf(newResource != null ? newResource : oldResource);
+            this.added = oldResource == null;
+            this.removed = newResource == null;
+        }
+
+        void add(TemplateChange change) {
+            String path = change.getPath();
+            changedPaths.add(path);
+
+            int attributeStart = RESOURCES.length() + resourceName.length() + 2;
+            if (path.length() < attributeStart) {
+                if (change.getChangeType() == ChangeType.MODIFIED) {
+                    // no longer an object at all
+                    addCause(TYPE, ChangeImpact.REPLACEMENT);
+                }
+                return;
+            }
+
+            String attribute = segmentAt(path, attributeStart);
+            if (attribute.equalsIgnoreCase(TYPE)) {
+                addCause(TYPE, ChangeImpact.REPLACEMENT);
+            } else if (attribute.equalsIgnoreCase(PROPERTIES)) {
+                int propertyStart = attributeStart + attribute.length() + 1;
+                if (propertyStart < path.length()) {
+                    addPropertyChange(segmentAt(path, propertyStart));
+                } else {
+                    // properties added, removed or replaced as a whole
+                    fieldNamesOf(change.getOldValue()).forEachRemaining(this::addPropertyChange);
+                    fieldNamesOf(change.getNewValue()).forEachRemaining(this::addPropertyChange);
+                }
+            }
+        }
+
+        private void addPropertyChange(String propertyName) {
+            if (resourceType == null) {
+                addCause(propertyName, ChangeImpact.CONDITIONAL_REPLACEMENT);
+                return;
+            }
+
+            UpdateType updateType;
+            try {
+                updateType = resourceSpecificationService.findUpdateType(resourceType, propertyName);
+            } catch (ResourceSpecException e) {
+                getLogger().debug("Unknown update type for {}.{} : {}", resourceType, propertyName, e.getMessage());
+                updateType = UpdateType.CONDITIONAL;
+            }
+
+            if (updateType == UpdateType.IMMUTABLE) {
+                addCause(propertyName, ChangeImpact.REPLACEMENT);
+            } else if (updateType == UpdateType.CONDITIONAL) {
+                addCause(propertyName, ChangeImpact.CONDITIONAL_REPLACEMENT);
+            }
+        }
+
+        private void addCause(String cause, ChangeImpact causedImpact) {
+            if (!replacementCauses.contains(cause)) {
+                replacementCauses.add(cause);
+            }
+            if (causedImpact.compareTo(impact) > 0) {
+                impact = causedImpact;
+            }
+        }
+
+        ResourceImpact build() {
+            if (added) {
+                return new ResourceImpact(resourceName, resourceType, ChangeImpact.ADD, ImmutableList.of(), changedPaths);
+            }
+            if (removed) {
+                return new ResourceImpact(resourceName, resourceType, ChangeImpact.REMOVE, ImmutableList.of(), changedPaths);
+            }
+            return new ResourceImpact(resourceName, resourceType, impact, replacementCauses, changedPaths);
+        }
+    }
+}
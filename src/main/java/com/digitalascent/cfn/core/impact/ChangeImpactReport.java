@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.impact;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Impact of a template change on each changed resource, in template order.
+ */
+public final class ChangeImpactReport {
+    private final ImmutableList<ResourceImpact> resourceImpacts;
+
+    ChangeImpactReport(List<ResourceImpact> resourceImpacts) {
+        this.resourceImpacts = ImmutableList.copyOf(resourceImpacts);
+    }
+
+    public List<ResourceImpact> getResourceImpacts() {
+        return resourceImpacts;
+    }
+
+    public Set<String> getResourceNames(ChangeImpact impact) {
+        checkNotNull(impact, "impact is required");
+        ImmutableSet.Builder<String> names = ImmutableSet.builder();
+        for (ResourceImpact resourceImpact : resourceImpacts) {
+            if (resourceImpact.getImpact() == impact) {
+                names.add(resourceImpact.getResourceName());
+            }
+        }
+        return names.build();
+    }
+
+    /**
+     * True if any resource is, or may be, replaced.
+     */
+    public boolean hasReplacements() {
+        for (ResourceImpact resourceImpact : resourceImpacts) {
+            ChangeImpact impact = resourceImpact.getImpact();
+            if (impact == ChangeImpact.REPLACEMENT || impact == ChangeImpact.CONDITIONAL_REPLACEMENT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("resourceImpacts", resourceImpacts)
+                .toString();
+    }
+}
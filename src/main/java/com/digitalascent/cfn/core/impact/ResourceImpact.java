@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.impact;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * How a single resource is affected, and which changes caused it.
+ */
+public final class ResourceImpact {
+    private final String resourceName;
+    @Nullable
+    private final String resourceType;
+    private final ChangeImpact impact;
+    private final ImmutableList<String> replacementCauses;
+    private final ImmutableList<String> changedPaths;
+
+    ResourceImpact(String resourceName, @Nullable String resourceType, ChangeImpact impact, List<String> replacementCauses, List<String> changedPaths) {
+        this.resourceName = checkNotNull(resourceName, "resourceName is required");
+        this.resourceType = resourceType;
+        this.impact = checkNotNull(impact, "impact is required");
+        this.replacementCauses = ImmutableList.copyOf(replacementCauses);
+        this.changedPaths = ImmutableList.copyOf(changedPaths);
+    }
+
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    /**
+     * Type of the new resource (of the old one, if removed); null if the template doesn't say.
+     */
+    @Nullable
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public ChangeImpact getImpact() {
+        return impact;
+    }
+
+    /**
+     * Properties (or {@code type}) whose change replaces, or may replace, the resource.
+     */
+    public List<String> getReplacementCauses() {
+        return replacementCauses;
+    }
+
+    public List<String> getChangedPaths() {
+        return changedPaths;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("resourceName", resourceName)
+                .add("resourceType", resourceType)
+                .add("impact", impact)
+                .add("replacementCauses", replacementCauses)
+                .toString();
+    }
+}
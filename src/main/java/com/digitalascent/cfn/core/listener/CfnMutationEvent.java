@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.listener;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Recorded model mutation, as captured by {@link RingBufferMutationListener}.
+ */
+public final class CfnMutationEvent {
+    public enum Type {
+        SET, OVERRIDE, FREEZE, TAG
+    }
+
+    private final Type type;
+    private final String propertyPath;
+    private final String propertyName;
+    @Nullable
+    private final Object previousValue;
+    @Nullable
+    private final Object value;
+
+    CfnMutationEvent(Type type, String propertyPath, String propertyName, @Nullable Object previousValue, @Nullable Object value) {
+        this.type = checkNotNull(type, "type is required");
+        this.propertyPath = checkNotNull(propertyPath, "propertyPath is required");
+        this.propertyName = checkNotNull(propertyName, "propertyName is required");
+        this.previousValue = previousValue;
+        this.value = value;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Path of the mutated object, including the resource name, e.g. myInstance or myInstance.properties.blockDeviceMappings[0]
+     */
+    public String getPropertyPath() {
+        return propertyPath;
+    }
+
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    @Nullable
+    public Object getPreviousValue() {
+        return previousValue;
+    }
+
+    @Nullable
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("type", type)
+                .add("propertyPath", propertyPath)
+                .add("propertyName", propertyName)
+                .add("previousValue", previousValue)
+                .add("value", value)
+                .toString();
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.listener;
+
+import com.digitalascent.cfn.core.domain.CfnObject;
+import com.digitalascent.cfn.core.domain.CfnResource;
+
+import java.util.Set;
+
+/**
+ * Receives model mutation events, e.g. for auditing how a template was assembled.
+ * <p>
+ * Events carry references to the mutated object and values; nothing is formatted unless the listener does so.
+ * Listeners are registered via {@link CfnMutationListeners} and invoked synchronously on the mutating thread.
+ */
+public interface CfnMutationListener {
+    CfnMutationListener NONE = new CfnMutationListener() {
+    };
+
+    default void propertySet(CfnObject target, String propertyName, Object value) {
+        // EMPTY
+    }
+
+    default void propertyOverridden(CfnObject target, String propertyName, Object previousValue, Object value) {
+        // EMPTY
+    }
+
+    default void propertiesFrozen(CfnObject target, Set<String> propertyNames) {
+        // EMPTY
+    }
+
+    default void tagged(CfnResource resource, String key, String value) {
+        // EMPTY
+    }
+}
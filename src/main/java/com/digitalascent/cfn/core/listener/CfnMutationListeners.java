@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.listener;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Process-wide registration point for the {@link CfnMutationListener}; defaults to {@link CfnMutationListener#NONE}.
+ */
+public final class CfnMutationListeners {
+    private static volatile CfnMutationListener listener = CfnMutationListener.NONE;
+
+    private CfnMutationListeners() {
+        // EMPTY
+    }
+
+    public static CfnMutationListener getListener() {
+        return listener;
+    }
+
+    public static void setListener(CfnMutationListener listener) {
+        CfnMutationListeners.listener = checkNotNull(listener, "listener is required");
+    }
+
+    public static void reset() {
+        listener = CfnMutationListener.NONE;
+    }
+}
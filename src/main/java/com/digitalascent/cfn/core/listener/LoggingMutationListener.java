@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.listener;
+
+import com.digitalascent.cfn.core.domain.CfnObject;
+import com.digitalascent.cfn.core.domain.CfnResource;
+import com.digitalascent.core.base.SimpleApplicationObject;
+
+import java.util.Set;
+
+/**
+ * Logs mutations at INFO; only generates log info on properties, not entire nested objects.
+ */
+public final class LoggingMutationListener extends SimpleApplicationObject implements CfnMutationListener {
+    @Override
+    public void propertySet(CfnObject target, String propertyName, Object value) {
+        if (!(value instanceof CfnObject)) {
+            getLogger().info("{}: setting '{}' to '{}'", target.getPropertyPath(), propertyName, value);
+        }
+    }
+
+    @Override
+    public void propertyOverridden(CfnObject target, String propertyName, Object previousValue, Object value) {
+        if (!(value instanceof CfnObject)) {
+            getLogger().info("{}: overriding '{}'; replacing '{}' with '{}'", target.getPropertyPath(), propertyName, previousValue, value);
+        }
+    }
+
+    @Override
+    public void propertiesFrozen(CfnObject target, Set<String> propertyNames) {
+        getLogger().debug("{}: frozen {}", target.getPropertyPath(), propertyNames);
+    }
+
+    @Override
+    public void tagged(CfnResource resource, String key, String value) {
+        getLogger().info("{}: tagging with {}={}", resource.getResourceName(), key, value);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.listener;
+
+import com.digitalascent.cfn.core.domain.CfnObject;
+import com.digitalascent.cfn.core.domain.CfnResource;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Keeps the most recent mutation events in a fixed-size ring buffer, overwriting the oldest when full.
+ */
+public final class RingBufferMutationListener implements CfnMutationListener {
+    private final CfnMutationEvent[] events;
+    private long count;
+
+    public RingBufferMutationListener(int capacity) {
+        checkArgument(capacity > 0, "capacity > 0 : %s", capacity);
+        this.events = new CfnMutationEvent[capacity];
+    }
+
+    @Override
+    public void propertySet(CfnObject target, String propertyName, Object value) {
+        add(new CfnMutationEvent(CfnMutationEvent.Type.SET, target.getPropertyPath(), propertyName, null, value));
+    }
+
+    @Override
+    public void propertyOverridden(CfnObject target, String propertyName, Object previousValue, Object value) {
+        add(new CfnMutationEvent(CfnMutationEvent.Type.OVERRIDE, target.getPropertyPath(), propertyName, previousValue, value));
+    }
+
+    @Override
+    public void propertiesFrozen(CfnObject target, Set<String> propertyNames) {
+        for (String propertyName : propertyNames) {
+            add(new CfnMutationEvent(CfnMutationEvent.Type.FREEZE, target.getPropertyPath(), propertyName, null, null));
+        }
+    }
+
+    @Override
+    public void tagged(CfnResource resource, String key, String value) {
+        add(new CfnMutationEvent(CfnMutationEvent.Type.TAG, resource.getPropertyPath(), key, null, value));
+    }
+
+    /**
+     * Buffered events, oldest first.
+     */
+    public synchronized List<CfnMutationEvent> getEvents() {
+        int size = (int) Math.min(count, events.length);
+        ImmutableList.Builder<CfnMutationEvent> builder = ImmutableList.builder();
+        for (long i = count - size; i < count; i++) {
+            builder.add(events[(int) (i % events.length)]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Total number of events received, including those since overwritten.
+     */
+    public synchronized long getEventCount() {
+        return count;
+    }
+
+    private synchronized void add(CfnMutationEvent event) {
+        events[(int) (count++ % events.length)] = event;
+    }
+}
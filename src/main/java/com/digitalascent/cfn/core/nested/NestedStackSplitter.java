@@ -0,0 +1,404 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.nested;
+
+import com.digitalascent.cfn.core.domain.CfnObject;
+import com.digitalascent.cfn.core.domain.CfnResource;
+import com.digitalascent.cfn.core.domain.IntrinsicFunction;
+import com.digitalascent.cfn.core.graph.DependencyGraph;
+import com.digitalascent.cfn.core.graph.StackPartition;
+import com.digitalascent.cfn.core.graph.StackPartitioner;
+import com.digitalascent.core.base.SimpleApplicationObject;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Splits a template map that is too large for one stack into a parent template and nested child stacks.
+ * <p>
+ * Resources are assigned to stacks by a {@link StackPartitioner}, which keeps references between stacks to a minimum
+ * and only lets a stack depend on earlier ones. Each remaining Ref, Fn::GetAtt or Fn::Sub token that crosses stacks is
+ * wired through an output of the exporting child, a {@code String} parameter of the importing child and a
+ * {@code Fn::GetAtt [Stack, Outputs.Name]} in the parent; DependsOn across stacks becomes DependsOn between the stack
+ * resources. Template parameters are passed down to the children that use them, Mappings and Conditions are copied to
+ * every child, and the template's Outputs move to the parent. Only resources that reference another stack are copied;
+ * the original template is not modified.
+ * <p>
+ * Child templates can exceed the parameter or output limits when many references cross stacks; generate them with
+ * template limits to check. Instances are thread-safe.
+ */
+public final class NestedStackSplitter extends SimpleApplicationObject {
+    private static final String TEMPLATE_FORMAT_VERSION = "AWSTemplateFormatVersion";
+    private static final String DEFAULT_TEMPLATE_FORMAT_VERSION = "2010-09-09";
+    private static final String RESOURCES = "Resources";
+    private static final String PARAMETERS = "Parameters";
+    private static final String OUTPUTS = "Outputs";
+    private static final String MAPPINGS = "Mappings";
+    private static final String CONDITIONS = "Conditions";
+    private static final String STACK_TYPE = "AWS::CloudFormation::Stack";
+    private static final String STACK_NAME_PREFIX = "Stack";
+    private static final String TYPE = "type";
+    private static final String DEPENDS_ON = "dependsOn";
+
+    private final StackPartitioner partitioner;
+    private final Function<String, ?> templateUrls;
+
+    /**
+     * @param templateUrls TemplateURL value for a child stack, by the logical name of its stack resource
+     */
+    public NestedStackSplitter(StackPartitioner partitioner, Function<String, ?> templateUrls) {
+        this.partitioner = checkNotNull(partitioner, "partitioner is required");
+        this.templateUrls = checkNotNull(templateUrls, "templateUrls is required");
+    }
+
+    public NestedStacks split(Map<String, ?> template) {
+        checkNotNull(template, "template is required");
+        Object resourceMap = template.get(RESOURCES);
+        checkArgument(resourceMap instanceof Map, "template requires a Resources map");
+        Map<String, CfnResource> resources = new LinkedHashMap<>();
+        ((Map<?, ?>) resourceMap).forEach((name, resource) -> {
+            checkArgument(resource instanceof CfnResource, "Resource '%s' is not a CfnResource", name);
+            resources.put(String.valueOf(name), (CfnResource) resource);
+        });
+
+        StackPartition partition = partitioner.partition(DependencyGraph.ofTemplate(template));
+        Split split = new Split(template, resources, partition);
+        NestedStacks nestedStacks = split.build();
+        getLogger().info("Split {} resources into {}", resources.size(), nestedStacks);
+        return nestedStacks;
+    }
+
+    private static Map<?, ?> sectionOf(Map<String, ?> template, String section) {
+        Object value = template.get(section);
+        return value instanceof Map ? (Map<?, ?>) value : ImmutableMap.of();
+    }
+
+    private static IntrinsicFunction ref(String name) {
+        return IntrinsicFunction.ref(name);
+    }
+
+    private static IntrinsicFunction getAtt(String name, String attribute) {
+        return IntrinsicFunction.of(ReferenceRewriter.GET_ATT, ImmutableList.of(name, attribute));
+    }
+
+    /**
+     * State of splitting one template; not thread-safe.
+     */
+    private final class Split {
+        private final Map<String, ?> template;
+        private final Map<String, CfnResource> resources;
+        private final Map<?, ?> parameters;
+        private final StackPartition partition;
+        private final List<ChildStack> children = new ArrayList<>();
+        private final Set<String> usedNames = new HashSet<>();
+        private final Map<String, String> exportNames = new HashMap<>();
+        private final Map<String, ChildStack> exportingStacks = new HashMap<>();
+
+        Split(Map<String, ?> template, Map<String, CfnResource> resources, StackPartition partition) {
+            this.template = template;
+            this.resources = resources;
+            this.parameters = sectionOf(template, PARAMETERS);
+            this.partition = partition;
+
+            usedNames.addAll(resources.keySet());
+            for (String section : ImmutableList.of(PARAMETERS, OUTPUTS, MAPPINGS, CONDITIONS)) {
+                sectionOf(template, section).keySet().forEach(name -> usedNames.add(String.valueOf(name)));
+            }
+            for (int i = 0; i < partition.getStackCount(); i++) {
+                children.add(new ChildStack(uniqueName(STACK_NAME_PREFIX + (i + 1))));
+            }
+        }
+
+        NestedStacks build() {
+            Set<String> conditionParameters = new LinkedHashSet<>();
+            new ReferenceRewriter(new ParameterCollector(conditionParameters)).collect(template.get(CONDITIONS));
+
+            for (int i = 0; i < children.size(); i++) {
+                ChildStack child = children.get(i);
+                child.parameters.addAll(conditionParameters);
+                ReferenceRewriter rewriter = new ReferenceRewriter(new ChildResolver(child, i));
+                for (String resourceName : partition.getStacks().get(i)) {
+                    child.resources.put(resourceName, rewriteResource(resources.get(resourceName), rewriter, child, i));
+                }
+            }
+
+            // parent outputs reference the children, adding exports, so are rewritten before the children are built
+            Object outputs = template.containsKey(OUTPUTS) ? new ReferenceRewriter(new ParentResolver()).rewrite(template.get(OUTPUTS)) : null;
+
+            Map<String, Object> parentTemplate = new LinkedHashMap<>();
+            template.forEach((section, value) -> {
+                if (RESOURCES.equals(section)) {
+                    Map<String, Object> stacks = new LinkedHashMap<>();
+                    children.forEach(child -> stacks.put(child.name, stackResource(child)));
+                    parentTemplate.put(section, stacks);
+                } else if (OUTPUTS.equals(section)) {
+                    parentTemplate.put(section, outputs);
+                } else {
+                    parentTemplate.put(section, value);
+                }
+            });
+
+            Map<String, Map<String, Object>> childTemplates = new LinkedHashMap<>();
+            children.forEach(child -> childTemplates.put(child.name, childTemplate(child)));
+            return new NestedStacks(parentTemplate, childTemplates, partition);
+        }
+
+        private CfnResource rewriteResource(CfnResource resource, ReferenceRewriter rewriter, ChildStack child, int stackIndex) {
+            String dependsOnKey = null;
+            for (String key : resource.getPropertiesView().keySet()) {
+                if (DEPENDS_ON.equalsIgnoreCase(key)) {
+                    dependsOnKey = key;
+                }
+            }
+            CfnResource rewritten = rewriter.rewriteResource(resource, dependsOnKey);
+            if (dependsOnKey == null) {
+                return rewritten;
+            }
+
+            // DependsOn on another stack's resource moves to the stack resources in the parent
+            List<String> dependencies = dependencyNames(resource.getPropertiesView().get(dependsOnKey));
+            List<String> localDependencies = new ArrayList<>();
+            for (String dependency : dependencies) {
+                if (!partition.contains(dependency) || partition.getStackIndex(dependency) == stackIndex) {
+                    localDependencies.add(dependency);
+                } else {
+                    child.dependsOn.add(partition.getStackIndex(dependency));
+                }
+            }
+            if (localDependencies.size() == dependencies.size()) {
+                return rewritten;
+            }
+
+            CfnResource copy = new CfnResource(resource.getResourceName(), resource.getResourceType());
+            for (Map.Entry<String, Object> entry : rewritten.getPropertiesView().entrySet()) {
+                if (entry.getKey().equals(dependsOnKey)) {
+                    if (!localDependencies.isEmpty()) {
+                        copy.setProperty(dependsOnKey, localDependencies);
+                    }
+                } else if (!TYPE.equals(entry.getKey())) {
+                    copy.setProperty(entry.getKey(), entry.getValue());
+                }
+            }
+            return copy;
+        }
+
+        private CfnResource stackResource(ChildStack child) {
+            CfnResource stack = CfnResource.create(child.name, STACK_TYPE);
+            CfnObject properties = (CfnObject) stack.getProperty("properties");
+            properties.setProperty("templateURL", checkNotNull(templateUrls.apply(child.name), "templateURL is required for %s", child.name));
+
+            Map<String, Object> stackParameters = new LinkedHashMap<>();
+            for (String parameter : orderedParameters(child)) {
+                stackParameters.put(parameter, ref(parameter));
+            }
+            Set<Integer> importedStacks = new TreeSet<>();
+            child.imports.forEach((importName, exportingStack) -> {
+                stackParameters.put(importName, getAtt(exportingStack.name, OUTPUTS + '.' + importName));
+                importedStacks.add(children.indexOf(exportingStack));
+            });
+            if (!stackParameters.isEmpty()) {
+                properties.setProperty("parameters", stackParameters);
+            }
+
+            // parameter wiring already orders the stacks
+            List<String> dependsOn = new ArrayList<>();
+            for (int stackIndex : child.dependsOn) {
+                if (!importedStacks.contains(stackIndex)) {
+                    dependsOn.add(children.get(stackIndex).name);
+                }
+            }
+            if (!dependsOn.isEmpty()) {
+                stack.setProperty(DEPENDS_ON, dependsOn);
+            }
+            return stack;
+        }
+
+        private Map<String, Object> childTemplate(ChildStack child) {
+            Map<String, Object> childTemplate = new LinkedHashMap<>();
+            Object version = template.get(TEMPLATE_FORMAT_VERSION);
+            childTemplate.put(TEMPLATE_FORMAT_VERSION, version == null ? DEFAULT_TEMPLATE_FORMAT_VERSION : version);
+            for (String section : ImmutableList.of(MAPPINGS, CONDITIONS)) {
+                if (template.containsKey(section)) {
+                    childTemplate.put(section, template.get(section));
+                }
+            }
+
+            Map<String, Object> childParameters = new LinkedHashMap<>();
+            for (String parameter : orderedParameters(child)) {
+                childParameters.put(parameter, parameters.get(parameter));
+            }
+            child.imports.keySet().forEach(importName -> childParameters.put(importName, ImmutableMap.of("Type", "String")));
+            if (!childParameters.isEmpty()) {
+                childTemplate.put(PARAMETERS, childParameters);
+            }
+
+            childTemplate.put(RESOURCES, child.resources);
+
+            if (!child.exports.isEmpty()) {
+                Map<String, Object> childOutputs = new LinkedHashMap<>();
+                child.exports.forEach((exportName, value) -> childOutputs.put(exportName, ImmutableMap.of("Value", value)));
+                childTemplate.put(OUTPUTS, childOutputs);
+            }
+            return childTemplate;
+        }
+
+        // template parameters used by the child, in template order
+        private List<String> orderedParameters(ChildStack child) {
+            List<String> ordered = new ArrayList<>();
+            for (Object parameter : parameters.keySet()) {
+                if (child.parameters.contains(String.valueOf(parameter))) {
+                    ordered.add(String.valueOf(parameter));
+                }
+            }
+            return ordered;
+        }
+
+        /**
+         * Exports a resource reference from the stack holding the resource, returning the output name.
+         */
+        private String export(String resourceName, @Nullable String attribute) {
+            String key = attribute == null ? resourceName : resourceName + '.' + attribute;
+            String exportName = exportNames.get(key);
+            if (exportName == null) {
+                exportName = uniqueName(resourceName + (attribute == null ? "Ref" : attribute.replaceAll("[^A-Za-z0-9]", "")));
+                exportNames.put(key, exportName);
+                ChildStack exportingStack = children.get(partition.getStackIndex(resourceName));
+                exportingStack.exports.put(exportName, attribute == null ? ref(resourceName) : getAtt(resourceName, attribute));
+                exportingStacks.put(exportName, exportingStack);
+            }
+            return exportName;
+        }
+
+        private String uniqueName(String name) {
+            String unique = name;
+            for (int suffix = 2; !usedNames.add(unique); suffix++) {
+                unique = name + suffix;
+            }
+            return unique;
+        }
+
+        private final class ChildResolver implements ReferenceRewriter.ReferenceResolver {
+            private final ChildStack child;
+            private final int stackIndex;
+
+            ChildResolver(ChildStack child, int stackIndex) {
+                this.child = child;
+                this.stackIndex = stackIndex;
+            }
+
+            @Nullable
+            @Override
+            public String importName(String referencedName, @Nullable String attribute) {
+                if (parameters.containsKey(referencedName)) {
+                    child.parameters.add(referencedName);
+                    return null;
+                }
+                if (!partition.contains(referencedName) || partition.getStackIndex(referencedName) == stackIndex) {
+                    return null;
+                }
+
+                String importName = export(referencedName, attribute);
+                child.imports.put(importName, exportingStacks.get(importName));
+                return importName;
+            }
+
+            @Override
+            public Object importValue(String importName) {
+                return ref(importName);
+            }
+        }
+
+        private final class ParentResolver implements ReferenceRewriter.ReferenceResolver {
+            @Nullable
+            @Override
+            public String importName(String referencedName, @Nullable String attribute) {
+                return partition.contains(referencedName) ? export(referencedName, attribute) : null;
+            }
+
+            @Override
+            public Object importValue(String importName) {
+                return getAtt(exportingStacks.get(importName).name, OUTPUTS + '.' + importName);
+            }
+        }
+
+        private final class ParameterCollector implements ReferenceRewriter.ReferenceResolver {
+            private final Set<String> collected;
+
+            ParameterCollector(Set<String> collected) {
+                this.collected = collected;
+            }
+
+            @Nullable
+            @Override
+            public String importName(String referencedName, @Nullable String attribute) {
+                if (parameters.containsKey(referencedName)) {
+                    collected.add(referencedName);
+                }
+                return null;
+            }
+
+            @Override
+            public Object importValue(String importName) {
+                throw new IllegalStateException("Nothing is imported: " + importName);
+            }
+        }
+    }
+
+    private static List<String> dependencyNames(@Nullable Object dependsOn) {
+        List<String> names = new ArrayList<>();
+        if (dependsOn == null) {
+            return names;
+        }
+        Collection<?> values = dependsOn instanceof Collection ? (Collection<?>) dependsOn : ImmutableList.of(dependsOn);
+        for (Object value : values) {
+            if (value instanceof CfnResource) {
+                names.add(((CfnResource) value).getResourceName());
+            } else if (value instanceof CharSequence) {
+                names.add(value.toString());
+            }
+        }
+        return names;
+    }
+
+    private static final class ChildStack {
+        private final String name;
+        private final Map<String, CfnResource> resources = new LinkedHashMap<>();
+        private final Set<String> parameters = new HashSet<>();
+        private final Map<String, ChildStack> imports = new LinkedHashMap<>();
+        private final Map<String, Object> exports = new LinkedHashMap<>();
+        private final Set<Integer> dependsOn = new TreeSet<>();
+
+        ChildStack(String name) {
+            this.name = name;
+        }
+    }
+}
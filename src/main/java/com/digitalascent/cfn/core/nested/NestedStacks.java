@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.nested;
+
+import com.digitalascent.cfn.core.graph.StackPartition;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A template split into a parent template of {@code AWS::CloudFormation::Stack} resources and one child template per
+ * nested stack. The templates are maps, ready for a {@code CloudFormationGenerator}.
+ */
+public final class NestedStacks {
+    private final Map<String, Object> parentTemplate;
+    private final Map<String, Map<String, Object>> childTemplates;
+    private final StackPartition partition;
+
+    NestedStacks(Map<String, Object> parentTemplate, Map<String, Map<String, Object>> childTemplates, StackPartition partition) {
+        this.parentTemplate = ImmutableMap.copyOf(checkNotNull(parentTemplate, "parentTemplate is required"));
+        this.childTemplates = ImmutableMap.copyOf(checkNotNull(childTemplates, "childTemplates is required"));
+        this.partition = checkNotNull(partition, "partition is required");
+    }
+
+    public Map<String, Object> getParentTemplate() {
+        return parentTemplate;
+    }
+
+    /**
+     * Child templates by the logical name of their stack resource in the parent, in dependency order.
+     */
+    public Map<String, Map<String, Object>> getChildTemplates() {
+        return childTemplates;
+    }
+
+    public StackPartition getPartition() {
+        return partition;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("childTemplates", childTemplates.keySet())
+                .add("partition", partition)
+                .toString();
+    }
+}
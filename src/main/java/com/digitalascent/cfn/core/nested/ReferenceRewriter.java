@@ -0,0 +1,283 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.nested;
+
+import com.digitalascent.cfn.core.domain.CfnObject;
+import com.digitalascent.cfn.core.domain.CfnResource;
+import com.digitalascent.cfn.core.domain.IntrinsicFunction;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Rewrites Ref, Fn::GetAtt and Fn::Sub references that cross a stack boundary.
+ * <p>
+ * Subtrees without such references are returned as the same instance, so only the resources that actually reference
+ * another stack are copied. Originals are never modified.
+ */
+final class ReferenceRewriter {
+    static final String REF = "Ref";
+    static final String GET_ATT = "Fn::GetAtt";
+    private static final String SUB = "Fn::Sub";
+    private static final String TYPE = "type";
+
+    interface ReferenceResolver {
+        /**
+         * @param attribute null for Ref
+         * @return the name the reference is imported under, or null if it is local and stays as-is
+         */
+        @Nullable
+        String importName(String referencedName, @Nullable String attribute);
+
+        /**
+         * Value replacing references imported under the given name.
+         */
+        Object importValue(String importName);
+    }
+
+    private final ReferenceResolver resolver;
+
+    ReferenceRewriter(ReferenceResolver resolver) {
+        this.resolver = checkNotNull(resolver, "resolver is required");
+    }
+
+    /**
+     * @param skippedProperty resource-level property copied without rewriting, e.g. DependsOn when handled separately
+     */
+    CfnResource rewriteResource(CfnResource resource, @Nullable String skippedProperty) {
+        Map<String, Object> rewritten = rewriteProperties(resource.getPropertiesView(), skippedProperty);
+        if (rewritten == null) {
+            return resource;
+        }
+
+        CfnResource copy = new CfnResource(resource.getResourceName(), resource.getResourceType());
+        rewritten.forEach((name, value) -> {
+            if (!TYPE.equals(name)) {
+                copy.setProperty(name, value);
+            }
+        });
+        return copy;
+    }
+
+    /**
+     * Visits the references in value without rewriting; the resolver must keep every reference local. Nothing is
+     * copied, as unchanged subtrees are returned as-is.
+     */
+    void collect(@Nullable Object value) {
+        checkState(rewrite(value) == value, "References imported while collecting");
+    }
+
+    @Nullable
+    Object rewrite(@Nullable Object value) {
+        if (value instanceof IntrinsicFunction) {
+            return rewriteFunction((IntrinsicFunction) value);
+        }
+        if (value instanceof CfnResource) {
+            // only found in DependsOn, which is resolved by name
+            return value;
+        }
+        if (value instanceof CfnObject) {
+            return rewriteObject((CfnObject) value);
+        }
+        if (value instanceof List) {
+            return rewriteList((List<?>) value);
+        }
+        if (value instanceof Collection) {
+            return rewriteList(new ArrayList<>((Collection<?>) value));
+        }
+        if (value instanceof Map) {
+            return rewriteMap((Map<?, ?>) value);
+        }
+        return value;
+    }
+
+    private Object rewriteObject(CfnObject cfnObject) {
+        Map<String, Object> rewritten = rewriteProperties(cfnObject.getPropertiesView(), null);
+        if (rewritten == null) {
+            return cfnObject;
+        }
+
+        CfnObject copy = new CfnObject(cfnObject.getResourceType(), cfnObject.getPath());
+        rewritten.forEach(copy::setProperty);
+        return copy;
+    }
+
+    // null if nothing changed
+    @Nullable
+    private Map<String, Object> rewriteProperties(Map<String, Object> properties, @Nullable String skippedProperty) {
+        Map<String, Object> rewritten = null;
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            Object value = entry.getValue();
+            Object newValue = entry.getKey().equalsIgnoreCase(skippedProperty) ? value : rewrite(value);
+            if (newValue != value && rewritten == null) {
+                rewritten = new LinkedHashMap<>(properties);
+            }
+            if (rewritten != null) {
+                rewritten.put(entry.getKey(), newValue);
+            }
+        }
+        return rewritten;
+    }
+
+    private Object rewriteList(List<?> list) {
+        List<Object> copy = null;
+        for (int i = 0; i < list.size(); i++) {
+            Object item = list.get(i);
+            Object newItem = rewrite(item);
+            if (newItem != item && copy == null) {
+                copy = new ArrayList<>(list);
+            }
+            if (copy != null) {
+                copy.set(i, newItem);
+            }
+        }
+        return copy == null ? list : copy;
+    }
+
+    private Object rewriteMap(Map<?, ?> map) {
+        Map<Object, Object> copy = null;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            Object newValue = rewrite(entry.getValue());
+            if (newValue != entry.getValue() && copy == null) {
+                copy = new LinkedHashMap<>(map);
+            }
+            if (copy != null) {
+                copy.put(entry.getKey(), newValue);
+            }
+        }
+        return copy == null ? map : copy;
+    }
+
+    private Object rewriteFunction(IntrinsicFunction function) {
+        Object arguments = function.getArguments();
+        switch (function.getFunctionName()) {
+            case REF:
+                if (arguments instanceof CharSequence) {
+                    String importName = resolver.importName(arguments.toString(), null);
+                    return importName == null ? function : resolver.importValue(importName);
+                }
+                break;
+            case GET_ATT:
+                String importName = getAttImportName(arguments);
+                if (importName != null) {
+                    return resolver.importValue(importName);
+                }
+                break;
+            case SUB:
+                return rewriteSub(function);
+            default:
+                break;
+        }
+
+        Object newArguments = rewrite(arguments);
+        return newArguments == arguments ? function : IntrinsicFunction.of(function.getFunctionName(), checkNotNull(newArguments));
+    }
+
+    @Nullable
+    private String getAttImportName(Object arguments) {
+        if (arguments instanceof List && ((List<?>) arguments).size() == 2) {
+            List<?> list = (List<?>) arguments;
+            if (list.get(0) instanceof CharSequence && list.get(1) instanceof CharSequence) {
+                return resolver.importName(list.get(0).toString(), list.get(1).toString());
+            }
+        } else if (arguments instanceof CharSequence) {
+            // short form, LogicalName.AttributeName
+            String name = arguments.toString();
+            int dot = name.indexOf('.');
+            if (dot > 0) {
+                return resolver.importName(name.substring(0, dot), name.substring(dot + 1));
+            }
+        }
+        return null;
+    }
+
+    // ${Name} / ${Name.Attribute} tokens are replaced by ${ImportName} with ImportName added to the variable map
+    private Object rewriteSub(IntrinsicFunction function) {
+        Object arguments = function.getArguments();
+        Object input = arguments;
+        Map<?, ?> variables = null;
+        if (arguments instanceof List && !((List<?>) arguments).isEmpty()) {
+            List<?> list = (List<?>) arguments;
+            input = list.get(0);
+            if (list.size() > 1 && list.get(1) instanceof Map) {
+                variables = (Map<?, ?>) list.get(1);
+            }
+        }
+        if (!(input instanceof CharSequence)) {
+            Object newArguments = rewrite(arguments);
+            return newArguments == arguments ? function : IntrinsicFunction.of(SUB, checkNotNull(newArguments));
+        }
+
+        Map<Object, Object> newVariables = new LinkedHashMap<>();
+        String newInput = rewriteSubTokens(input.toString(), variables, newVariables);
+        Object rewrittenVariables = variables == null ? null : rewrite(variables);
+        if (newVariables.isEmpty() && rewrittenVariables == variables) {
+            return function;
+        }
+
+        Map<Object, Object> allVariables = new LinkedHashMap<>();
+        if (rewrittenVariables != null) {
+            allVariables.putAll((Map<?, ?>) rewrittenVariables);
+        }
+        allVariables.putAll(newVariables);
+        List<Object> newArguments = new ArrayList<>(2);
+        newArguments.add(newInput);
+        if (!allVariables.isEmpty()) {
+            newArguments.add(allVariables);
+        }
+        return IntrinsicFunction.of(SUB, newArguments);
+    }
+
+    private String rewriteSubTokens(String input, @Nullable Map<?, ?> variables, Map<Object, Object> newVariables) {
+        StringBuilder result = null;
+        int copied = 0;
+        int start = input.indexOf("${");
+        while (start >= 0) {
+            int end = input.indexOf('}', start + 2);
+            if (end < 0) {
+                break;
+            }
+            if (end > start + 2 && input.charAt(start + 2) != '!') {
+                String token = input.substring(start + 2, end);
+                int dot = token.indexOf('.');
+                String name = dot >= 0 ? token.substring(0, dot) : token;
+                String importName = variables != null && variables.containsKey(name) ? null
+                        : resolver.importName(name, dot >= 0 ? token.substring(dot + 1) : null);
+                if (importName != null) {
+                    if (result == null) {
+                        result = new StringBuilder(input.length());
+                    }
+                    result.append(input, copied, start).append("${").append(importName).append('}');
+                    copied = end + 1;
+                    newVariables.put(importName, resolver.importValue(importName));
+                }
+            }
+            start = input.indexOf("${", end + 1);
+        }
+        if (result == null) {
+            return input;
+        }
+        return result.append(input, copied, input.length()).toString();
+    }
+}
@@ -17,15 +17,19 @@
 package com.digitalascent.cfn.core.strategy;
 
 import com.digitalascent.cfn.core.domain.CfnObject;
+import com.digitalascent.cfn.core.domain.PropertyPath;
 import com.digitalascent.core.base.SimpleApplicationObject;
 import com.google.common.collect.ForwardingCollection;
 import com.google.common.collect.ForwardingMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import groovy.lang.Tuple;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.MapMaker;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,97 +37,240 @@ import java.util.Set;
 import java.util.function.Predicate;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.ImmutableList.toImmutableList;
-import static com.google.common.collect.ImmutableSet.toImmutableSet;
 
-public class ConfigurableImmutabilityStrategy extends SimpleApplicationObject implements ImmutabilityStrategy {
+/**
+ * Freezes properties according to glob path rules (see {@link PathRules}); paths matching no rule are immutable.
+ * <p>
+ * Rules also apply within collections: list and set elements are matched as indexed paths (e.g.
+ * {@code securityGroupIngress[*]}) and map entries as child paths, whenever a rule reaches below the frozen property.
+ */
+public class ConfigurableImmutabilityStrategy extends SimpleApplicationObject implements MutabilityStrategy {
     public ConfigurableImmutabilityStrategy(List<String> semiMutablePropertyPaths, List<String> mutablePropertyPaths) {
-        this.semiMutablePropertyPaths = ImmutableSet.copyOf(semiMutablePropertyPaths);
-        this.mutablePropertyPaths = ImmutableSet.copyOf(mutablePropertyPaths);
+        this.pathRules = new PathRules(ImmutableSet.copyOf(semiMutablePropertyPaths), ImmutableSet.copyOf(mutablePropertyPaths));
+    }
+
+    @Override
+    public Mutability mutabilityOf(PropertyPath propertyPath) {
+        Mutability mutability = pathRules.mutabilityOf(propertyPath);
+        switch (mutability) {
+            case MUTABLE:
+                getLogger().debug("Mutable property '{}'", propertyPath);
+                break;
+            case SEMI_MUTABLE:
+                getLogger().debug("Semi-mutable property '{}'", propertyPath);
+                break;
+            default:
+                getLogger().debug("Immutable property '{}'", propertyPath);
+        }
+        return mutability;
     }
 
     @Override
-    public Tuple maybeMakeImmutable(final String propertyPath, Object propertyValue) {
-        if (!isImmutableProperty(propertyPath)) {
-            getLogger().debug("Mutable property '{}'", propertyPath);
-            return null;
+    public Object freeze(Object propertyValue, Mutability mutability) {
+        return freezeWithin(null, propertyValue, mutability);
+    }
+
+    @Override
+    public Object freeze(PropertyPath propertyPath, Object propertyValue, Mutability mutability) {
+        return freezeWithin(elementRulesPath(propertyPath), propertyValue, mutability);
+    }
+
+    // elementsPath is null when no rule reaches below the value, so its elements are simply immutable
+    private Object freezeWithin(@Nullable PropertyPath elementsPath, Object propertyValue, Mutability mutability) {
+        switch (mutability) {
+            case MUTABLE:
+                return propertyValue;
+            case SEMI_MUTABLE:
+                return makeSemiMutable(elementsPath, propertyValue);
+            default:
+                return makeImmutable(elementsPath, propertyValue);
+        }
+    }
+
+    @Nullable
+    private PropertyPath elementRulesPath(@Nullable PropertyPath propertyPath) {
+        return propertyPath != null && pathRules.hasRulesBelow(propertyPath) ? propertyPath : null;
+    }
+
+    // list and set elements follow rules such as securityGroupIngress[*]; nested lists cannot be addressed by a rule
+    private Object freezeElement(@Nullable PropertyPath collectionPath, int index, Object element) {
+        if (collectionPath == null || collectionPath.hasIndex()) {
+            return makeImmutable(null, element);
         }
+        return freezeAt(collectionPath.element(index), element);
+    }
 
-        if (semiMutablePropertyPaths.contains(propertyPath)) {
-            getLogger().debug("Semi-mutable property '{}'", propertyPath);
-            return new Tuple(new Object[]{makeSemiMutable(propertyValue)});
+    private Object freezeEntryValue(@Nullable PropertyPath mapPath, Object key, Object value) {
+        if (mapPath == null || !(key instanceof String)) {
+            return makeImmutable(null, value);
         }
+        return freezeAt(mapPath.child((String) key), value);
+    }
 
-        getLogger().debug("Immutable property '{}'", propertyPath);
-        return new Tuple(new Object[]{makeImmutable(propertyValue)});
+    private Object freezeAt(PropertyPath path, Object value) {
+        return freezeWithin(elementRulesPath(path), value, pathRules.mutabilityOf(path));
     }
 
     @SuppressWarnings("unchecked")
-    private Object makeImmutable(Object o) {
-        if ((o instanceof String) || (o instanceof Number) || (o instanceof Boolean)) {
+    private Object makeImmutable(@Nullable PropertyPath elementsPath, Object o) {
+        if (isScalar(o)) {
             return o;
         }
 
         if (o instanceof CfnObject) {
             ((CfnObject) o).makeImmutable(this);
+            return o;
+        }
+
+        // frozen by an earlier pass and nothing inside can change; share as-is
+        if (elementsPath == null && deeplyFrozen.contains(o)) {
+            return o;
         }
 
         // TODO - handle arrays (normalize to list first)
 
         if (o instanceof List) {
-            return ImmutableList.copyOf(makeListElementsImmutable((List) o));
+            return freezeList(elementsPath, (List<Object>) o);
         }
 
         if (o instanceof Set) {
-            return ImmutableSet.copyOf(makeSetElementsImmutable((Set) o));
+            return freezeSet(elementsPath, (Set<Object>) o);
         }
 
         if (o instanceof Map) {
-            return ImmutableMap.copyOf(makeMapEntriesImmutable((Map) o));
+            return freezeMap(elementsPath, (Map<Object, Object>) o);
         }
 
         return o;
     }
 
-    private Map<Object, Object> makeMapEntriesImmutable(Map<Object, Object> propertyMap) {
-        final Map<Object, Object> map = new LinkedHashMap<>();
+    private static boolean isScalar(Object o) {
+        return (o instanceof String) || (o instanceof Number) || (o instanceof Boolean);
+    }
 
-        propertyMap.forEach((key, value) -> map.put( makeImmutable(key), makeImmutable(value)));
+    private boolean isDeeplyFrozen(Object o) {
+        return isScalar(o) || deeplyFrozen.contains(o);
+    }
 
-        return map;
+    /**
+     * Immutable lists are shared unless an element changes when frozen; other lists are copied once.
+     */
+    private ImmutableList<Object> freezeList(@Nullable PropertyPath elementsPath, List<Object> list) {
+        ImmutableList.Builder<Object> builder = list instanceof ImmutableList ? null : ImmutableList.builder();
+        boolean deep = true;
+        int i = 0;
+        for (Object element : list) {
+            Object frozen = freezeElement(elementsPath, i, element);
+            deep &= isDeeplyFrozen(frozen);
+            if (builder == null && frozen != element) {
+                builder = ImmutableList.builder().addAll(list.subList(0, i));
+            }
+            if (builder != null) {
+                builder.add(frozen);
+            }
+            i++;
+        }
+        return registerFrozen(builder == null ? (ImmutableList<Object>) list : builder.build(), deep);
     }
 
-    private Set<Object> makeSetElementsImmutable(Set<Object> originalSet) {
-        return originalSet.stream().map(this::makeImmutable).collect(toImmutableSet());
+    private ImmutableSet<Object> freezeSet(@Nullable PropertyPath elementsPath, Set<Object> set) {
+        ImmutableSet.Builder<Object> builder = set instanceof ImmutableSet ? null : ImmutableSet.builder();
+        boolean deep = true;
+        int i = 0;
+        for (Object element : set) {
+            Object frozen = freezeElement(elementsPath, i, element);
+            deep &= isDeeplyFrozen(frozen);
+            if (builder == null && frozen != element) {
+                builder = ImmutableSet.builder().addAll(Iterables.limit(set, i));
+            }
+            if (builder != null) {
+                builder.add(frozen);
+            }
+            i++;
+        }
+        return registerFrozen(builder == null ? (ImmutableSet<Object>) set : builder.build(), deep);
     }
 
-    private List<Object> makeListElementsImmutable(List<Object> originalList) {
-        return originalList.stream().map(this::makeImmutable).collect(toImmutableList());
+    private ImmutableMap<Object, Object> freezeMap(@Nullable PropertyPath elementsPath, Map<Object, Object> map) {
+        ImmutableMap.Builder<Object, Object> builder = map instanceof ImmutableMap ? null : ImmutableMap.builder();
+        boolean deep = true;
+        int i = 0;
+        for (Map.Entry<Object, Object> entry : map.entrySet()) {
+            Object key = makeImmutable(null, entry.getKey());
+            Object value = freezeEntryValue(elementsPath, entry.getKey(), entry.getValue());
+            deep &= isDeeplyFrozen(key) && isDeeplyFrozen(value);
+            if (builder == null && (key != entry.getKey() || value != entry.getValue())) {
+                builder = ImmutableMap.builder().putAll(Iterables.limit(map.entrySet(), i));
+            }
+            if (builder != null) {
+                builder.put(key, value);
+            }
+            i++;
+        }
+        return registerFrozen(builder == null ? (ImmutableMap<Object, Object>) map : builder.build(), deep);
+    }
+
+    private <T> T registerFrozen(T frozen, boolean deep) {
+        if (deep) {
+            deeplyFrozen.add(frozen);
+        }
+        return frozen;
+    }
+
+    private Map<Object, Object> makeMapEntriesImmutable(@Nullable PropertyPath elementsPath, Map<Object, Object> propertyMap) {
+        final Map<Object, Object> map = new LinkedHashMap<>();
+
+        propertyMap.forEach((key, value) -> map.put( makeImmutable(null, key), freezeEntryValue(elementsPath, key, value)));
+
+        return map;
     }
 
     @SuppressWarnings("unchecked")
-    private Object makeSemiMutable(Object obj) {
+    private Object makeSemiMutable(@Nullable PropertyPath elementsPath, Object obj) {
+        // re-freeze: keep existing wrappers, only freezing what was added since
+        if (obj instanceof SemiMutableCollection) {
+            SemiMutableCollection<Object> collection = (SemiMutableCollection<Object>) obj;
+            Object frozen = makeImmutable(elementsPath, collection.delegate());
+            return frozen == collection.delegate() ? collection : new SemiMutableCollection<>((Collection<Object>) frozen);
+        }
+
+        if (obj instanceof SemiMutableMap) {
+            return refreeze(elementsPath, (SemiMutableMap<Object, Object>) obj);
+        }
+
         if (obj instanceof List) {
-            return new SemiMutableCollection<>(makeListElementsImmutable((List<Object>) obj));
+            return new SemiMutableCollection<>(freezeList(elementsPath, (List<Object>) obj));
         }
 
         if (obj instanceof Set) {
-            return new SemiMutableCollection<>(makeSetElementsImmutable((Set<Object>) obj));
+            return new SemiMutableCollection<>(freezeSet(elementsPath, (Set<Object>) obj));
         }
 
         if (obj instanceof Map) {
-            return new SemiMutableMap<>(makeMapEntriesImmutable((Map<Object, Object>) obj));
+            return new SemiMutableMap<>(makeMapEntriesImmutable(elementsPath, (Map<Object, Object>) obj));
         }
 
-        return makeImmutable(obj);
+        return makeImmutable(elementsPath, obj);
     }
 
-    private boolean isImmutableProperty(String propertyPath) {
-        return !mutablePropertyPaths.contains(propertyPath);
+    private SemiMutableMap<Object, Object> refreeze(@Nullable PropertyPath elementsPath, SemiMutableMap<Object, Object> semiMutableMap) {
+        for (Map.Entry<Object, Object> entry : semiMutableMap.delegate().entrySet()) {
+            if (makeImmutable(null, entry.getKey()) != entry.getKey()) {
+                // keys can't be replaced in place
+                return new SemiMutableMap<>(makeMapEntriesImmutable(elementsPath, semiMutableMap.delegate()));
+            }
+            Object value = freezeEntryValue(elementsPath, entry.getKey(), entry.getValue());
+            if (value != entry.getValue()) {
+                entry.setValue(value);
+            }
+        }
+        return semiMutableMap;
     }
 
-    private final Set<String> semiMutablePropertyPaths;
-    private final Set<String> mutablePropertyPaths;
+    private final PathRules pathRules;
+
+    // collections produced or verified by this strategy that contain only scalars / other such collections
+    private final Set<Object> deeplyFrozen = Collections.newSetFromMap(new MapMaker().weakKeys().makeMap());
 
     private static class SemiMutableMap<K, V> extends ForwardingMap<K, V> {
         SemiMutableMap(Map<K, V> delegate) {
@@ -16,14 +16,24 @@
 
 package com.digitalascent.cfn.core.strategy;
 
+import com.digitalascent.cfn.core.domain.PropertyPath;
 import com.google.common.collect.ImmutableList;
-import groovy.lang.Tuple;
 
-public class DefaultImmutabilityStrategy implements ImmutabilityStrategy {
+public class DefaultImmutabilityStrategy implements MutabilityStrategy {
     @Override
-    public Tuple maybeMakeImmutable(String propertyPath, Object propertyValue) {
-        return configurableImmutabilityStrategy.maybeMakeImmutable(propertyPath, propertyValue);
+    public Mutability mutabilityOf(PropertyPath propertyPath) {
+        return configurableImmutabilityStrategy.mutabilityOf(propertyPath);
     }
 
-    private final ImmutabilityStrategy configurableImmutabilityStrategy = new ConfigurableImmutabilityStrategy(ImmutableList.of("properties.tags"), ImmutableList.of());
+    @Override
+    public Object freeze(Object propertyValue, Mutability mutability) {
+        return configurableImmutabilityStrategy.freeze(propertyValue, mutability);
+    }
+
+    @Override
+    public Object freeze(PropertyPath propertyPath, Object propertyValue, Mutability mutability) {
+        return configurableImmutabilityStrategy.freeze(propertyPath, propertyValue, mutability);
+    }
+
+    private final MutabilityStrategy configurableImmutabilityStrategy = new ConfigurableImmutabilityStrategy(ImmutableList.of("properties.tags"), ImmutableList.of());
 }
@@ -16,9 +16,17 @@
 
 package com.digitalascent.cfn.core.strategy;
 
+import com.digitalascent.cfn.core.domain.PropertyPath;
 import groovy.lang.Tuple;
 
 @FunctionalInterface
 public interface ImmutabilityStrategy {
     Tuple maybeMakeImmutable(String propertyPath, Object propertyValue);
+
+    /**
+     * Interned-path variant used by CfnObject; implementations may use the path as a cache key.
+     */
+    default Tuple maybeMakeImmutable(PropertyPath propertyPath, Object propertyValue) {
+        return maybeMakeImmutable(propertyPath.toString(), propertyValue);
+    }
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.strategy;
+
+/**
+ * How a property is frozen by an {@link ImmutabilityStrategy}; declared in precedence order when several rules match.
+ */
+public enum Mutability {
+    /**
+     * Left as-is; the property can be overwritten.
+     */
+    MUTABLE,
+
+    /**
+     * Existing entries are frozen; collections and maps may still be added to.
+     */
+    SEMI_MUTABLE,
+
+    /**
+     * Deeply immutable.
+     */
+    IMMUTABLE
+}
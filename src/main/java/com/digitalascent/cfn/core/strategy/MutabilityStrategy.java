@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.strategy;
+
+import com.digitalascent.cfn.core.domain.PropertyPath;
+import groovy.lang.Tuple;
+
+/**
+ * Allocation-free form of {@link ImmutabilityStrategy}: deciding and freezing are separate calls, so no Tuple is created
+ * per property.
+ */
+public interface MutabilityStrategy extends ImmutabilityStrategy {
+    Mutability mutabilityOf(PropertyPath propertyPath);
+
+    /**
+     * Freezes the value according to the decision; MUTABLE values are returned unchanged.
+     */
+    Object freeze(Object propertyValue, Mutability mutability);
+
+    /**
+     * Freezes the value found at the given path; strategies with rules for the value's elements or entries override this.
+     */
+    default Object freeze(PropertyPath propertyPath, Object propertyValue, Mutability mutability) {
+        return freeze(propertyValue, mutability);
+    }
+
+    @Override
+    default Tuple maybeMakeImmutable(PropertyPath propertyPath, Object propertyValue) {
+        Mutability mutability = mutabilityOf(propertyPath);
+        if (mutability == Mutability.MUTABLE) {
+            return null;
+        }
+        return new Tuple(new Object[]{freeze(propertyPath, propertyValue, mutability)});
+    }
+
+    @Override
+    default Tuple maybeMakeImmutable(String propertyPath, Object propertyValue) {
+        return maybeMakeImmutable(PropertyPath.parse(propertyPath), propertyValue);
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.strategy;
+
+import com.digitalascent.cfn.core.domain.PropertyPath;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.MapMaker;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Glob path rules compiled into a trie, matched one path segment at a time.
+ * <p>
+ * Patterns are dot-separated; a segment is a literal name, {@code *} (any name), or {@code **} (zero or more segments),
+ * optionally followed by {@code [*]} (any element) or {@code [n]}, e.g. {@code securityGroupIngress[*].cidrIp} or
+ * {@code *.tags}. A segment without an index only matches unindexed path segments.
+ * <p>
+ * The set of trie nodes reached by a path is memoized per interned {@link PropertyPath}, so a child path only consumes
+ * its last segment and repeat lookups do not allocate. When several rules match, the first {@link Mutability} constant
+ * wins; unmatched paths are {@link Mutability#IMMUTABLE}.
+ */
+final class PathRules {
+    private static final int NO_INDEX = -1;
+    private static final int ANY_INDEX = -2;
+    private static final String ANY_NAME = "*";
+    private static final String ANY_DEPTH = "**";
+
+    private static final State NO_MATCH = new State(new Node[0]);
+
+    private final State initialState;
+
+    // interned paths compare by identity, so weak keys are safe here
+    private final ConcurrentMap<PropertyPath, State> states = new MapMaker().weakKeys().makeMap();
+
+    PathRules(Collection<String> semiMutablePatterns, Collection<String> mutablePatterns) {
+        Node root = new Node(null, NO_INDEX, false);
+        semiMutablePatterns.forEach(pattern -> root.add(pattern, Mutability.SEMI_MUTABLE));
+        mutablePatterns.forEach(pattern -> root.add(pattern, Mutability.MUTABLE));
+        root.compile();
+
+        Set<Node> nodes = new LinkedHashSet<>();
+        addWithAnyDepthChildren(nodes, root);
+        initialState = new State(nodes.toArray(new Node[0]));
+    }
+
+    Mutability mutabilityOf(PropertyPath propertyPath) {
+        return stateOf(propertyPath).mutability;
+    }
+
+    /**
+     * Whether any rule could match a path below this one, e.g. an element or entry of a collection found at this path.
+     */
+    boolean hasRulesBelow(PropertyPath propertyPath) {
+        if (stateOf(propertyPath).descendable) {
+            return true;
+        }
+        // element paths are matched from the collection's parent, e.g. securityGroupIngress[*]
+        PropertyPath parent = propertyPath.getParent();
+        return !propertyPath.hasIndex() && (parent == null ? initialState : stateOf(parent)).hasElementRules(propertyPath.getSegment());
+    }
+
+    private State stateOf(PropertyPath path) {
+        State state = states.get(path);
+        if (state == null) {
+            // element paths share their parent with the unindexed path; segment and index are consumed together
+            PropertyPath parent = path.getParent();
+            state = (parent == null ? initialState : stateOf(parent)).next(path);
+            states.put(path, state);
+        }
+        return state;
+    }
+
+    private static void addWithAnyDepthChildren(Set<Node> nodes, Node node) {
+        if (nodes.add(node)) {
+            for (Node child : node.anyDepthChildren) {
+                addWithAnyDepthChildren(nodes, child);
+            }
+        }
+    }
+
+    private static final class State {
+        private final Node[] nodes;
+        private final Mutability mutability;
+        private final boolean descendable;
+
+        State(Node[] nodes) {
+            this.nodes = nodes;
+
+            Mutability decision = Mutability.IMMUTABLE;
+            boolean hasChildren = false;
+            for (Node node : nodes) {
+                if (node.mutability != null && node.mutability.compareTo(decision) < 0) {
+                    decision = node.mutability;
+                }
+                hasChildren |= node.anyDepth || !node.children.isEmpty();
+            }
+            this.mutability = decision;
+            this.descendable = hasChildren;
+        }
+
+        boolean hasElementRules(String segment) {
+            for (Node node : nodes) {
+                if (node.anyDepth) {
+                    return true;
+                }
+                for (Node child : node.literalChildren.getOrDefault(segment, ImmutableList.of())) {
+                    if (child.index != NO_INDEX) {
+                        return true;
+                    }
+                }
+                for (Node child : node.wildcardChildren) {
+                    if (child.index != NO_INDEX) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        State next(PropertyPath segment) {
+            if (nodes.length == 0) {
+                return NO_MATCH;
+            }
+
+            Set<Node> next = new LinkedHashSet<>();
+            for (Node node : nodes) {
+                if (node.anyDepth) {
+                    next.add(node);
+                }
+                for (Node child : node.literalChildren.getOrDefault(segment.getSegment(), ImmutableList.of())) {
+                    if (child.matchesIndex(segment)) {
+                        addWithAnyDepthChildren(next, child);
+                    }
+                }
+                for (Node child : node.wildcardChildren) {
+                    if (child.matchesIndex(segment)) {
+                        addWithAnyDepthChildren(next, child);
+                    }
+                }
+            }
+            return next.isEmpty() ? NO_MATCH : new State(next.toArray(new Node[0]));
+        }
+    }
+
+    private static final class Node {
+        @Nullable
+        private final String name;
+        private final int index;
+        private final boolean anyDepth;
+
+        @Nullable
+        private Mutability mutability;
+
+        private final Map<String, Node> children = new LinkedHashMap<>();
+        private final Map<String, List<Node>> literalChildren = new HashMap<>();
+        private final List<Node> wildcardChildren = new ArrayList<>();
+        private final List<Node> anyDepthChildren = new ArrayList<>();
+
+        Node(@Nullable String name, int index, boolean anyDepth) {
+            this.name = name;
+            this.index = index;
+            this.anyDepth = anyDepth;
+        }
+
+        void add(String pattern, Mutability ruleMutability) {
+            checkArgument(!pattern.isEmpty(), "pattern is required to be non-empty");
+
+            Node node = this;
+            for (String segment : pattern.split("\\.", -1)) {
+                node = node.children.computeIfAbsent(segment, Node::parse);
+            }
+            if (node.mutability == null || ruleMutability.compareTo(node.mutability) < 0) {
+                node.mutability = ruleMutability;
+            }
+        }
+
+        private static Node parse(String segment) {
+            if (ANY_DEPTH.equals(segment)) {
+                return new Node(null, NO_INDEX, true);
+            }
+
+            String segmentName = segment;
+            int segmentIndex = NO_INDEX;
+            int open = segment.lastIndexOf('[');
+            if (open >= 0 && segment.endsWith("]")) {
+                String indexText = segment.substring(open + 1, segment.length() - 1);
+                if (ANY_NAME.equals(indexText)) {
+                    segmentIndex = ANY_INDEX;
+                    segmentName = segment.substring(0, open);
+                } else if (!indexText.isEmpty() && indexText.chars().allMatch(Character::isDigit) && indexText.length() <= 9) {
+                    segmentIndex = Integer.parseInt(indexText);
+                    segmentName = segment.substring(0, open);
+                }
+            }
+            return new Node(ANY_NAME.equals(segmentName) ? null : segmentName, segmentIndex, false);
+        }
+
+        void compile() {
+            for (Node child : children.values()) {
+                if (child.anyDepth) {
+                    anyDepthChildren.add(child);
+                } else if (child.name == null) {
+                    wildcardChildren.add(child);
+                } else {
+                    literalChildren.computeIfAbsent(child.name, key -> new ArrayList<>()).add(child);
+                }
+                child.compile();
+            }
+        }
+
+        boolean matchesIndex(PropertyPath segment) {
+            switch (index) {
+                case NO_INDEX:
+                    return !segment.hasIndex();
+                case ANY_INDEX:
+                    return segment.hasIndex();
+                default:
+                    return segment.getIndex() == index;
+            }
+        }
+    }
+}
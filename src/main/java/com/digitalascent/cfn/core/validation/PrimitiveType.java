@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.validation;
+
+import javax.annotation.Nullable;
+import java.math.BigInteger;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+
+/**
+ * Primitive types of the resource specification. Strings are accepted wherever CloudFormation would coerce them.
+ */
+enum PrimitiveType {
+    STRING {
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof CharSequence || value instanceof Number || value instanceof Boolean;
+        }
+    },
+    INTEGER {
+        @Override
+        boolean accepts(Object value) {
+            return isIntegral(value);
+        }
+    },
+    LONG {
+        @Override
+        boolean accepts(Object value) {
+            return isIntegral(value);
+        }
+    },
+    DOUBLE {
+        @Override
+        boolean accepts(Object value) {
+            if (value instanceof CharSequence) {
+                try {
+                    Double.parseDouble(value.toString());
+                    return true;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+            return value instanceof Number;
+        }
+    },
+    BOOLEAN {
+        @Override
+        boolean accepts(Object value) {
+            if (value instanceof CharSequence) {
+                String s = value.toString();
+                return "true".equalsIgnoreCase(s) || "false".equalsIgnoreCase(s);
+            }
+            return value instanceof Boolean;
+        }
+    },
+    TIMESTAMP {
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof CharSequence || value instanceof Date || value instanceof TemporalAccessor;
+        }
+    },
+    JSON {
+        @Override
+        boolean accepts(Object value) {
+            // any document, including CfnObjects built from closures
+            return true;
+        }
+    };
+
+    abstract boolean accepts(Object value);
+
+    /**
+     * @return null for a missing or unknown primitive type
+     */
+    @Nullable
+    static PrimitiveType fromSpecification(@Nullable String primitiveType) {
+        if (primitiveType == null) {
+            return null;
+        }
+        switch (primitiveType) {
+            case "String":
+                return STRING;
+            case "Integer":
+                return INTEGER;
+            case "Long":
+                return LONG;
+            case "Double":
+                return DOUBLE;
+            case "Boolean":
+                return BOOLEAN;
+            case "Timestamp":
+                return TIMESTAMP;
+            case "Json":
+                return JSON;
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isIntegral(Object value) {
+        if (value instanceof CharSequence) {
+            try {
+                Long.parseLong(value.toString());
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+                || value instanceof BigInteger;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.validation;
+
+import com.digitalascent.cfn.core.cfnresourcespecification.CfnPropertySpecification;
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Compiled checks for one property: its shape, primitive or item type, and whether it is required. Property types are
+ * linked on first use, as they may be recursive.
+ */
+final class PropertyValidator {
+    private static final String LIST = "List";
+    private static final String MAP = "Map";
+
+    enum Shape {
+        PRIMITIVE,
+        LIST,
+        MAP,
+        OBJECT
+    }
+
+    private final String formalPropertyName;
+    private final Shape shape;
+    private final int requiredIndex;
+
+    // primitive type of the value (PRIMITIVE) or of the items (LIST, MAP); null to accept anything
+    @Nullable
+    private final PrimitiveType primitiveType;
+
+    // property type of the value (OBJECT) or of the items (LIST, MAP without a primitive item type)
+    @Nullable
+    private final String propertyTypeName;
+
+    @Nullable
+    private volatile TypeValidator propertyType;
+    private volatile boolean propertyTypeLinked;
+
+    PropertyValidator(String formalPropertyName, CfnPropertySpecification propertySpecification, int requiredIndex) {
+        this.formalPropertyName = checkNotNull(formalPropertyName, "formalPropertyName is required");
+        this.requiredIndex = requiredIndex;
+
+        String type = propertySpecification.getType();
+        if (LIST.equals(type) || MAP.equals(type)) {
+            this.shape = LIST.equals(type) ? Shape.LIST : Shape.MAP;
+            this.primitiveType = PrimitiveType.fromSpecification(propertySpecification.getPrimitiveItemType());
+            this.propertyTypeName = primitiveType == null ? propertySpecification.getItemType() : null;
+        } else if (type != null) {
+            this.shape = Shape.OBJECT;
+            this.primitiveType = null;
+            this.propertyTypeName = type;
+        } else {
+            this.shape = Shape.PRIMITIVE;
+            this.primitiveType = PrimitiveType.fromSpecification(propertySpecification.getPrimitiveType());
+            this.propertyTypeName = null;
+        }
+    }
+
+    String getFormalPropertyName() {
+        return formalPropertyName;
+    }
+
+    Shape getShape() {
+        return shape;
+    }
+
+    /**
+     * Index among the type's required properties, or -1 if optional.
+     */
+    int getRequiredIndex() {
+        return requiredIndex;
+    }
+
+    @Nullable
+    PrimitiveType getPrimitiveType() {
+        return primitiveType;
+    }
+
+    @Nullable
+    String getPropertyTypeName() {
+        return propertyTypeName;
+    }
+
+    boolean isPropertyTypeLinked() {
+        return propertyTypeLinked;
+    }
+
+    @Nullable
+    TypeValidator getPropertyType() {
+        return propertyType;
+    }
+
+    void linkPropertyType(@Nullable TypeValidator propertyType) {
+        this.propertyType = propertyType;
+        this.propertyTypeLinked = true;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("formalPropertyName", formalPropertyName)
+                .add("shape", shape)
+                .add("primitiveType", primitiveType)
+                .add("propertyTypeName", propertyTypeName)
+                .toString();
+    }
+}
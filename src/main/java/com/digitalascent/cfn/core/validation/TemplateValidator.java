@@ -0,0 +1,315 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.validation;
+
+import com.digitalascent.cfn.core.cfnresourcespecification.CfnTypeSpecification;
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecException;
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationService;
+import com.digitalascent.cfn.core.domain.CfnObject;
+import com.digitalascent.cfn.core.domain.CfnResource;
+import com.digitalascent.cfn.core.domain.IntrinsicFunction;
+import com.digitalascent.cfn.core.domain.PropertyPath;
+import com.digitalascent.core.base.SimpleApplicationObject;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Validates resources against the resource specification before they ever reach CloudFormation: unknown resource types
+ * and property names, missing required properties, primitive types, and list / map / property type shapes.
+ * <p>
+ * Each resource and property type is compiled into a {@link TypeValidator} once, on first use. Resources are validated
+ * in parallel on a {@link ForkJoinPool} and every error is collected with its property path, rather than failing on
+ * the first. Intrinsic functions are accepted for any property, as they are only resolved at deploy time; custom
+ * resources are not validated. Instances are safe for concurrent use.
+ */
+public final class TemplateValidator extends SimpleApplicationObject {
+    // resources validated per fork-join leaf task
+    private static final int BATCH_SIZE = 8;
+    private static final String RESOURCES = "Resources";
+    private static final String PROPERTIES = "properties";
+    private static final String TYPE = "type";
+    private static final String CUSTOM_RESOURCE_PREFIX = "Custom::";
+    private static final String CUSTOM_RESOURCE_TYPE = "AWS::CloudFormation::CustomResource";
+
+    private final ResourceSpecificationService resourceSpecificationService;
+    private final ForkJoinPool pool;
+    private final ConcurrentMap<String, TypeValidator> resourceTypes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TypeValidator> propertyTypes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Boolean> unknownTypes = new ConcurrentHashMap<>();
+
+    public TemplateValidator(ResourceSpecificationService resourceSpecificationService) {
+        this(resourceSpecificationService, ForkJoinPool.commonPool());
+    }
+
+    public TemplateValidator(ResourceSpecificationService resourceSpecificationService, ForkJoinPool pool) {
+        this.resourceSpecificationService = checkNotNull(resourceSpecificationService, "resourceSpecificationService is required");
+        this.pool = checkNotNull(pool, "pool is required");
+    }
+
+    /**
+     * Validates the CfnResource values of a template map's {@code Resources}.
+     */
+    public ValidationReport validateTemplate(Map<String, ?> template) {
+        checkNotNull(template, "template is required");
+        List<CfnResource> resources = new ArrayList<>();
+        Object resourceMap = template.get(RESOURCES);
+        if (resourceMap instanceof Map) {
+            for (Object resource : ((Map<?, ?>) resourceMap).values()) {
+                if (resource instanceof CfnResource) {
+                    resources.add((CfnResource) resource);
+                }
+            }
+        }
+        return validate(resources);
+    }
+
+    public ValidationReport validate(Collection<CfnResource> resources) {
+        checkNotNull(resources, "resources is required");
+        CfnResource[] resourceArray = resources.toArray(new CfnResource[0]);
+        List<List<ValidationError>> errors = new ArrayList<>(resourceArray.length);
+        for (int i = 0; i < resourceArray.length; i++) {
+            errors.add(ImmutableList.of());
+        }
+        pool.invoke(new ValidateResources(resourceArray, errors, 0, resourceArray.length));
+
+        ImmutableList.Builder<ValidationError> allErrors = ImmutableList.builder();
+        errors.forEach(allErrors::addAll);
+        return new ValidationReport(allErrors.build());
+    }
+
+    private List<ValidationError> validate(CfnResource resource) {
+        String resourceType = resource.getResourceType();
+        if (resourceType.startsWith(CUSTOM_RESOURCE_PREFIX) || resourceType.equals(CUSTOM_RESOURCE_TYPE)) {
+            return ImmutableList.of();
+        }
+
+        ResourceValidation validation = new ResourceValidation(resource.getResourceName());
+        TypeValidator typeValidator = findResourceType(resourceType);
+        if (typeValidator == null) {
+            validation.addError(PropertyPath.of(TYPE), ValidationErrorType.UNKNOWN_RESOURCE_TYPE, "Unknown resource type " + resourceType);
+            return validation.errors;
+        }
+
+        Object properties = resource.getPropertiesView().get(PROPERTIES);
+        validation.validateValue(typeValidator, properties == null ? ImmutableMap.of() : properties, PropertyPath.of(PROPERTIES));
+        return validation.errors;
+    }
+
+    @Nullable
+    private TypeValidator findResourceType(String resourceType) {
+        return compileIfAbsent(resourceType, resourceTypes, resourceSpecificationService::findResourceTypeSpecification);
+    }
+
+    // scoped to the resource type first, e.g. AWS::EC2::Instance.BlockDeviceMapping, then shared, e.g. Tag
+    @Nullable
+    private TypeValidator linkPropertyType(TypeValidator owner, PropertyValidator propertyValidator) {
+        if (!propertyValidator.isPropertyTypeLinked()) {
+            String propertyTypeName = propertyValidator.getPropertyTypeName();
+            TypeValidator propertyType = null;
+            if (propertyTypeName != null) {
+                propertyType = findPropertyType(owner.getResourceType() + '.' + propertyTypeName);
+                if (propertyType == null) {
+                    propertyType = findPropertyType(propertyTypeName);
+                }
+            }
+            propertyValidator.linkPropertyType(propertyType);
+        }
+        return propertyValidator.getPropertyType();
+    }
+
+    @Nullable
+    private TypeValidator findPropertyType(String propertyType) {
+        return compileIfAbsent(propertyType, propertyTypes, resourceSpecificationService::findPropertyTypeSpecification);
+    }
+
+    @Nullable
+    private TypeValidator compileIfAbsent(String typeName, ConcurrentMap<String, TypeValidator> compiledTypes, TypeSpecificationSource source) {
+        TypeValidator typeValidator = compiledTypes.get(typeName);
+        if (typeValidator != null || unknownTypes.containsKey(typeName)) {
+            return typeValidator;
+        }
+
+        try {
+            CfnTypeSpecification typeSpecification = source.find(typeName);
+            return compiledTypes.computeIfAbsent(typeName, name -> new TypeValidator(name, typeSpecification));
+        } catch (ResourceSpecException e) {
+            getLogger().debug("Not validating {} : {}", typeName, e.getMessage());
+            unknownTypes.put(typeName, Boolean.TRUE);
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface TypeSpecificationSource {
+        CfnTypeSpecification find(String typeName) throws ResourceSpecException;
+    }
+
+    /**
+     * Errors of a single resource; not thread-safe.
+     */
+    private final class ResourceValidation {
+        private final String resourceName;
+        private final List<ValidationError> errors = new ArrayList<>();
+
+        ResourceValidation(String resourceName) {
+            this.resourceName = resourceName;
+        }
+
+        void validateValue(TypeValidator typeValidator, Object value, PropertyPath path) {
+            Map<?, ?> properties = asProperties(value);
+            if (properties == null) {
+                addError(path, ValidationErrorType.INVALID_VALUE, "Expected a " + typeValidator.getTypeName() + " but was " + describe(value));
+                return;
+            }
+
+            List<PropertyValidator> requiredProperties = typeValidator.getRequiredProperties();
+            boolean[] present = new boolean[requiredProperties.size()];
+            for (Map.Entry<?, ?> entry : properties.entrySet()) {
+                String propertyName = String.valueOf(entry.getKey());
+                PropertyValidator propertyValidator = typeValidator.findProperty(propertyName);
+                if (propertyValidator == null) {
+                    addError(path.child(propertyName), ValidationErrorType.UNKNOWN_PROPERTY,
+                            "Unknown property '" + propertyName + "' on type " + typeValidator.getTypeName());
+                    continue;
+                }
+                if (propertyValidator.getRequiredIndex() >= 0) {
+                    present[propertyValidator.getRequiredIndex()] = true;
+                }
+                validateProperty(typeValidator, propertyValidator, entry.getValue(), path.child(propertyName));
+            }
+
+            for (int i = 0; i < present.length; i++) {
+                if (!present[i]) {
+                    String propertyName = requiredProperties.get(i).getFormalPropertyName();
+                    addError(path.child(propertyName), ValidationErrorType.MISSING_REQUIRED_PROPERTY,
+                            "Missing required property '" + propertyName + "' on type " + typeValidator.getTypeName());
+                }
+            }
+        }
+
+        private void validateProperty(TypeValidator owner, PropertyValidator propertyValidator, @Nullable Object value, PropertyPath path) {
+            if (value instanceof IntrinsicFunction) {
+                return;
+            }
+
+            switch (propertyValidator.getShape()) {
+                case LIST:
+                    if (!(value instanceof Collection)) {
+                        addError(path, ValidationErrorType.INVALID_VALUE, "Expected a list but was " + describe(value));
+                        return;
+                    }
+                    int index = 0;
+                    for (Object item : (Collection<?>) value) {
+                        validateItem(owner, propertyValidator, item, path.element(index++));
+                    }
+                    break;
+                case MAP:
+                    Map<?, ?> map = asProperties(value);
+                    if (map == null) {
+                        addError(path, ValidationErrorType.INVALID_VALUE, "Expected a map but was " + describe(value));
+                        return;
+                    }
+                    map.forEach((key, item) -> validateItem(owner, propertyValidator, item, path.child(String.valueOf(key))));
+                    break;
+                default:
+                    validateItem(owner, propertyValidator, value, path);
+            }
+        }
+
+        // a single value, or a list / map item
+        private void validateItem(TypeValidator owner, PropertyValidator propertyValidator, @Nullable Object value, PropertyPath path) {
+            if (value instanceof IntrinsicFunction) {
+                return;
+            }
+            if (value == null) {
+                addError(path, ValidationErrorType.INVALID_VALUE, "Expected a value but was null");
+                return;
+            }
+
+            PrimitiveType primitiveType = propertyValidator.getPrimitiveType();
+            if (primitiveType != null) {
+                if (!primitiveType.accepts(value)) {
+                    addError(path, ValidationErrorType.INVALID_VALUE, "Expected " + primitiveType + " but was " + describe(value));
+                }
+                return;
+            }
+
+            TypeValidator propertyType = linkPropertyType(owner, propertyValidator);
+            if (propertyType != null) {
+                validateValue(propertyType, value, path);
+            }
+        }
+
+        void addError(PropertyPath path, ValidationErrorType errorType, String message) {
+            errors.add(new ValidationError(resourceName, path.toString(), errorType, message));
+        }
+    }
+
+    @Nullable
+    private static Map<?, ?> asProperties(@Nullable Object value) {
+        if (value instanceof CfnObject) {
+            return ((CfnObject) value).getPropertiesView();
+        }
+        return value instanceof Map ? (Map<?, ?>) value : null;
+    }
+
+    private static String describe(@Nullable Object value) {
+        return value == null ? "null" : value.getClass().getSimpleName() + " '" + value + "'";
+    }
+
+    private final class ValidateResources extends RecursiveAction {
+        private static final long serialVersionUID = 4718203948576L;
+
+        private final transient CfnResource[] resources;
+        private final transient List<List<ValidationError>> errors;
+        private final int from;
+        private final int to;
+
+        ValidateResources(CfnResource[] resources, List<List<ValidationError>> errors, int from, int to) {
+            this.resources = resources;
+            this.errors = errors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_SIZE) {
+                for (int i = from; i < to; i++) {
+                    errors.set(i, validate(resources[i]));
+                }
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new ValidateResources(resources, errors, from, mid),
+                    new ValidateResources(resources, errors, mid, to));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.validation;
+
+import com.digitalascent.cfn.core.cfnresourcespecification.CfnPropertySpecification;
+import com.digitalascent.cfn.core.cfnresourcespecification.CfnTypeSpecification;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Compiled validator for a resource or property type; built once per type and shared by all validations.
+ * <p>
+ * Model property names are camel case, the specification's are Pascal case, so properties are matched
+ * case-insensitively; each distinct model name is resolved once and then found by exact match.
+ */
+final class TypeValidator {
+    private final String typeName;
+    private final String resourceType;
+    private final ImmutableSortedMap<String, PropertyValidator> properties;
+    private final ImmutableList<PropertyValidator> requiredProperties;
+    private final ConcurrentMap<String, PropertyValidator> resolvedNames = new ConcurrentHashMap<>();
+
+    TypeValidator(String typeName, CfnTypeSpecification typeSpecification) {
+        this.typeName = checkNotNull(typeName, "typeName is required");
+
+        // property types are scoped to their resource type, e.g. AWS::EC2::Instance.BlockDeviceMapping; shared ones (Tag) are not
+        int separator = typeName.indexOf('.');
+        this.resourceType = separator < 0 ? typeName : typeName.substring(0, separator);
+
+        SortedMap<String, PropertyValidator> propertiesByName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        ImmutableList.Builder<PropertyValidator> requiredBuilder = ImmutableList.builder();
+        int requiredCount = 0;
+        for (Map.Entry<String, CfnPropertySpecification> entry : typeSpecification.getProperties().entrySet()) {
+            // first property wins if the specification ever contains names differing only by case, as when resolving names
+            if (propertiesByName.containsKey(entry.getKey())) {
+                continue;
+            }
+            CfnPropertySpecification propertySpecification = entry.getValue();
+            int requiredIndex = propertySpecification.isRequired() ? requiredCount++ : -1;
+            PropertyValidator propertyValidator = new PropertyValidator(entry.getKey(), propertySpecification, requiredIndex);
+            propertiesByName.put(entry.getKey(), propertyValidator);
+            if (requiredIndex >= 0) {
+                requiredBuilder.add(propertyValidator);
+            }
+        }
+        this.properties = ImmutableSortedMap.copyOfSorted(propertiesByName);
+        this.requiredProperties = requiredBuilder.build();
+    }
+
+    String getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * Resource type that scopes this type's property types.
+     */
+    String getResourceType() {
+        return resourceType;
+    }
+
+    /**
+     * Required properties, in required-index order.
+     */
+    List<PropertyValidator> getRequiredProperties() {
+        return requiredProperties;
+    }
+
+    @Nullable
+    PropertyValidator findProperty(String propertyName) {
+        PropertyValidator propertyValidator = resolvedNames.get(propertyName);
+        if (propertyValidator == null) {
+            propertyValidator = properties.get(propertyName);
+            if (propertyValidator != null) {
+                resolvedNames.put(propertyName, propertyValidator);
+            }
+        }
+        return propertyValidator;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("typeName", typeName)
+                .add("properties", properties.size())
+                .toString();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.validation;
+
+import com.google.common.base.MoreObjects;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public final class ValidationError {
+    private final String resourceName;
+    private final String path;
+    private final ValidationErrorType errorType;
+    private final String message;
+
+    ValidationError(String resourceName, String path, ValidationErrorType errorType, String message) {
+        this.resourceName = checkNotNull(resourceName, "resourceName is required");
+        this.path = checkNotNull(path, "path is required");
+        this.errorType = checkNotNull(errorType, "errorType is required");
+        this.message = checkNotNull(message, "message is required");
+    }
+
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    /**
+     * Model property path within the resource, e.g. {@code properties.blockDeviceMappings[0].deviceName}.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public ValidationErrorType getErrorType() {
+        return errorType;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("resourceName", resourceName)
+                .add("path", path)
+                .add("errorType", errorType)
+                .add("message", message)
+                .toString();
+    }
+}
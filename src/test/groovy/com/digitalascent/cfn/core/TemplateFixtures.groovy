@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core
+
+import com.digitalascent.cfn.core.domain.CfnResource
+import com.digitalascent.cfn.core.generator.CloudFormationGenerator
+import com.fasterxml.jackson.databind.JsonNode
+import com.fasterxml.jackson.databind.ObjectMapper
+
+/**
+ * Template fixtures and generation helpers shared by the specifications.
+ */
+final class TemplateFixtures {
+
+    private TemplateFixtures() {
+        // EMPTY
+    }
+
+    static CfnResource instance(String name, Closure<?> properties) {
+        CfnResource resource = CfnResource.create(name, "AWS::EC2::Instance")
+        resource.properties = properties
+        return resource
+    }
+
+    /**
+     * Template with instance1..instanceN, each referencing the subnet parameter.
+     */
+    static Map<String, Object> instancesTemplate(int resourceCount) {
+        Map<String, Object> resources = [:]
+        (1..resourceCount).each { i ->
+            String name = "instance${i}"
+            resources[name] = instance(name) {
+                instanceType = "m4.xlarge"
+                subnetId = Ref("subnet")
+                blockDeviceMappings = [
+                        {
+                            deviceName = "/dev/sdh"
+                        }
+                ]
+                tags = ["Name": name]
+            }
+        }
+        return [
+                AWSTemplateFormatVersion: "2010-09-09",
+                Parameters              : [subnet: [Type: "String"]],
+                Resources               : resources
+        ]
+    }
+
+    static String generate(CloudFormationGenerator generator, Object model, boolean prettyPrint) {
+        ByteArrayOutputStream os = new ByteArrayOutputStream()
+        generator.generate(model, os, prettyPrint)
+        return os.toString("UTF-8")
+    }
+
+    static JsonNode generateJson(CloudFormationGenerator generator, Object model) {
+        return new ObjectMapper().readTree(generate(generator, model, false))
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification
+
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+
+class AsyncResourceSpecificationServiceTest extends Specification {
+
+    def "construction does not wait for loading"() {
+        setup:
+        List<Runnable> tasks = []
+
+        when:
+        AsyncResourceSpecificationService service = ResourceSpecificationServiceImpl.createAsync({ tasks << it } as Executor)
+
+        then:
+        tasks.size() == 1
+        !service.loaded
+    }
+
+    def "first lookup waits for loading"() {
+        setup:
+        List<Runnable> tasks = []
+        AsyncResourceSpecificationService service = ResourceSpecificationServiceImpl.createAsync({ tasks << it } as Executor)
+        Thread loader = Thread.start {
+            sleep(50)
+            tasks[0].run()
+        }
+
+        when:
+        String propertyName = service.findPropertyNameFor("AWS::EC2::Instance", "properties.imageId")
+
+        then:
+        propertyName == "ImageId"
+        service.loaded
+        service.listResourceTypes() == new ResourceSpecificationServiceImpl().listResourceTypes()
+        service.whenLoaded().get().findUpdateType("AWS::EC2::Instance", "imageId") == UpdateType.IMMUTABLE
+
+        cleanup:
+        loader.join()
+    }
+
+    def "load failure rethrown from lookups"() {
+        setup:
+        AsyncResourceSpecificationService service = ResourceSpecificationServiceImpl.createAsync(
+                new URL("file:/does/not/exist.json"), { it.run() } as Executor)
+
+        when:
+        service.listResourceTypes()
+
+        then:
+        RuntimeException e = thrown()
+        e.cause instanceof FileNotFoundException
+    }
+
+    def "lookup failures are not load failures"() {
+        setup:
+        AsyncResourceSpecificationService service = ResourceSpecificationServiceImpl.createAsync()
+
+        when:
+        service.findResourceTypeSpecification("AWS::Nope::Nothing")
+
+        then:
+        thrown(ResourceSpecException)
+    }
+
+    def "default loading runs on a daemon thread"() {
+        setup:
+        Thread loaderThread = null
+        CountDownLatch ran = new CountDownLatch(1)
+
+        when:
+        ResourceSpecificationServiceImpl.LOADER.execute {
+            loaderThread = Thread.currentThread()
+            ran.countDown()
+        }
+        ran.await()
+
+        then:
+        loaderThread.daemon
+        loaderThread.name.startsWith("cfn-resource-specification-loader-")
+        ResourceSpecificationServiceImpl.createAsync().findPropertyNameFor("AWS::EC2::Instance", "properties.imageId") == "ImageId"
+    }
+}
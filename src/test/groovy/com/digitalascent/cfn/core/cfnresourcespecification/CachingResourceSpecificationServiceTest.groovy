@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification
+
+import spock.lang.Specification
+
+class CachingResourceSpecificationServiceTest extends Specification {
+
+    ResourceSpecificationService delegate = Mock()
+
+    def "repeated lookups served from cache"() {
+        setup:
+        CachingResourceSpecificationService service = new CachingResourceSpecificationService(delegate)
+
+        when:
+        def names = (1..3).collect { service.findPropertyNameFor("AWS::EC2::Instance", "properties.instanceType") }
+
+        then:
+        1 * delegate.lookupPropertyName("AWS::EC2::Instance", "properties.instanceType") >> Optional.of("InstanceType")
+        names == ["InstanceType"] * 3
+        service.stats().hitCount == 2
+        service.stats().missCount == 1
+    }
+
+    def "failed lookups cached"() {
+        setup:
+        CachingResourceSpecificationService service = new CachingResourceSpecificationService(delegate)
+        List<ResourceSpecException> failures = []
+
+        when:
+        2.times {
+            try {
+                service.findPropertyNameFor("AWS::EC2::Instance", "properties.foo")
+            } catch (ResourceSpecException e) {
+                failures << e
+            }
+        }
+        service.findPropertyNameFor("AWS::EC2::Instance", "properties.foo")
+
+        then:
+        1 * delegate.lookupPropertyName("AWS::EC2::Instance", "properties.foo") >> Optional.empty()
+        0 * delegate.findPropertyNameFor(_, _)
+        ResourceSpecException e = thrown()
+        e.message.contains("properties.foo")
+        failures.size() == 2
+        !failures[0].is(failures[1])
+        service.stats().hitCount == 2
+    }
+
+    def "lookups share the cache with throwing lookups"() {
+        setup:
+        CachingResourceSpecificationService service = new CachingResourceSpecificationService(delegate)
+
+        when:
+        def found = service.lookupPropertyName("AWS::EC2::Instance", "properties.instanceType")
+        def missing = service.lookupPropertyName("AWS::EC2::Instance", "properties.foo")
+        def name = service.findPropertyNameFor("AWS::EC2::Instance", "properties.instanceType")
+
+        then:
+        1 * delegate.lookupPropertyName("AWS::EC2::Instance", "properties.instanceType") >> Optional.of("InstanceType")
+        1 * delegate.lookupPropertyName("AWS::EC2::Instance", "properties.foo") >> Optional.empty()
+        found == Optional.of("InstanceType")
+        !missing.isPresent()
+        name == "InstanceType"
+        service.stats().hitCount == 1
+    }
+
+    def "cache bounded"() {
+        setup:
+        CachingResourceSpecificationService service = new CachingResourceSpecificationService(delegate, "maximumSize=2")
+        delegate.lookupPropertyName(_, _) >> Optional.of("Name")
+
+        when:
+        ["a", "b", "c", "d"].each { service.findPropertyNameFor("AWS::EC2::Instance", it) }
+
+        then:
+        service.stats().size == 2
+        service.stats().evictionCount == 2
+    }
+}
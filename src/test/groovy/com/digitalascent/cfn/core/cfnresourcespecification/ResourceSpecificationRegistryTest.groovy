@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification
+
+import com.google.common.collect.ImmutableMap
+import com.google.common.io.Resources
+import groovy.json.JsonOutput
+import groovy.json.JsonSlurper
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class ResourceSpecificationRegistryTest extends Specification {
+
+    URL jsonUrl = Resources.getResource(ResourceSpecificationLoader, ResourceSpecificationLoader.JSON_RESOURCE_NAME)
+
+    def "specifications loaded once and shared"() {
+        setup:
+        ResourceSpecificationRegistry registry = new ResourceSpecificationRegistry()
+
+        expect:
+        registry.getService().is(registry.getService())
+        registry.getService(jsonUrl).is(registry.getService(jsonUrl))
+        !registry.getService().is(registry.getService(jsonUrl))
+        registry.getService().findPropertyNameFor("AWS::EC2::Instance", "properties.imageId") == "ImageId"
+    }
+
+    def "invalidated specification loaded again on next use"() {
+        setup:
+        ResourceSpecificationRegistry registry = new ResourceSpecificationRegistry()
+        ResourceSpecificationService custom = registry.getService(jsonUrl)
+        ResourceSpecificationService bundled = registry.getService()
+
+        when:
+        registry.invalidate(jsonUrl)
+
+        then:
+        !registry.getService(jsonUrl).is(custom)
+        registry.getService().is(bundled)
+        registry.footprints*.source == ["bundled", jsonUrl.toExternalForm()]
+
+        when:
+        registry.invalidateAll()
+
+        then:
+        registry.footprints.empty
+        !registry.getService().is(bundled)
+    }
+
+    def "failed load not remembered"() {
+        setup:
+        ResourceSpecificationRegistry registry = new ResourceSpecificationRegistry()
+        Path file = Files.createTempFile("spec", ".json")
+        file.toFile().deleteOnExit()
+        file.write("{")
+        URL url = file.toUri().toURL()
+
+        when:
+        registry.getService(url)
+
+        then:
+        thrown(RuntimeException)
+        registry.footprints.empty
+
+        when:
+        file.write(jsonUrl.text)
+
+        then:
+        registry.getService(url).findPropertyNameFor("AWS::EC2::Instance", "properties.imageId") == "ImageId"
+    }
+
+    def "default services backed by the shared registry"() {
+        expect:
+        new ResourceSpecificationServiceImpl().compiledSpecification.is(ResourceSpecificationRegistry.shared.service.compiledSpecification)
+        ResourceSpecificationServiceImpl.createAsync().service().compiledSpecification.is(ResourceSpecificationRegistry.shared.service.compiledSpecification)
+    }
+
+    def "services for a custom URL not shared"() {
+        expect:
+        !new ResourceSpecificationServiceImpl(jsonUrl).compiledSpecification.is(new ResourceSpecificationServiceImpl(jsonUrl).compiledSpecification)
+    }
+
+    def "identical specification instances shared across versions"() {
+        setup:
+        ResourceSpecificationRegistry registry = new ResourceSpecificationRegistry()
+        ResourceSpecification bundled = registry.bundled().resourceSpecification
+        ResourceSpecification custom = registry.register(jsonUrl).resourceSpecification
+
+        expect:
+        custom.resourceTypes["AWS::EC2::Instance"].is(bundled.resourceTypes["AWS::EC2::Instance"])
+        bundled.propertyTypes["Tag"].properties["Key"].is(bundled.propertyTypes["Tag"].properties["Value"])
+    }
+
+    def "shared type specifications cannot be modified"() {
+        setup:
+        ResourceSpecificationService service = new ResourceSpecificationRegistry().getService()
+
+        when:
+        service.findPropertyTypeSpecification("Tag").properties.remove("Key")
+
+        then:
+        thrown(UnsupportedOperationException)
+        service.findResourceTypeSpecification("AWS::EC2::Instance").properties.containsKey("ImageId")
+    }
+
+    def "specifications loaded from JSON are immutable too"() {
+        expect:
+        new ResourceSpecificationLoader().loadResourceSpecification(jsonUrl).propertyTypes["Tag"].properties instanceof ImmutableMap
+    }
+
+    def "retained size reported per version"() {
+        setup:
+        ResourceSpecificationRegistry registry = new ResourceSpecificationRegistry()
+        registry.getService()
+        registry.getService(jsonUrl)
+        registry.getService(modifiedSpecification())
+
+        when:
+        List<ResourceSpecificationFootprint> footprints = registry.footprints
+
+        then:
+        footprints*.source == ["bundled", jsonUrl.toExternalForm(), footprints[2].source]
+        footprints.every { it.totalBytes > 100_000 }
+        footprints[0].totalBytes == footprints[1].totalBytes
+        // only the specification object, its maps and the compiled lookup indexes are not shared
+        footprints[0].retainedBytes < footprints[0].totalBytes / 2
+        footprints[0].retainedBytes > 100_000
+        footprints[1].retainedBytes == footprints[0].retainedBytes
+        footprints[2].retainedBytes > footprints[1].retainedBytes
+        footprints[2].version == "99.0.0"
+        footprints.every { it.sharedBytes == it.totalBytes - it.retainedBytes }
+    }
+
+    private URL modifiedSpecification() {
+        Map specification = new JsonSlurper().parse(jsonUrl) as Map
+        specification.ResourceSpecificationVersion = "99.0.0"
+        specification.ResourceTypes["AWS::EC2::Instance"].Properties.ImageId.UpdateType = "Mutable"
+        Path file = Files.createTempFile("spec", ".json")
+        file.toFile().deleteOnExit()
+        file.write(JsonOutput.toJson(specification))
+        return file.toUri().toURL()
+    }
+}
@@ -25,7 +25,11 @@ class ResourceSpecificationServiceTest extends Specification {
     ResourceSpecificationService resourceSpecificationService;
 
     def setupSpec() {
-        resourceSpecificationService = new ResourceSpecificationServiceImpl()
+        resourceSpecificationService = createResourceSpecificationService()
+    }
+
+    ResourceSpecificationService createResourceSpecificationService() {
+        new ResourceSpecificationServiceImpl()
     }
 
     def "invalid type throws exception"() {
@@ -44,6 +48,21 @@ class ResourceSpecificationServiceTest extends Specification {
         thrown ResourceSpecException
     }
 
+    def "update types resolved"() {
+        expect:
+        resourceSpecificationService.findUpdateType("AWS::EC2::Instance", "imageId") == UpdateType.IMMUTABLE
+        resourceSpecificationService.findUpdateType("AWS::EC2::Instance", "InstanceType") == UpdateType.CONDITIONAL
+        resourceSpecificationService.findUpdateType("AWS::EC2::Instance", "tags") == UpdateType.MUTABLE
+    }
+
+    def "update type of invalid property throws exception"() {
+        when:
+        resourceSpecificationService.findUpdateType("AWS::EC2::Instance", "foo")
+
+        then:
+        thrown ResourceSpecException
+    }
+
     def "property resolved"() {
         when:
         String propertyName = resourceSpecificationService.findPropertyNameFor("AWS::EC2::Instance","properties.instanceType")
@@ -75,4 +94,46 @@ class ResourceSpecificationServiceTest extends Specification {
         then:
         propertyName == "Tags"
     }
+
+    def "property resolved regardless of case"() {
+        when:
+        String propertyName = resourceSpecificationService.findPropertyNameFor("AWS::AutoScaling::LaunchConfiguration","Properties.BLOCKDEVICEMAPPINGS[12].ebs")
+
+        then:
+        propertyName == "Ebs"
+    }
+
+    def "invalid nested property throws exception"() {
+        when:
+        resourceSpecificationService.findPropertyNameFor("AWS::AutoScaling::LaunchConfiguration","blockDeviceMappings[0].foo")
+
+        then:
+        thrown ResourceSpecException
+    }
+
+    def "lookup resolves property name"() {
+        expect:
+        resourceSpecificationService.lookupPropertyName("AWS::AutoScaling::LaunchConfiguration", "blockDeviceMappings[0].deviceName") == Optional.of("DeviceName")
+    }
+
+    def "lookup of unknown type or property is empty"() {
+        expect:
+        !resourceSpecificationService.lookupPropertyName(resourceType, propertyPath).isPresent()
+
+        where:
+        resourceType                            | propertyPath
+        "AWS::EC2::SomeInvalidResourceType"     | "foo"
+        "AWS::EC2::Instance"                    | "foo"
+        "AWS::AutoScaling::LaunchConfiguration" | "blockDeviceMappings[0].foo"
+    }
+
+    def "exception carries no stack trace"() {
+        when:
+        resourceSpecificationService.findPropertyNameFor("AWS::EC2::Instance", "foo")
+
+        then:
+        ResourceSpecException e = thrown()
+        e.stackTrace.length == 0
+        e.message == "Unable to locate property 'foo' on type AWS::EC2::Instance for path foo"
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.cfnresourcespecification
+
+import com.google.common.io.Resources
+import spock.lang.Shared
+import spock.lang.Specification
+
+class ResourceSpecificationSnapshotTest extends Specification {
+
+    @Shared
+    ResourceSpecification jsonSpecification
+
+    @Shared
+    ResourceSpecification snapshotSpecification
+
+    @Shared
+    CompiledResourceSpecification snapshotCompiledSpecification
+
+    def setupSpec() {
+        jsonSpecification = new ResourceSpecificationLoader().loadResourceSpecification(
+                Resources.getResource(ResourceSpecificationLoader, ResourceSpecificationLoader.JSON_RESOURCE_NAME))
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream()
+        ResourceSpecificationSnapshot.write(jsonSpecification, os)
+        ResourceSpecificationSnapshot snapshot = ResourceSpecificationSnapshot.read(new ByteArrayInputStream(os.toByteArray()))
+        snapshotSpecification = snapshot.resourceSpecification
+        snapshotCompiledSpecification = snapshot.compiledSpecification
+    }
+
+    def "version round-tripped"() {
+        expect:
+        snapshotSpecification.resourceSpecificationVersion == jsonSpecification.resourceSpecificationVersion
+    }
+
+    def "types round-tripped"() {
+        expect:
+        snapshotSpecification.resourceTypes.keySet() == jsonSpecification.resourceTypes.keySet()
+        snapshotSpecification.propertyTypes.keySet() == jsonSpecification.propertyTypes.keySet()
+    }
+
+    def "properties round-tripped"() {
+        when:
+        def jsonProperty = jsonSpecification.resourceTypes["AWS::AutoScaling::LaunchConfiguration"].properties["BlockDeviceMappings"]
+        def snapshotProperty = snapshotSpecification.resourceTypes["AWS::AutoScaling::LaunchConfiguration"].properties["BlockDeviceMappings"]
+
+        then:
+        snapshotProperty.toString() == jsonProperty.toString()
+    }
+
+    def "compiled property indexes round-tripped"() {
+        setup:
+        CompiledResourceSpecification jsonCompiledSpecification = new CompiledResourceSpecification(jsonSpecification)
+
+        expect:
+        snapshotCompiledSpecification.resourceTypeCount() == jsonCompiledSpecification.resourceTypeCount()
+        snapshotCompiledSpecification.propertyTypeCount() == jsonCompiledSpecification.propertyTypeCount()
+        jsonSpecification.resourceTypes.keySet().every { typeName ->
+            sameSlots(snapshotCompiledSpecification.findResourceType(typeName), jsonCompiledSpecification.findResourceType(typeName))
+        }
+        jsonSpecification.propertyTypes.keySet().every { typeName ->
+            sameSlots(snapshotCompiledSpecification.findPropertyType(typeName), jsonCompiledSpecification.findPropertyType(typeName))
+        }
+    }
+
+    def "item types linked from the snapshot"() {
+        when:
+        CompiledPropertySpecification blockDeviceMappings = snapshotCompiledSpecification.findResourceType("AWS::EC2::Instance")
+                .findProperty("blockDeviceMappings", 0, "blockDeviceMappings".length())
+
+        then:
+        blockDeviceMappings.itemTypeLinked
+        blockDeviceMappings.itemTypeSpecification.is(snapshotCompiledSpecification.findPropertyType("AWS::EC2::Instance.BlockDeviceMapping"))
+        new PropertyNameResolver(snapshotCompiledSpecification).resolvePropertyName("AWS::EC2::Instance",
+                "blockDeviceMappings[0].deviceName") == "DeviceName"
+    }
+
+    def "invalid snapshot rejected"() {
+        when:
+        ResourceSpecificationSnapshot.read(new ByteArrayInputStream("{}".bytes))
+
+        then:
+        thrown IOException
+    }
+
+    private static boolean sameSlots(CompiledTypeSpecification actual, CompiledTypeSpecification expected) {
+        actual.capacity() == expected.capacity() && (0..<expected.capacity()).every { int slot ->
+            actual.propertyAt(slot)?.formalPropertyName == expected.propertyAt(slot)?.formalPropertyName &&
+                    actual.propertyAt(slot)?.propertySpecification == expected.propertyAt(slot)?.propertySpecification
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.diff
+
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationServiceImpl
+import com.digitalascent.cfn.core.domain.CfnResource
+import com.digitalascent.cfn.core.generator.CloudFormationGenerator
+import com.digitalascent.cfn.core.generator.JsonCloudFormationGenerator
+import spock.lang.Shared
+import spock.lang.Specification
+
+import static com.digitalascent.cfn.core.TemplateFixtures.generateJson
+import static com.digitalascent.cfn.core.TemplateFixtures.instance
+
+class TemplateDiffTest extends Specification {
+
+    @Shared
+    CloudFormationGenerator generator = new JsonCloudFormationGenerator(new ResourceSpecificationServiceImpl())
+
+    def "identical templates have no changes"() {
+        expect:
+        TemplateDiff.of(template(), template()).empty
+    }
+
+    def "changes reported at the highest differing path"() {
+        setup:
+        Map<String, Object> oldTemplate = template()
+        Map<String, Object> newTemplate = template()
+        newTemplate.Resources.remove("bucket")
+        newTemplate.Resources.queue = CfnResource.create("queue", "AWS::SQS::Queue")
+        newTemplate.Resources.instance.properties = {
+            instanceType = "c5.large"
+            imageId = "ami-12345678"
+            subnetId = Ref("otherSubnet")
+            securityGroupIds = [Ref("sg"), Ref("otherSg")]
+        }
+
+        when:
+        TemplateDiff diff = TemplateDiff.of(oldTemplate, newTemplate)
+
+        then:
+        diff.changes.collect { "${it.changeType} ${it.path}".toString() } == [
+                "REMOVED Resources.bucket",
+                "MODIFIED Resources.instance.properties.instanceType",
+                "MODIFIED Resources.instance.properties.subnetId.Ref",
+                "ADDED Resources.instance.properties.securityGroupIds[1]",
+                "ADDED Resources.instance.properties.imageId",
+                "ADDED Resources.queue"
+        ]
+        diff.changes[1].oldValue == "m4.xlarge"
+        diff.changes[1].newValue == "c5.large"
+        diff.changes[2].newValue == "otherSubnet"
+        diff.changedResourceNames == ["bucket", "instance", "queue"] as Set
+    }
+
+    def "kind changes are modifications"() {
+        setup:
+        Map<String, Object> oldTemplate = template()
+        Map<String, Object> newTemplate = template()
+        newTemplate.Resources.instance.properties = {
+            securityGroupIds = Ref("sg")
+        }
+
+        when:
+        TemplateDiff diff = TemplateDiff.of(oldTemplate, newTemplate)
+
+        then:
+        diff.changes.size() == 1
+        diff.changes[0].changeType == ChangeType.MODIFIED
+        diff.changes[0].path == "Resources.instance.properties.securityGroupIds"
+        diff.changes[0].resourceName == "instance"
+    }
+
+    def "generated JSON diffed with CloudFormation names"() {
+        setup:
+        Map<String, Object> newTemplate = template()
+        newTemplate.Resources.instance.properties.instanceType = "c5.large"
+
+        when:
+        TemplateDiff unchanged = TemplateDiff.ofJson(generateJson(generator, template()), generateJson(generator, template()))
+        TemplateDiff diff = TemplateDiff.ofJson(generateJson(generator, template()), generateJson(generator, newTemplate))
+
+        then:
+        unchanged.empty
+        diff.changes*.path == ["Resources.instance.Properties.InstanceType"]
+        diff.changes[0].oldValue.asText() == "m4.xlarge"
+        diff.changedResourceNames == ["instance"] as Set
+    }
+
+    private static Map<String, Object> template() {
+        CfnResource bucket = CfnResource.create("bucket", "AWS::S3::Bucket")
+        bucket.properties = {
+            bucketName = "logs"
+        }
+        CfnResource instance = instance("instance") {
+            instanceType = "m4.xlarge"
+            subnetId = Ref("subnet")
+            securityGroupIds = [Ref("sg")]
+            tags = [Name: "instance"]
+        }
+        Map<String, Object> resources = [bucket: bucket, instance: instance]
+        return [AWSTemplateFormatVersion: "2010-09-09", Resources: resources]
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.domain
+
+import spock.lang.Specification
+
+class CfnContentHashTest extends Specification {
+
+    def "hash is stable across runs"() {
+        expect:
+        CfnContentHash.of(bucket("logs")).get().toString() == "ac9905cd46837f89ad5a41c1d3c0f073"
+    }
+
+    def "equal content hashes equally, different content differently"() {
+        expect:
+        CfnContentHash.of(bucket("logs")) == CfnContentHash.of(bucket("logs"))
+        CfnContentHash.of(bucket("logs")) != CfnContentHash.of(bucket("data"))
+        CfnContentHash.of(["ab", "c"]) != CfnContentHash.of(["a", "bc"])
+        CfnContentHash.of([a: "b"]) != CfnContentHash.of(["a", "b"])
+        CfnContentHash.of(null) != CfnContentHash.of("null")
+    }
+
+    def "values whose JSON the hash cannot account for have no hash"() {
+        setup:
+        String name = "logs"
+
+        expect:
+        CfnContentHash.of([1, 2L, 3.5d, true, new BigDecimal("1.50")]).isPresent()
+        !CfnContentHash.of(["bucket-${name}"]).isPresent()
+        !CfnContentHash.of([created: new Date(0)]).isPresent()
+    }
+
+    private static CfnResource bucket(String name) {
+        CfnResource resource = CfnResource.create("bucket", "AWS::S3::Bucket")
+        resource.properties = {
+            bucketName = name
+            versioningConfiguration = {
+                status = "Enabled"
+            }
+            tags = [[key: "team", value: Ref("team")]]
+        }
+        return resource
+    }
+}
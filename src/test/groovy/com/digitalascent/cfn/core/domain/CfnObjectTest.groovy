@@ -16,8 +16,11 @@
 
 package com.digitalascent.cfn.core.domain
 
+import com.digitalascent.cfn.core.strategy.ConfigurableImmutabilityStrategy
 import com.digitalascent.cfn.core.strategy.DefaultImmutabilityStrategy
 import com.digitalascent.cfn.core.strategy.ImmutabilityStrategy
+import com.digitalascent.cfn.core.strategy.Mutability
+import com.google.common.collect.ImmutableList
 import spock.lang.Specification
 
 class CfnObjectTest extends Specification {
@@ -288,6 +291,49 @@ class CfnObjectTest extends Specification {
         thrown PropertyFrozenException
     }
 
+    def "element rules applied to collection elements"() {
+        setup:
+        CfnObject obj = new CfnObject("type", "abc")
+        obj.properties = {
+            securityGroupIngress = [[cidrIp: "10.0.0.0/8"], [cidrIp: "192.168.0.0/16"]]
+            securityGroupEgress = [[cidrIp: "0.0.0.0/0"]]
+        }
+        ImmutabilityStrategy strategy = new ConfigurableImmutabilityStrategy(["properties.securityGroupIngress[*]"], [])
+        obj.makeImmutable(strategy)
+
+        when:
+        obj.properties.securityGroupIngress[1].putAll([fromPort: 443])
+
+        then:
+        obj.properties.securityGroupIngress[1] == [cidrIp: "192.168.0.0/16", fromPort: 443]
+
+        when:
+        obj.properties.securityGroupIngress[0].putAll([cidrIp: "0.0.0.0/0"])
+
+        then:
+        thrown UnsupportedOperationException
+
+        when:
+        obj.properties.securityGroupIngress.clear()
+
+        then:
+        thrown UnsupportedOperationException
+
+        when:
+        obj.properties.securityGroupEgress[0].putAll([fromPort: 443])
+
+        then:
+        thrown UnsupportedOperationException
+
+        when: "re-freezing keeps the semi-mutable elements and freezes what was added"
+        obj.properties.securityGroupIngress[1].putAll([ports: [80]])
+        obj.makeImmutable(strategy)
+
+        then:
+        obj.properties.securityGroupIngress[1].ports instanceof ImmutableList
+        obj.properties.securityGroupIngress[1] == [cidrIp: "192.168.0.0/16", fromPort: 443, ports: [80]]
+    }
+
     def "properties frozen new properties allowed"() {
         setup:
         CfnObject obj = new CfnObject("type", "abc")
@@ -319,4 +365,100 @@ class CfnObjectTest extends Specification {
         then:
         obj.properties.tags == ["a":"b","c":"d"]
     }
+
+    def "re-freeze skips unchanged objects"() {
+        setup:
+        CfnObject obj = new CfnObject("type", "abc")
+        obj.properties = {
+            a = "b"
+            nested = {
+                c = ["d", "e"]
+            }
+        }
+        RecordingImmutabilityStrategy strategy = new RecordingImmutabilityStrategy()
+        obj.makeImmutable(strategy)
+        strategy.paths.clear()
+
+        when:
+        obj.makeImmutable(strategy)
+
+        then:
+        strategy.paths.isEmpty()
+    }
+
+    def "re-freeze only walks changed subtrees"() {
+        setup:
+        CfnObject obj = new CfnObject("type", "abc")
+        obj.properties = {
+            a = "b"
+            nested = {
+                c = "d"
+            }
+        }
+        RecordingImmutabilityStrategy strategy = new RecordingImmutabilityStrategy()
+        obj.makeImmutable(strategy)
+        strategy.paths.clear()
+
+        when:
+        obj.properties.e = "f"
+        obj.makeImmutable(strategy)
+        obj.properties.e = "g"
+
+        then:
+        strategy.paths == ["properties", "properties.a", "properties.nested", "properties.e"]
+        thrown PropertyFrozenException
+    }
+
+    def "re-freeze revisits semi-mutable properties"() {
+        setup:
+        CfnObject obj = new CfnObject("type", "abc")
+        obj.properties = {
+            tags = ["a": "b"]
+            nested = {
+                c = "d"
+            }
+        }
+        RecordingImmutabilityStrategy strategy = new RecordingImmutabilityStrategy(["properties.tags"])
+        obj.makeImmutable(strategy)
+        strategy.paths.clear()
+
+        when:
+        obj.properties.tags.put "c", ["d"]
+        obj.makeImmutable(strategy)
+        obj.properties.tags.c.add "e"
+
+        then:
+        strategy.paths == ["properties", "properties.tags"]
+        thrown UnsupportedOperationException
+    }
+
+    def "re-freeze with another strategy walks everything"() {
+        setup:
+        CfnObject obj = new CfnObject("type", "abc")
+        obj.properties = {
+            a = "b"
+        }
+        obj.makeImmutable(new RecordingImmutabilityStrategy())
+        RecordingImmutabilityStrategy strategy = new RecordingImmutabilityStrategy()
+
+        when:
+        obj.makeImmutable(strategy)
+
+        then:
+        strategy.paths == ["properties", "properties.a"]
+    }
+
+    static class RecordingImmutabilityStrategy extends ConfigurableImmutabilityStrategy {
+        final List<String> paths = []
+
+        RecordingImmutabilityStrategy(List<String> semiMutablePropertyPaths = []) {
+            super(semiMutablePropertyPaths, [])
+        }
+
+        @Override
+        Mutability mutabilityOf(PropertyPath propertyPath) {
+            paths << propertyPath.toString()
+            return super.mutabilityOf(propertyPath)
+        }
+    }
 }
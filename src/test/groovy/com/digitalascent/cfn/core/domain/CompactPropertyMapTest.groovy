@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.domain
+
+import spock.lang.Specification
+
+class CompactPropertyMapTest extends Specification {
+
+    def "retains insertion order past the linear scan limit"() {
+        setup:
+        CompactPropertyMap map = new CompactPropertyMap()
+        def keys = (1..20).collect { "k${it}".toString() }
+
+        when:
+        keys.each { map.putValue(it, it.toUpperCase()) }
+        map.putValue("k3", "replaced")
+
+        then:
+        map.size() == 20
+        map.keySet() as List == keys
+        map.get("k3") == "replaced"
+        map.get("k20") == "K20"
+        map.get("missing") == null
+        map == keys.collectEntries { [it, it == "k3" ? "replaced" : it.toUpperCase()] }
+    }
+
+    def "frozen slots tracked across words"() {
+        setup:
+        CompactPropertyMap map = new CompactPropertyMap()
+        (0..69).each { map.putValue("k${it}".toString(), it) }
+
+        when:
+        map.freezeAt(2)
+        map.freezeAt(66)
+
+        then:
+        map.isFrozen("k2")
+        map.isFrozen("k66")
+        !map.isFrozen("k3")
+        !map.isFrozen("missing")
+
+        when:
+        map.unfreezeAll()
+
+        then:
+        !map.isFrozen("k2")
+    }
+
+    def "externally read-only"() {
+        setup:
+        CompactPropertyMap map = new CompactPropertyMap()
+        map.putValue("a", "b")
+
+        when:
+        map.put("c", "d")
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.domain
+
+import com.google.common.collect.ImmutableList
+import spock.lang.Specification
+
+class IntrinsicFunctionTest extends Specification {
+
+    def "functions compare by name and arguments"() {
+        expect:
+        new IntrinsicFunction("Fn::GetAtt", ["MyRole", "Arn"]) == new IntrinsicFunction("Fn::GetAtt", ImmutableList.of("MyRole", "Arn"))
+        new IntrinsicFunction("Fn::GetAtt", ["MyRole", "Arn"]).hashCode() == new IntrinsicFunction("Fn::GetAtt", ImmutableList.of("MyRole", "Arn")).hashCode()
+        new IntrinsicFunction("Ref", "MyVpc") != new IntrinsicFunction("Ref", "OtherVpc")
+        new IntrinsicFunction("Ref", "MyVpc") != new IntrinsicFunction("Fn::ImportValue", "MyVpc")
+    }
+
+    def "identical refs share one instance"() {
+        expect:
+        IntrinsicFunction.ref("MyVpc").is(IntrinsicFunction.ref("MyVpc"))
+        IntrinsicFunction.ref("MyVpc").is(IntrinsicFunction.of("Ref", "MyVpc"))
+        !IntrinsicFunction.ref("MyVpc").is(new IntrinsicFunction("Ref", "MyVpc"))
+    }
+
+    def "nested immutable calls are shared"() {
+        setup:
+        CfnObject cfnObject = new CfnObject("AWS::EC2::Instance", "MyInstance.properties")
+
+        expect:
+        cfnObject.Fn_GetAtt("MyRole", "Arn").is(cfnObject.Fn_GetAtt("MyRole", "Arn"))
+        cfnObject.Fn_Base64(cfnObject.Fn_Sub("#!/bin/bash")).is(cfnObject.Fn_Base64(cfnObject.Fn_Sub("#!/bin/bash")))
+    }
+
+    def "calls with mutable arguments are not shared"() {
+        setup:
+        List<Object> conditions = ["A", "B"]
+
+        when:
+        IntrinsicFunction first = IntrinsicFunction.of("Fn::Or", conditions)
+        IntrinsicFunction second = IntrinsicFunction.of("Fn::Or", conditions)
+        conditions.add("C")
+
+        then:
+        !first.is(second)
+        first == second
+        first.hashCode() == IntrinsicFunction.of("Fn::Or", ImmutableList.of("A", "B", "C")).hashCode()
+    }
+
+    def "resource values are replaced by shared refs"() {
+        setup:
+        CfnResource vpc = new CfnResource("MyVpc", "AWS::EC2::VPC")
+        CfnObject subnet = new CfnObject("AWS::EC2::Subnet", "MySubnet.properties")
+        CfnObject securityGroup = new CfnObject("AWS::EC2::SecurityGroup", "MySecurityGroup.properties")
+
+        when:
+        subnet.vpcId = vpc
+        securityGroup.vpcId = vpc
+
+        then:
+        subnet.vpcId.is(securityGroup.vpcId)
+        subnet.vpcId == IntrinsicFunction.ref("MyVpc")
+    }
+}
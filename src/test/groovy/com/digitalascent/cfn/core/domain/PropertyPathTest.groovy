@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.domain
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.lang.ref.WeakReference
+
+class PropertyPathTest extends Specification {
+
+    def "equal paths are the same instance"() {
+        expect:
+        PropertyPath.of("properties").child("blockDeviceMappings").element(0).child("ebs").is(PropertyPath.parse("properties.blockDeviceMappings[0].ebs"))
+        PropertyPath.parse("properties.tags").hashCode() == PropertyPath.of("properties").child("tags").hashCode()
+        !PropertyPath.parse("a.b").is(PropertyPath.parse("a.c"))
+    }
+
+    @Unroll
+    def "#path round-trips"() {
+        expect:
+        PropertyPath.parse(path).toString() == path
+
+        where:
+        path << ["abc", "properties.blockDeviceMappings[12].ebs", "a[0]", "a[01]", "a[x]", "a[]", "a.[3]"]
+    }
+
+    def "element and depth"() {
+        setup:
+        PropertyPath path = PropertyPath.parse("properties.securityGroupIngress[2]")
+
+        expect:
+        path.hasIndex()
+        path.index == 2
+        path.segment == "securityGroupIngress"
+        path.depth == 2
+        path.parent.is(PropertyPath.of("properties"))
+        !path.parent.hasIndex()
+    }
+
+    def "without root"() {
+        expect:
+        PropertyPath.of("MyBucket").withoutRoot() == null
+        PropertyPath.parse("MyBucket.metadata.items[1]").withoutRoot().is(PropertyPath.parse("metadata.items[1]"))
+    }
+
+    def "unreferenced child and element paths are released"() {
+        setup:
+        PropertyPath parent = PropertyPath.parse("properties.securityGroupIngress")
+        WeakReference<PropertyPath> element = new WeakReference<>(parent.element(12345))
+        WeakReference<PropertyPath> child = new WeakReference<>(parent.child("unusedChild"))
+
+        when:
+        for (int i = 0; i < 10 && (element.get() != null || child.get() != null); i++) {
+            System.gc()
+            Thread.sleep(10)
+        }
+
+        then:
+        element.get() == null
+        child.get() == null
+        parent.is(PropertyPath.parse("properties.securityGroupIngress"))
+    }
+
+    def "cannot index an indexed path"() {
+        when:
+        PropertyPath.parse("a[1]").element(2)
+
+        then:
+        thrown(IllegalStateException)
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator
+
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationServiceImpl
+import com.digitalascent.cfn.core.domain.CfnResource
+import groovy.json.JsonSlurper
+import spock.lang.Shared
+import spock.lang.Specification
+
+class BatchCloudFormationGeneratorTest extends Specification {
+
+    @Shared
+    CloudFormationGenerator generator = new JsonCloudFormationGenerator(new ResourceSpecificationServiceImpl())
+
+    def "all templates generated in request order"() {
+        setup:
+        Map<String, ByteArrayOutputStream> outputs = [:]
+        List<TemplateGenerationRequest> requests = (1..20).collect { i ->
+            String name = "template${i}"
+            outputs[name] = new ByteArrayOutputStream()
+            new TemplateGenerationRequest(name, [Resources: [instance: CfnResource.create("instance${i}", "AWS::EC2::Instance")]], { outputs[name] } as TemplateDestination)
+        }
+        BatchCloudFormationGenerator batch = new BatchCloudFormationGenerator(generator, 4)
+
+        when:
+        BatchGenerationReport report = batch.generate(requests, false)
+
+        then:
+        report.success
+        report.results*.name == requests*.name
+        outputs.every { name, os -> new JsonSlurper().parse(os.toByteArray()).Resources.instance.Type == "AWS::EC2::Instance" }
+
+        cleanup:
+        batch.close()
+    }
+
+    def "failed template does not abort batch"() {
+        setup:
+        List<TemplateGenerationRequest> requests = [
+                new TemplateGenerationRequest("good1", [:], { new ByteArrayOutputStream() } as TemplateDestination),
+                new TemplateGenerationRequest("bad", [:], { throw new IOException("disk full") } as TemplateDestination),
+                new TemplateGenerationRequest("good2", [:], { new ByteArrayOutputStream() } as TemplateDestination)
+        ]
+        BatchCloudFormationGenerator batch = new BatchCloudFormationGenerator(generator, 2)
+
+        when:
+        BatchGenerationReport report = batch.generate(requests, true)
+
+        then:
+        !report.success
+        report.results.size() == 3
+        report.failures*.name == ["bad"]
+        report.failures[0].failure instanceof IOException
+
+        cleanup:
+        batch.close()
+    }
+
+    def "stack overflow fails only its own template"() {
+        setup:
+        List<Object> cyclic = []
+        cyclic.add(cyclic)
+        List<TemplateGenerationRequest> requests = [
+                new TemplateGenerationRequest("cyclic", [Outputs: [list: cyclic]], { new ByteArrayOutputStream() } as TemplateDestination),
+                new TemplateGenerationRequest("good", [:], { new ByteArrayOutputStream() } as TemplateDestination)
+        ]
+        BatchCloudFormationGenerator batch = new BatchCloudFormationGenerator(generator, 2)
+
+        when:
+        BatchGenerationReport report = batch.generate(requests, false)
+
+        then:
+        report.failures*.name == ["cyclic"]
+        report.failures[0].failure instanceof StackOverflowError
+
+        cleanup:
+        batch.close()
+    }
+}
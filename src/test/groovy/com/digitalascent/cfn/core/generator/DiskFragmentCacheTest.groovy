@@ -0,0 +1,246 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator
+
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationService
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationServiceImpl
+import com.google.common.hash.HashCode
+import com.google.common.io.Resources
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+import static com.digitalascent.cfn.core.TemplateFixtures.generate
+import static com.digitalascent.cfn.core.TemplateFixtures.instancesTemplate
+
+class DiskFragmentCacheTest extends Specification {
+
+    @Shared
+    ResourceSpecificationService resourceSpecificationService = new ResourceSpecificationServiceImpl()
+
+    @Shared
+    CloudFormationGenerator uncached = new JsonCloudFormationGenerator(resourceSpecificationService)
+
+    Path directory = Files.createTempDirectory("fragments")
+
+    def cleanup() {
+        directory.toFile().deleteDir()
+    }
+
+    @Unroll
+    def "cached output identical to uncached output (prettyPrint = #prettyPrint)"() {
+        setup:
+        DiskFragmentCache cache = new DiskFragmentCache(directory)
+        CloudFormationGenerator cached = new JsonCloudFormationGenerator(resourceSpecificationService, cache)
+        Map<String, Object> template = instancesTemplate(10)
+
+        when:
+        String first = generate(cached, template, prettyPrint)
+        String second = generate(cached, template, prettyPrint)
+
+        then:
+        first == generate(uncached, template, prettyPrint)
+        second == first
+        cache.stats().missCount == 10
+        cache.stats().hitCount == 10
+        cache.stats().writeCount == 10
+        cache.stats().hitRate == 0.5d
+
+        where:
+        prettyPrint << [false, true]
+    }
+
+    def "only changed resources are serialized again"() {
+        setup:
+        CloudFormationGenerator cached = new JsonCloudFormationGenerator(resourceSpecificationService, new DiskFragmentCache(directory))
+        generate(cached, instancesTemplate(10), false)
+
+        // fresh cache instance and model, as in a new build
+        DiskFragmentCache cache = new DiskFragmentCache(directory)
+        cached = new JsonCloudFormationGenerator(resourceSpecificationService, cache)
+        Map<String, Object> template = instancesTemplate(10)
+        template.Resources.instance3.properties.instanceType = "c5.large"
+
+        when:
+        String output = generate(cached, template, false)
+
+        then:
+        output == generate(uncached, template, false)
+        output.contains('"InstanceType":"c5.large"')
+        cache.stats().hitCount == 9
+        cache.stats().missCount == 1
+    }
+
+    def "pretty and compact fragments cached separately"() {
+        setup:
+        DiskFragmentCache cache = new DiskFragmentCache(directory)
+        CloudFormationGenerator cached = new JsonCloudFormationGenerator(resourceSpecificationService, cache)
+
+        when:
+        generate(cached, instancesTemplate(2), false)
+        generate(cached, instancesTemplate(2), true)
+
+        then:
+        cache.stats().hitCount == 0
+        cache.stats().writeCount == 4
+    }
+
+    def "resources without a content hash are always serialized"() {
+        setup:
+        DiskFragmentCache cache = new DiskFragmentCache(directory)
+        CloudFormationGenerator cached = new JsonCloudFormationGenerator(resourceSpecificationService, cache)
+        String type = "xlarge"
+        Map<String, Object> template = instancesTemplate(2)
+        template.Resources.instance1.properties.instanceType = "m4.${type}"
+
+        when:
+        String first = generate(cached, template, false)
+        String second = generate(cached, template, false)
+
+        then:
+        first == generate(uncached, template, false)
+        second == first
+        cache.stats().hitCount == 1
+        cache.stats().writeCount == 1
+    }
+
+    def "flush appends only new fragments"() {
+        setup:
+        DiskFragmentCache cache = new DiskFragmentCache(directory)
+        CloudFormationGenerator cached = new JsonCloudFormationGenerator(resourceSpecificationService, cache)
+
+        when:
+        generate(cached, instancesTemplate(2), false)
+        long firstSegmentSize = Files.size(segments()[0])
+        generate(cached, instancesTemplate(2), false)
+        int segmentsAfterUnchanged = segments().size()
+        generate(cached, instancesTemplate(3), false)
+
+        then:
+        segmentsAfterUnchanged == 1
+        segments().size() == 2
+        segments().collect { Files.size(it) }.min() < firstSegmentSize
+    }
+
+    def "caches sharing a directory keep each other's fragments"() {
+        setup:
+        DiskFragmentCache first = new DiskFragmentCache(directory)
+        DiskFragmentCache second = new DiskFragmentCache(directory)
+        Map<String, Object> changed = instancesTemplate(2)
+        changed.Resources.instance2.properties.instanceType = "c5.large"
+        DiskFragmentCache reread = new DiskFragmentCache(directory)
+        // both loaded before either flushes, as with two concurrent builds
+        first.get(HashCode.fromLong(0L))
+        second.get(HashCode.fromLong(0L))
+
+        when:
+        generate(new JsonCloudFormationGenerator(resourceSpecificationService, first), instancesTemplate(2), false)
+        generate(new JsonCloudFormationGenerator(resourceSpecificationService, second), changed, false)
+        generate(new JsonCloudFormationGenerator(resourceSpecificationService, reread), instancesTemplate(2), false)
+        generate(new JsonCloudFormationGenerator(resourceSpecificationService, reread), changed, false)
+
+        then:
+        second.stats().writeCount == 2
+        reread.stats().hitCount == 4
+    }
+
+    def "segments merged and kept under the size cap"() {
+        setup:
+        DiskFragmentCache cache = new DiskFragmentCache(directory, 8 * 1024, Duration.ofDays(1))
+        CloudFormationGenerator cached = new JsonCloudFormationGenerator(resourceSpecificationService, cache)
+
+        when:
+        (1..60).each { i ->
+            Map<String, Object> template = instancesTemplate(1)
+            template.Resources.instance1.properties.instanceType = "m${i}.large".toString()
+            generate(cached, template, false)
+        }
+        DiskFragmentCache reread = new DiskFragmentCache(directory)
+        String output = generate(new JsonCloudFormationGenerator(resourceSpecificationService, reread), instancesTemplate(1), false)
+
+        then:
+        segments().size() <= 17
+        segments().sum { Files.size(it) } <= 8 * 1024
+        output == generate(uncached, instancesTemplate(1), false)
+    }
+
+    def "specifications sharing a directory do not see each other's fragments"() {
+        setup:
+        Path otherSpecification = directory.resolveSibling(directory.fileName.toString() + ".json")
+        otherSpecification.text = Resources.toString(Resources.getResource(ResourceSpecificationService, "CloudFormationResourceSpecification.json"), StandardCharsets.UTF_8)
+                .replace('"1.5.0"', '"1.5.1"')
+                .replace('"InstanceType"', '"INSTANCETYPE"')
+        ResourceSpecificationService otherService = new ResourceSpecificationServiceImpl(otherSpecification.toUri().toURL())
+        generate(new JsonCloudFormationGenerator(resourceSpecificationService, new DiskFragmentCache(directory)), instancesTemplate(2), false)
+        DiskFragmentCache cache = new DiskFragmentCache(directory)
+
+        when:
+        String output = generate(new JsonCloudFormationGenerator(otherService, cache), instancesTemplate(2), false)
+
+        then:
+        output == generate(new JsonCloudFormationGenerator(otherService), instancesTemplate(2), false)
+        output.contains('"INSTANCETYPE"')
+        cache.stats().missCount == 2
+        cache.stats().hitCount == 0
+
+        cleanup:
+        Files.deleteIfExists(otherSpecification)
+    }
+
+    def "fragment namespaces separate generators sharing a directory"() {
+        setup:
+        generate(new JsonCloudFormationGenerator(resourceSpecificationService, new DiskFragmentCache(directory), "a"), instancesTemplate(2), false)
+        DiskFragmentCache sameNamespace = new DiskFragmentCache(directory)
+        DiskFragmentCache otherNamespace = new DiskFragmentCache(directory)
+
+        when:
+        generate(new JsonCloudFormationGenerator(resourceSpecificationService, sameNamespace, "a"), instancesTemplate(2), false)
+        generate(new JsonCloudFormationGenerator(resourceSpecificationService, otherNamespace, "b"), instancesTemplate(2), false)
+
+        then:
+        sameNamespace.stats().hitCount == 2
+        otherNamespace.stats().hitCount == 0
+        otherNamespace.stats().missCount == 2
+    }
+
+    def "corrupt segment treated as empty and replaced"() {
+        setup:
+        Path corrupt = directory.resolve("fragments-0-corrupt.pack")
+        Files.write(corrupt, [0, 1, 2] as byte[])
+        DiskFragmentCache cache = new DiskFragmentCache(directory)
+        DiskFragmentCache rereadCache = new DiskFragmentCache(directory)
+
+        when:
+        String output = generate(new JsonCloudFormationGenerator(resourceSpecificationService, cache), instancesTemplate(2), false)
+        generate(new JsonCloudFormationGenerator(resourceSpecificationService, rereadCache), instancesTemplate(2), false)
+
+        then:
+        output == generate(uncached, instancesTemplate(2), false)
+        cache.stats().missCount == 2
+        rereadCache.stats().hitCount == 2
+        !Files.exists(corrupt)
+    }
+
+    private List<Path> segments() {
+        return Files.newDirectoryStream(directory, "fragments-*.pack").withCloseable { it.toList() }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator
+
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationServiceImpl
+import com.digitalascent.cfn.core.domain.CfnResource
+import groovy.json.JsonSlurper
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+class JsonCloudFormationGeneratorTest extends Specification {
+
+    @Shared
+    JsonCloudFormationGenerator generator = new JsonCloudFormationGenerator(new ResourceSpecificationServiceImpl())
+
+    def "generator reused for compact and pretty output"() {
+        setup:
+        CfnResource resource = instance("instance1")
+
+        when:
+        String compact = generate(resource, false)
+        String pretty = generate(resource, true)
+
+        then:
+        !compact.contains("\n")
+        pretty.contains("\n")
+        new JsonSlurper().parseText(compact) == new JsonSlurper().parseText(pretty)
+    }
+
+    def "concurrent generate calls produce identical output"() {
+        setup:
+        List<CfnResource> resources = (1..50).collect { instance("instance${it}") }
+        List<String> expected = resources.collect { generate(it, true) }
+        ExecutorService executor = Executors.newFixedThreadPool(8)
+
+        when:
+        List<String> actual = executor.invokeAll(resources.collect { resource ->
+            { -> generate(resource, true) } as Callable<String>
+        })*.get()
+
+        then:
+        actual == expected
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "template measured while generated"() {
+        setup:
+        Map<String, Object> template = template(10)
+        ByteArrayOutputStream os = new ByteArrayOutputStream()
+
+        when:
+        TemplateSizeReport report = generator.generate(template, os, prettyPrint, TemplateLimits.s3(LimitAction.FAIL))
+
+        then:
+        os.toByteArray() == generate(template, prettyPrint).getBytes("UTF-8")
+        report.totalBytes == os.size()
+        report.sectionBytes.keySet() as List == ["AWSTemplateFormatVersion", "Parameters", "Resources"]
+        report.sectionBytes.values().sum() < report.totalBytes
+        report.resourceBytes.keySet() as List == (1..10).collect { "instance${it}" as String }
+        report.resourceBytes.values().sum() < report.sectionBytes.Resources
+        report.getLargestResources(1) == ["instance10"]
+        report.withinLimits
+
+        where:
+        prettyPrint << [false, true]
+    }
+
+    def "count limits fail before anything is written"() {
+        setup:
+        ByteArrayOutputStream os = new ByteArrayOutputStream()
+
+        when:
+        generator.generate(template(3), os, false, new TemplateLimits(100_000, 2, 60, 60, 100, LimitAction.FAIL))
+
+        then:
+        TemplateLimitExceededException e = thrown()
+        e.violation.limit == TemplateLimit.RESOURCES
+        e.violation.actual == 3
+        os.size() == 0
+    }
+
+    def "size limit fails as soon as it is crossed"() {
+        setup:
+        ByteArrayOutputStream os = new ByteArrayOutputStream()
+
+        when:
+        generator.generate(template(50), os, false, new TemplateLimits(1_000, 200, 60, 60, 100, LimitAction.FAIL))
+
+        then:
+        TemplateLimitExceededException e = thrown()
+        e.violation.limit == TemplateLimit.TEMPLATE_BYTES
+        e.violation.actual > 1_000
+        e.violation.actual < 2_000
+    }
+
+    def "limits only warned about"() {
+        setup:
+        ByteArrayOutputStream os = new ByteArrayOutputStream()
+
+        when:
+        TemplateSizeReport report = generator.generate(template(50), os, false, new TemplateLimits(1_000, 20, 60, 60, 100, LimitAction.WARN))
+
+        then:
+        report.violations*.limit == [TemplateLimit.RESOURCES, TemplateLimit.TEMPLATE_BYTES]
+        !report.withinLimits
+        report.totalBytes == os.size()
+        report.resourceBytes.size() == 50
+    }
+
+    private static Map<String, Object> template(int resourceCount) {
+        Map<String, Object> resources = [:]
+        (1..resourceCount).each { resources["instance${it}"] = instance("instance${it}") }
+        return [AWSTemplateFormatVersion: "2010-09-09", Parameters: [Name: [Type: "String"]], Resources: resources]
+    }
+
+    private static CfnResource instance(String name) {
+        CfnResource resource = CfnResource.create(name, "AWS::EC2::Instance")
+        resource.properties = {
+            instanceType = "m4.xlarge"
+            imageId = name
+            blockDeviceMappings = [
+                    {
+                        deviceName = "/dev/sdh"
+                    }
+            ]
+        }
+        return resource
+    }
+
+    private String generate(Object obj, boolean prettyPrint) {
+        ByteArrayOutputStream os = new ByteArrayOutputStream()
+        generator.generate(obj, os, prettyPrint)
+        return os.toString("UTF-8")
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.generator
+
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationService
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationServiceImpl
+import com.digitalascent.cfn.core.domain.CfnResource
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import static com.digitalascent.cfn.core.TemplateFixtures.generate
+import static com.digitalascent.cfn.core.TemplateFixtures.instancesTemplate
+
+class ParallelJsonCloudFormationGeneratorTest extends Specification {
+
+    @Shared
+    ResourceSpecificationService resourceSpecificationService = new ResourceSpecificationServiceImpl()
+
+    @Shared
+    CloudFormationGenerator sequential = new JsonCloudFormationGenerator(resourceSpecificationService)
+
+    @Shared
+    CloudFormationGenerator parallel = new ParallelJsonCloudFormationGenerator(resourceSpecificationService)
+
+    @Unroll
+    def "parallel output identical to sequential output (prettyPrint = #prettyPrint)"() {
+        setup:
+        Map<String, Object> template = instancesTemplate(100)
+        (2..100).each { i -> template.Resources["instance${i}".toString()].dependsOn = ["instance${i - 1}".toString()] }
+        template.Outputs = [ip: [Value: [Ref: "instance1"]]]
+
+        expect:
+        generate(parallel, template, prettyPrint) == generate(sequential, template, prettyPrint)
+
+        where:
+        prettyPrint << [true, false]
+    }
+
+    def "non-template objects generated sequentially"() {
+        setup:
+        CfnResource resource = CfnResource.create("instance1", "AWS::EC2::Instance")
+
+        expect:
+        generate(parallel, resource, true) == generate(sequential, resource, true)
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.graph
+
+import com.digitalascent.cfn.core.domain.CfnResource
+import spock.lang.Specification
+
+class DependencyGraphTest extends Specification {
+
+    def "edges from Ref, Fn::GetAtt, Fn::Sub and DependsOn"() {
+        setup:
+        CfnResource vpc = CfnResource.create("vpc", "AWS::EC2::VPC")
+        CfnResource subnet = CfnResource.create("subnet", "AWS::EC2::Subnet")
+        subnet.properties = {
+            vpcId = Ref("vpc")
+        }
+        CfnResource sg = CfnResource.create("sg", "AWS::EC2::SecurityGroup")
+        sg.properties = {
+            vpcId = Fn_GetAtt("vpc", "VpcId")
+        }
+        CfnResource instance = CfnResource.create("instance", "AWS::EC2::Instance")
+        instance.dependsOn = "vpc"
+        instance.properties = {
+            subnetId = subnet
+            securityGroupIds = [Ref("sg")]
+            userData = Fn_Base64(Fn_Sub('${AWS::Region} ${sg.GroupId} ${!Literal} ${local}', [local: Ref("keyName")]))
+        }
+
+        when:
+        DependencyGraph graph = DependencyGraph.ofTemplate([
+                Parameters: [keyName: [Type: "String"]],
+                Resources : [instance: instance, sg: sg, subnet: subnet, vpc: vpc]])
+
+        then:
+        graph.getDependencies("instance") == ["vpc", "subnet", "sg"] as Set
+        graph.getDependencies("sg") == ["vpc"] as Set
+        graph.getDependents("vpc") == ["instance", "sg", "subnet"] as Set
+        graph.edgeCount == 5
+        graph.danglingReferences.empty
+        !graph.hasCycles()
+        graph.topologicalOrder == ["vpc", "sg", "subnet", "instance"]
+    }
+
+    def "dangling references reported"() {
+        setup:
+        CfnResource bucket = CfnResource.create("bucket", "AWS::S3::Bucket")
+        bucket.dependsOn = ["missingResource"]
+        bucket.properties = {
+            bucketName = Ref("missingParameter")
+            loggingConfiguration = {
+                destinationBucketName = Fn_GetAtt("otherBucket", "Arn")
+            }
+        }
+
+        when:
+        DependencyGraph graph = DependencyGraph.of([bucket])
+
+        then:
+        graph.danglingReferences*.referencedName == ["missingParameter", "otherBucket", "missingResource"]
+        graph.danglingReferences*.referenceType == ["Ref", "Fn::GetAtt", "DependsOn"]
+        graph.danglingReferences.every { it.resourceName == "bucket" }
+        graph.edgeCount == 0
+    }
+
+    def "cycles detected"() {
+        setup:
+        CfnResource a = CfnResource.create("a", "AWS::SNS::Topic")
+        CfnResource b = CfnResource.create("b", "AWS::SNS::Topic")
+        CfnResource c = CfnResource.create("c", "AWS::SNS::Topic")
+        CfnResource d = CfnResource.create("d", "AWS::SNS::Topic")
+        a.dependsOn = "b"
+        b.dependsOn = ["c"]
+        c.dependsOn = ["a"]
+        d.dependsOn = ["d"]
+
+        when:
+        DependencyGraph graph = DependencyGraph.of([a, b, c, d])
+
+        then:
+        graph.cycles == [["a", "b", "c"], ["d"]]
+
+        when:
+        graph.topologicalOrder
+
+        then:
+        DependencyCycleException e = thrown()
+        e.cycles == [["a", "b", "c"], ["d"]]
+    }
+
+    def "long chains ordered without recursion"() {
+        setup:
+        List<CfnResource> resources = (0..<20000).collect { i ->
+            CfnResource resource = CfnResource.create("r${i}", "AWS::SNS::Topic")
+            if (i > 0) {
+                resource.dependsOn = "r${i - 1}".toString()
+            }
+            resource
+        }.reverse()
+
+        when:
+        DependencyGraph graph = DependencyGraph.of(resources)
+
+        then:
+        !graph.hasCycles()
+        graph.topologicalOrder.first() == "r0"
+        graph.topologicalOrder.last() == "r19999"
+    }
+}
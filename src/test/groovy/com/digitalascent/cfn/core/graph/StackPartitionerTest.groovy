@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.graph
+
+import com.digitalascent.cfn.core.domain.CfnResource
+import spock.lang.Specification
+
+class StackPartitionerTest extends Specification {
+
+    def "connected resources kept together"() {
+        setup:
+        List<CfnResource> resources = []
+        (1..3).each { i ->
+            ["a", "b"].each { group ->
+                CfnResource resource = CfnResource.create("${group}${i}", "AWS::SQS::Queue")
+                if (i > 1) {
+                    resource.properties = {
+                        queueName = Fn_GetAtt("${group}${i - 1}", "QueueName")
+                    }
+                }
+                resources << resource
+            }
+        }
+
+        when:
+        StackPartition partition = new StackPartitioner(3).partition(DependencyGraph.of(resources))
+
+        then:
+        partition.stacks == [["a1", "a2", "a3"], ["b1", "b2", "b3"]]
+        partition.crossStackEdgeCount == 0
+        partition.getStackIndex("b2") == 1
+    }
+
+    def "chain cut as few times as possible"() {
+        setup:
+        List<CfnResource> resources = chain(5)
+
+        when:
+        StackPartition partition = new StackPartitioner(2).partition(DependencyGraph.of(resources))
+
+        then:
+        partition.stacks == [["q1", "q2"], ["q3", "q4"], ["q5"]]
+        partition.crossStackEdgeCount == 2
+    }
+
+    def "stacks limited by bytes"() {
+        when:
+        StackPartition partition = new StackPartitioner(10, 100, [q1: 60L, q2: 60L, q3: 30L, q4: 500L])
+                .partition(DependencyGraph.of(chain(4)))
+
+        then:
+        partition.stacks == [["q1"], ["q2", "q3"], ["q4"]]
+    }
+
+    def "cycles rejected"() {
+        setup:
+        CfnResource a = CfnResource.create("a", "AWS::SQS::Queue")
+        a.dependsOn = "b"
+        CfnResource b = CfnResource.create("b", "AWS::SQS::Queue")
+        b.dependsOn = "a"
+
+        when:
+        new StackPartitioner(10).partition(DependencyGraph.of([a, b]))
+
+        then:
+        DependencyCycleException e = thrown()
+        e.cycles == [["a", "b"]]
+    }
+
+    def "large graphs partitioned with stacks only depending on earlier stacks"() {
+        setup:
+        Random random = new Random(42)
+        List<CfnResource> resources = (0..<20000).collect { i ->
+            CfnResource resource = CfnResource.create("r${i}", "AWS::SQS::Queue")
+            if (i > 0) {
+                int dependency = i % 50 == 0 ? random.nextInt(i) : i - 1 - random.nextInt(Math.min(i, 5))
+                resource.dependsOn = "r${dependency}"
+            }
+            resource
+        }
+        DependencyGraph graph = DependencyGraph.of(resources)
+
+        when:
+        StackPartition partition = new StackPartitioner(200).partition(graph)
+
+        then:
+        partition.stacks.every { it.size() <= 200 }
+        partition.stacks.sum { it.size() } == 20000
+        graph.resourceNames.every { name ->
+            graph.getDependencies(name).every { partition.getStackIndex(it) <= partition.getStackIndex(name) }
+        }
+        partition.crossStackEdgeCount < graph.edgeCount / 10
+    }
+
+    private static List<CfnResource> chain(int length) {
+        (1..length).collect { i ->
+            CfnResource resource = CfnResource.create("q${i}", "AWS::SQS::Queue")
+            if (i > 1) {
+                resource.dependsOn = "q${i - 1}"
+            }
+            resource
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.impact
+
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationService
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationServiceImpl
+import com.digitalascent.cfn.core.domain.CfnResource
+import com.digitalascent.cfn.core.generator.CloudFormationGenerator
+import com.digitalascent.cfn.core.generator.JsonCloudFormationGenerator
+import spock.lang.Shared
+import spock.lang.Specification
+
+import static com.digitalascent.cfn.core.TemplateFixtures.generateJson
+import static com.digitalascent.cfn.core.TemplateFixtures.instance
+
+class ChangeImpactAnalyzerTest extends Specification {
+
+    @Shared
+    ResourceSpecificationService resourceSpecificationService = new ResourceSpecificationServiceImpl()
+
+    @Shared
+    CloudFormationGenerator generator = new JsonCloudFormationGenerator(resourceSpecificationService)
+
+    @Shared
+    ChangeImpactAnalyzer analyzer = new ChangeImpactAnalyzer(resourceSpecificationService)
+
+    def "resources classified by update type of changed properties"() {
+        setup:
+        Map<String, Object> newTemplate = template()
+        newTemplate.Resources.replaced.properties = {
+            imageId = "ami-87654321"
+            tags = [Name: "changed"]
+        }
+        newTemplate.Resources.maybeReplaced.properties = {
+            instanceType = "c5.large"
+        }
+        newTemplate.Resources.updated.properties = {
+            tags = [Name: "changed"]
+        }
+        newTemplate.Resources.remove("bucket")
+        newTemplate.Resources.queue = CfnResource.create("queue", "AWS::SQS::Queue")
+
+        when:
+        ChangeImpactReport report = analyzer.analyze(template(), newTemplate)
+
+        then:
+        report.resourceImpacts*.resourceName == ["bucket", "replaced", "maybeReplaced", "updated", "queue"]
+        report.resourceImpacts*.impact == [ChangeImpact.REMOVE, ChangeImpact.REPLACEMENT, ChangeImpact.CONDITIONAL_REPLACEMENT,
+                                           ChangeImpact.UPDATE, ChangeImpact.ADD]
+        report.resourceImpacts[1].replacementCauses == ["imageId"]
+        report.resourceImpacts[1].changedPaths == ["Resources.replaced.properties.imageId", "Resources.replaced.properties.tags.Name"]
+        report.resourceImpacts[2].replacementCauses == ["instanceType"]
+        report.resourceImpacts[3].replacementCauses.empty
+        report.getResourceNames(ChangeImpact.REPLACEMENT) == ["replaced"] as Set
+        report.hasReplacements()
+    }
+
+    def "resource type change is a replacement"() {
+        setup:
+        Map<String, Object> newTemplate = template()
+        newTemplate.Resources.bucket = CfnResource.create("bucket", "AWS::SQS::Queue")
+
+        when:
+        ChangeImpactReport report = analyzer.analyze(template(), newTemplate)
+
+        then:
+        report.resourceImpacts.size() == 1
+        report.resourceImpacts[0].impact == ChangeImpact.REPLACEMENT
+        report.resourceImpacts[0].replacementCauses[0] == "type"
+        report.resourceImpacts[0].resourceType == "AWS::SQS::Queue"
+    }
+
+    def "generated templates classified"() {
+        setup:
+        Map<String, Object> newTemplate = template()
+        newTemplate.Resources.updated.properties = {
+            tags = [Name: "changed"]
+        }
+        newTemplate.Resources.bucket.properties = {
+            bucketName = "other"
+        }
+
+        when:
+        ChangeImpactReport report = analyzer.analyzeJson(generateJson(generator, template()), generateJson(generator, newTemplate))
+
+        then:
+        report.resourceImpacts*.resourceName == ["bucket", "updated"]
+        report.resourceImpacts*.impact == [ChangeImpact.REPLACEMENT, ChangeImpact.UPDATE]
+        report.resourceImpacts[0].replacementCauses == ["BucketName"]
+    }
+
+    def "unchanged templates have no impact"() {
+        expect:
+        !analyzer.analyze(template(), template()).hasReplacements()
+        analyzer.analyze(template(), template()).resourceImpacts.empty
+    }
+
+    private static Map<String, Object> template() {
+        Map<String, Object> resources = [:]
+        resources.bucket = CfnResource.create("bucket", "AWS::S3::Bucket")
+        resources.bucket.properties = {
+            bucketName = "logs"
+        }
+        ["replaced", "maybeReplaced", "updated"].each { name ->
+            resources[name] = instance(name) {
+                imageId = "ami-12345678"
+                instanceType = "m4.xlarge"
+                tags = [Name: name]
+            }
+        }
+        return [AWSTemplateFormatVersion: "2010-09-09", Resources: resources]
+    }
+}
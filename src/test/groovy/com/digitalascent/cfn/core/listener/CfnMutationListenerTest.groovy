@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.listener
+
+import com.digitalascent.cfn.core.domain.CfnObject
+import com.digitalascent.cfn.core.strategy.DefaultImmutabilityStrategy
+import spock.lang.Specification
+
+class CfnMutationListenerTest extends Specification {
+
+    RingBufferMutationListener listener = new RingBufferMutationListener(4)
+
+    def setup() {
+        CfnMutationListeners.setListener(listener)
+    }
+
+    def cleanup() {
+        CfnMutationListeners.reset()
+    }
+
+    def "set and override events recorded"() {
+        setup:
+        CfnObject obj = new CfnObject("type", "abc")
+
+        when:
+        obj.a = "b"
+        obj.a = "c"
+
+        then:
+        listener.events*.type == [CfnMutationEvent.Type.SET, CfnMutationEvent.Type.OVERRIDE]
+        listener.events[1].propertyPath == "abc"
+        listener.events[1].propertyName == "a"
+        listener.events[1].previousValue == "b"
+        listener.events[1].value == "c"
+    }
+
+    def "freeze events recorded"() {
+        setup:
+        CfnObject obj = new CfnObject("type", "abc")
+        obj.a = "b"
+
+        when:
+        obj.makeImmutable(new DefaultImmutabilityStrategy())
+
+        then:
+        listener.events.last().type == CfnMutationEvent.Type.FREEZE
+        listener.events.last().propertyName == "a"
+    }
+
+    def "ring buffer keeps most recent events"() {
+        setup:
+        CfnObject obj = new CfnObject("type", "abc")
+
+        when:
+        (1..6).each { obj."p${it}" = it }
+
+        then:
+        listener.eventCount == 6
+        listener.events*.propertyName == ["p3", "p4", "p5", "p6"]
+    }
+}
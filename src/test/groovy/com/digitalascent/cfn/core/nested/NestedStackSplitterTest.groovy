@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.nested
+
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationServiceImpl
+import com.digitalascent.cfn.core.domain.CfnResource
+import com.digitalascent.cfn.core.generator.JsonCloudFormationGenerator
+import com.digitalascent.cfn.core.graph.StackPartitioner
+import groovy.json.JsonSlurper
+import spock.lang.Shared
+import spock.lang.Specification
+
+import static com.digitalascent.cfn.core.TemplateFixtures.generate
+import static com.digitalascent.cfn.core.TemplateFixtures.instance
+
+class NestedStackSplitterTest extends Specification {
+
+    @Shared
+    JsonCloudFormationGenerator generator = new JsonCloudFormationGenerator(new ResourceSpecificationServiceImpl())
+
+    @Shared
+    NestedStackSplitter splitter = new NestedStackSplitter(new StackPartitioner(3), { name -> "https://example.com/${name}.json" as String })
+
+    def "cross-stack references wired through outputs and parameters"() {
+        setup:
+        Map<String, Object> template = template()
+
+        when:
+        NestedStacks nestedStacks = splitter.split(template)
+        Map parent = json(nestedStacks.parentTemplate)
+        Map stack1 = json(nestedStacks.childTemplates.Stack1)
+        Map stack2 = json(nestedStacks.childTemplates.Stack2)
+
+        then:
+        nestedStacks.partition.stacks == [["vpc", "subnet", "sg"], ["bucket", "instance"]]
+        nestedStacks.partition.crossStackEdgeCount == 2
+
+        parent.Parameters == [keyName: [Type: "String"]]
+        parent.Resources.Stack1 == [Type: "AWS::CloudFormation::Stack", Properties: [TemplateURL: "https://example.com/Stack1.json"]]
+        parent.Resources.Stack2 == [Type      : "AWS::CloudFormation::Stack",
+                                    Properties: [TemplateURL: "https://example.com/Stack2.json",
+                                                 Parameters : [keyName    : [Ref: "keyName"],
+                                                               subnetRef  : ["Fn::GetAtt": ["Stack1", "Outputs.subnetRef"]],
+                                                               sgGroupId  : ["Fn::GetAtt": ["Stack1", "Outputs.sgGroupId"]]]]]
+        parent.Outputs == [InstanceId: [Value: ["Fn::GetAtt": ["Stack2", "Outputs.instanceRef"]]]]
+
+        stack1.Outputs == [subnetRef: [Value: [Ref: "subnet"]], sgGroupId: [Value: ["Fn::GetAtt": ["sg", "GroupId"]]]]
+        stack1.Resources.keySet() as List == ["vpc", "subnet", "sg"]
+        stack1.Mappings == template.Mappings
+
+        stack2.Parameters == [keyName: [Type: "String"], subnetRef: [Type: "String"], sgGroupId: [Type: "String"]]
+        stack2.Resources.instance.Properties.SubnetId == [Ref: "subnetRef"]
+        stack2.Resources.instance.Properties.KeyName == [Ref: "keyName"]
+        stack2.Resources.instance.Properties.UserData == ["Fn::Base64": ["Fn::Sub": ['${AWS::Region} ${sgGroupId}', [sgGroupId: [Ref: "sgGroupId"]]]]]
+        stack2.Resources.instance.DependsOn == ["bucket"]
+        stack2.Outputs == [instanceRef: [Value: [Ref: "instance"]]]
+    }
+
+    def "original template not modified"() {
+        setup:
+        Map<String, Object> template = template()
+        String before = generate(generator, template, false)
+
+        when:
+        NestedStacks nestedStacks = splitter.split(template)
+
+        then:
+        generate(generator, template, false) == before
+        nestedStacks.childTemplates.Stack1.Resources.vpc.is(template.Resources.vpc)
+        !nestedStacks.childTemplates.Stack2.Resources.instance.is(template.Resources.instance)
+    }
+
+    def "DependsOn across stacks moved to the stack resources"() {
+        setup:
+        List<CfnResource> queues = (1..4).collect { CfnResource.create("queue${it}", "AWS::SQS::Queue") }
+        queues[3].dependsOn = ["queue1", "queue3"]
+        queues[2].dependsOn = "queue2"
+        queues[1].dependsOn = "queue1"
+
+        when:
+        NestedStacks nestedStacks = new NestedStackSplitter(new StackPartitioner(2), { "url" }).split(
+                [Resources: queues.collectEntries { [it.getResourceName(), it] }])
+        Map parent = json(nestedStacks.parentTemplate)
+
+        then:
+        nestedStacks.partition.stacks == [["queue1", "queue2"], ["queue3", "queue4"]]
+        parent.Resources.Stack2.DependsOn == ["Stack1"]
+        json(nestedStacks.childTemplates.Stack2).Resources.queue4.DependsOn == ["queue3"]
+        json(nestedStacks.childTemplates.Stack2).Resources.queue3.DependsOn == null
+    }
+
+    private static Map<String, Object> template() {
+        CfnResource vpc = CfnResource.create("vpc", "AWS::EC2::VPC")
+        vpc.properties = {
+            cidrBlock = "10.0.0.0/16"
+        }
+        CfnResource subnet = CfnResource.create("subnet", "AWS::EC2::Subnet")
+        subnet.properties = {
+            vpcId = Ref("vpc")
+        }
+        CfnResource sg = CfnResource.create("sg", "AWS::EC2::SecurityGroup")
+        sg.properties = {
+            vpcId = Fn_GetAtt("vpc", "VpcId")
+        }
+        CfnResource bucket = CfnResource.create("bucket", "AWS::S3::Bucket")
+        CfnResource instance = instance("instance") {
+            subnetId = Ref("subnet")
+            keyName = Ref("keyName")
+            userData = Fn_Base64(Fn_Sub('${AWS::Region} ${sg.GroupId}'))
+        }
+        instance.dependsOn = ["bucket"]
+        return [AWSTemplateFormatVersion: "2010-09-09",
+                Parameters              : [keyName: [Type: "String"]],
+                Mappings                : [regions: ["us-east-1": [ami: "ami-12345678"]]],
+                Resources               : [vpc: vpc, subnet: subnet, sg: sg, bucket: bucket, instance: instance],
+                Outputs                 : [InstanceId: [Value: Ref("instance")]]]
+    }
+
+    private static Object Ref(String name) {
+        CfnResource.create("unused", "AWS::SQS::Queue").Ref(name)
+    }
+
+    private Map json(Map<String, ?> template) {
+        return new JsonSlurper().parseText(generate(generator, template, false)) as Map
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.strategy
+
+import com.digitalascent.cfn.core.domain.CfnObject
+import com.digitalascent.cfn.core.domain.PropertyFrozenException
+import com.digitalascent.cfn.core.domain.PropertyPath
+import com.google.common.collect.ImmutableList
+import com.google.common.collect.ImmutableMap
+import spock.lang.Specification
+
+class ConfigurableImmutabilityStrategyTest extends Specification {
+
+    ImmutabilityStrategy strategy = new ConfigurableImmutabilityStrategy(["tags"], [])
+
+    def "already immutable values are shared"() {
+        setup:
+        def list = ImmutableList.of("a", ImmutableMap.of("b", 1))
+
+        expect:
+        strategy.maybeMakeImmutable("rules", list).get(0).is(list)
+    }
+
+    def "mutable values are copied once and then shared"() {
+        setup:
+        def first = strategy.maybeMakeImmutable("rules", [[cidr: "0.0.0.0/0", ports: [80, 443]]]).get(0)
+
+        expect:
+        first instanceof ImmutableList
+        first[0] instanceof ImmutableMap
+        first[0].ports instanceof ImmutableList
+        strategy.maybeMakeImmutable("rules", first).get(0).is(first)
+    }
+
+    def "only changed subtrees are rebuilt"() {
+        setup:
+        def unchanged = ImmutableMap.of("a", "b")
+        def list = ImmutableList.of(unchanged, [1, 2])
+
+        when:
+        List frozen = strategy.maybeMakeImmutable("rules", list).get(0)
+
+        then:
+        !frozen.is(list)
+        frozen[0].is(unchanged)
+        frozen[1] == [1, 2]
+        frozen[1] instanceof ImmutableList
+    }
+
+    def "re-freezing a semi-mutable map keeps it and freezes new entries in place"() {
+        setup:
+        Map tags = strategy.maybeMakeImmutable("tags", [a: "b"]).get(0)
+        tags.put("c", ["d"])
+
+        when:
+        Map refrozen = strategy.maybeMakeImmutable("tags", tags).get(0)
+
+        then:
+        refrozen.is(tags)
+        refrozen.c instanceof ImmutableList
+
+        when:
+        tags.putAll([a: "x"])
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    def "nested objects are re-frozen within shared collections"() {
+        setup:
+        CfnObject obj = new CfnObject("type", "properties")
+        obj.a = "b"
+        def list = ImmutableList.of(obj)
+
+        when:
+        def frozen = strategy.maybeMakeImmutable("objects", list).get(0)
+
+        then:
+        frozen.is(list)
+
+        when:
+        obj.a = "c"
+
+        then:
+        thrown(PropertyFrozenException)
+    }
+
+    def "element rules applied when freezing a collection"() {
+        setup:
+        MutabilityStrategy elementStrategy = new ConfigurableImmutabilityStrategy(["rules[*]"], ["rules[1]"])
+        Map mutableElement = [b: 2]
+
+        when:
+        List frozen = elementStrategy.maybeMakeImmutable(PropertyPath.of("rules"), [[a: 1], mutableElement, [c: 3]]).get(0)
+
+        then:
+        frozen instanceof ImmutableList
+        !(frozen[0] instanceof ImmutableMap)
+        frozen[1].is(mutableElement)
+        !(frozen[2] instanceof ImmutableMap)
+
+        when:
+        frozen[0].putAll([d: 4])
+
+        then:
+        frozen[0] == [a: 1, d: 4]
+
+        when:
+        frozen[0].putAll([a: 5])
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+}
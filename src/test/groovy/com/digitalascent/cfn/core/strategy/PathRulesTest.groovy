@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.strategy
+
+import com.digitalascent.cfn.core.domain.PropertyPath
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class PathRulesTest extends Specification {
+
+    PathRules rules = new PathRules(
+            ["properties.tags", "properties.*.tags", "metadata.**"],
+            ["properties.securityGroupIngress[*]", "properties.blockDeviceMappings[1].ebs", "properties.**.userData", "metadata.scratch"])
+
+    @Unroll
+    def "#path is #expected"() {
+        expect:
+        rules.mutabilityOf(PropertyPath.parse(path)) == expected
+
+        where:
+        path                                       | expected
+        "properties.tags"                          | Mutability.SEMI_MUTABLE
+        "properties.launchTemplate.tags"           | Mutability.SEMI_MUTABLE
+        "properties.launchTemplate[0].tags"        | Mutability.IMMUTABLE
+        "properties.launchTemplate.nested.tags"    | Mutability.IMMUTABLE
+        "properties.securityGroupIngress[3]"       | Mutability.MUTABLE
+        "properties.securityGroupIngress"          | Mutability.IMMUTABLE
+        "properties.blockDeviceMappings[1].ebs"    | Mutability.MUTABLE
+        "properties.blockDeviceMappings[0].ebs"    | Mutability.IMMUTABLE
+        "properties.userData"                      | Mutability.MUTABLE
+        "properties.a.b[2].userData"               | Mutability.MUTABLE
+        "metadata"                                 | Mutability.SEMI_MUTABLE
+        "metadata.a.b"                             | Mutability.SEMI_MUTABLE
+        "metadata.scratch"                         | Mutability.MUTABLE
+        "type"                                     | Mutability.IMMUTABLE
+    }
+
+    @Unroll
+    def "rules below #path: #expected"() {
+        setup:
+        PathRules elementRules = new PathRules(["properties.securityGroupIngress[*]", "properties.tags.*"], ["metadata.**"])
+
+        expect:
+        elementRules.hasRulesBelow(PropertyPath.parse(path)) == expected
+
+        where:
+        path                                    | expected
+        "properties"                            | true
+        "properties.securityGroupIngress"       | true
+        "properties.securityGroupIngress[0]"    | false
+        "properties.securityGroupEgress"        | false
+        "properties.tags"                       | true
+        "metadata.a"                            | true
+        "type"                                  | false
+    }
+
+    def "exact paths behave as before"() {
+        setup:
+        PathRules exact = new PathRules(["properties.tags"], ["properties.tags", "dependsOn"])
+
+        expect:
+        exact.mutabilityOf(PropertyPath.parse("properties.tags")) == Mutability.MUTABLE
+        exact.mutabilityOf(PropertyPath.parse("dependsOn")) == Mutability.MUTABLE
+        exact.mutabilityOf(PropertyPath.parse("dependsOnX")) == Mutability.IMMUTABLE
+    }
+
+    def "hundreds of rules"() {
+        setup:
+        PathRules many = new PathRules([], (0..<500).collect { "properties.p${it}[*].value".toString() })
+
+        expect:
+        many.mutabilityOf(PropertyPath.parse("properties.p499[7].value")) == Mutability.MUTABLE
+        many.mutabilityOf(PropertyPath.parse("properties.p500[7].value")) == Mutability.IMMUTABLE
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.digitalascent.cfn.core.validation
+
+import com.digitalascent.cfn.core.cfnresourcespecification.CfnTypeSpecification
+import com.digitalascent.cfn.core.cfnresourcespecification.ResourceSpecificationServiceImpl
+import com.digitalascent.cfn.core.domain.CfnResource
+import spock.lang.Shared
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.PropertyNamingStrategy
+import spock.lang.Specification
+
+class TemplateValidatorTest extends Specification {
+
+    @Shared
+    TemplateValidator validator = new TemplateValidator(new ResourceSpecificationServiceImpl())
+
+    def "valid resources pass"() {
+        setup:
+        CfnResource instance = CfnResource.create("instance", "AWS::EC2::Instance")
+        instance.properties = {
+            imageId = "ami-12345678"
+            disableApiTermination = true
+            ipv6AddressCount = "2"
+            securityGroupIds = ["sg-1", "sg-2"]
+            blockDeviceMappings = [{
+                                       deviceName = "/dev/sda1"
+                                   }]
+            tags = [{
+                        key = "Name"
+                        value = "web"
+                    }]
+        }
+        CfnResource custom = CfnResource.create("custom", "Custom::Thing")
+        custom.properties = {
+            anything = "goes"
+        }
+
+        when:
+        ValidationReport report = validator.validate([instance, custom])
+
+        then:
+        report.valid
+        report.errors.empty
+    }
+
+    def "intrinsic functions accepted for any property"() {
+        setup:
+        CfnResource bucket = CfnResource.create("bucket", "AWS::S3::Bucket")
+        CfnResource instance = CfnResource.create("instance", "AWS::EC2::Instance")
+        instance.properties = {
+            imageId = Ref(bucket)
+            disableApiTermination = Ref(bucket)
+            blockDeviceMappings = [Ref(bucket)]
+        }
+
+        expect:
+        validator.validate([bucket, instance]).valid
+    }
+
+    def "all errors collected with paths"() {
+        setup:
+        CfnResource instance = CfnResource.create("instance", "AWS::EC2::Instance")
+        instance.properties = {
+            disableApiTermination = "maybe"
+            ipv6AddressCount = 1.5
+            unknownThing = "x"
+            blockDeviceMappings = [{
+                                       virtualName = "ephemeral0"
+                                   }, "not-a-mapping"]
+            tags = [Name: "web"]
+        }
+        CfnResource other = CfnResource.create("other", "AWS::Nope::Nothing")
+
+        when:
+        ValidationReport report = validator.validate([instance, other])
+
+        then:
+        !report.valid
+        report.errors.collect { "${it.resourceName} ${it.path} ${it.errorType}" as String } == [
+                "instance properties.disableApiTermination INVALID_VALUE",
+                "instance properties.ipv6AddressCount INVALID_VALUE",
+                "instance properties.unknownThing UNKNOWN_PROPERTY",
+                "instance properties.blockDeviceMappings[0].DeviceName MISSING_REQUIRED_PROPERTY",
+                "instance properties.blockDeviceMappings[1] INVALID_VALUE",
+                "instance properties.tags INVALID_VALUE",
+                "instance properties.ImageId MISSING_REQUIRED_PROPERTY",
+                "other type UNKNOWN_RESOURCE_TYPE"
+        ]
+    }
+
+    def "template resources validated in parallel"() {
+        setup:
+        Map<String, Object> resources = [:]
+        (0..<100).each { i ->
+            CfnResource queue = CfnResource.create("queue${i}", "AWS::SQS::Queue")
+            queue.properties = {
+                delaySeconds = i % 10 == 0 ? "later" : i
+            }
+            resources["queue${i}"] = queue
+        }
+
+        when:
+        ValidationReport report = validator.validateTemplate([Resources: resources])
+
+        then:
+        report.errors*.resourceName == (0..<100).findAll { it % 10 == 0 }.collect { "queue${it}" as String }
+        report.errors*.path.unique() == ["properties.delaySeconds"]
+    }
+
+    def "property names differing only by case resolve to the first"() {
+        setup:
+        ObjectMapper mapper = new ObjectMapper().setPropertyNamingStrategy(PropertyNamingStrategy.UPPER_CAMEL_CASE)
+        CfnTypeSpecification typeSpecification = mapper.readValue(
+                '{"Properties": {"Name": {"PrimitiveType": "String", "Required": true}, "NAME": {"PrimitiveType": "Integer", "Required": true}}}',
+                CfnTypeSpecification)
+
+        when:
+        TypeValidator typeValidator = new TypeValidator("Custom::Type", typeSpecification)
+
+        then:
+        typeValidator.findProperty("name").is(typeValidator.findProperty("NAME"))
+        typeValidator.requiredProperties.size() == 1
+    }
+}